@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * (c) Copyright IBM Corporation 2026.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package net.wasdev.wlp.test.servlet.it;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * Test the package goal with nativePackaging and layeredPackage, for a server with a loose application.
+ * 
+ */
+public class NativeLayeredPackageTest {
+
+    private static final String APP_ENTRY = "wlp/usr/servers/test/apps/package-native-layered-it.war";
+
+    private File packageFile = new File(System.getProperty("user.dir"), "package-native-layered-it.zip");
+
+    private File layersDir = new File(System.getProperty("user.dir"), "package-native-layered-it-layers");
+
+    private static List<String> getEntryNames(File archive) throws Exception {
+        List<String> names = new ArrayList<String>();
+        ZipFile zipFile = new ZipFile(archive);
+        try {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                names.add(entries.nextElement().getName());
+            }
+        } finally {
+            zipFile.close();
+        }
+        return names;
+    }
+
+    // the entry names of an archive inside an archive
+    private static List<String> getNestedEntryNames(File archive, String entryName) throws Exception {
+        List<String> names = new ArrayList<String>();
+        ZipFile zipFile = new ZipFile(archive);
+        try {
+            ZipEntry entry = zipFile.getEntry(entryName);
+            Assert.assertNotNull(entryName + " is missing from " + archive, entry);
+            ZipInputStream in = new ZipInputStream(zipFile.getInputStream(entry));
+            for (ZipEntry nested = in.getNextEntry(); nested != null; nested = in.getNextEntry()) {
+                names.add(nested.getName());
+            }
+        } finally {
+            zipFile.close();
+        }
+        return names;
+    }
+
+    @Test
+    public void testLooseApplicationIsPackagedAsWar() throws Exception {
+        Assert.assertTrue(packageFile + " does not exist", packageFile.isFile());
+        List<String> names = getEntryNames(packageFile);
+        Assert.assertTrue(names.contains("wlp/usr/servers/test/server.xml"));
+        Assert.assertTrue(names.contains(APP_ENTRY));
+        for (String name : names) {
+            Assert.assertFalse("The loose application " + name + " was packaged", name.endsWith(".war.xml"));
+        }
+        List<String> appNames = getNestedEntryNames(packageFile, APP_ENTRY);
+        Assert.assertTrue(appNames.contains("WEB-INF/classes/net/wasdev/wlp/test/servlet/HelloServlet.class"));
+        Assert.assertTrue(appNames.contains("index.html"));
+    }
+
+    @Test
+    public void testLayers() throws Exception {
+        Properties index = new Properties();
+        InputStream in = new FileInputStream(new File(layersDir, "layers.properties"));
+        try {
+            index.load(in);
+        } finally {
+            in.close();
+        }
+        List<String> layerEntries = new ArrayList<String>();
+        for (String layer : index.getProperty("layers").split(",")) {
+            File layerFile = new File(layersDir, index.getProperty(layer + ".file"));
+            Assert.assertTrue(layerFile + " does not exist", layerFile.isFile());
+            Assert.assertEquals(64, index.getProperty(layer + ".sha256").length());
+            for (String name : getEntryNames(layerFile)) {
+                if (!name.endsWith("/")) {
+                    Assert.assertFalse(name + " is in several layers", layerEntries.contains(name));
+                    layerEntries.add(name);
+                }
+            }
+        }
+        Assert.assertTrue(index.getProperty("layers").endsWith("app"));
+
+        // the layers together have the files of the package
+        List<String> packageEntries = new ArrayList<String>();
+        for (String name : getEntryNames(packageFile)) {
+            if (!name.endsWith("/")) {
+                packageEntries.add(name);
+            }
+        }
+        Assert.assertEquals(packageEntries.size(), layerEntries.size());
+        Assert.assertTrue(layerEntries.containsAll(packageEntries));
+
+        List<String> appNames = getNestedEntryNames(new File(layersDir, "app.zip"), APP_ENTRY);
+        Assert.assertTrue(appNames.contains("WEB-INF/classes/net/wasdev/wlp/test/servlet/HelloServlet.class"));
+    }
+
+}
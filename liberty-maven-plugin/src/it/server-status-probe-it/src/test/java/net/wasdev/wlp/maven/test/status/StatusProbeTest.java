@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * (c) Copyright IBM Corporation 2026.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package net.wasdev.wlp.maven.test.status;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 
+ * Test that the status goal reports the server status from the server files, before the server
+ * is started and while it runs, without running the server status command.
+ * 
+ */
+public class StatusProbeTest {
+
+    private static final String CHECK_MESSAGE = "CWWKM2123I";
+
+    @Test
+    public void testStatusIsReportedByTheProbe() throws Exception {
+        // the line that follows each status check in the build.log console output
+        List<String> results = new ArrayList<String>();
+        BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(new File("build.log")), "UTF-8"));
+        try {
+            String previous = null;
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (previous != null && previous.contains(CHECK_MESSAGE)) {
+                    results.add(line);
+                }
+                previous = line;
+            }
+        } finally {
+            br.close();
+        }
+
+        Assert.assertEquals(results.toString(), 2, results.size());
+        List<String> expected = Arrays.asList("CWWKM2125I: Server test stopped", "CWWKM2124I: Server test is running.");
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertTrue(results.get(i), results.get(i).contains(expected.get(i)));
+        }
+    }
+
+}
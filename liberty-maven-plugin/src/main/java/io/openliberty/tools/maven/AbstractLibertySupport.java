@@ -16,9 +16,13 @@
 package io.openliberty.tools.maven;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.DefaultArtifact;
@@ -47,11 +51,19 @@ import org.eclipse.aether.resolution.VersionRangeRequest;
 import org.eclipse.aether.resolution.VersionRangeResolutionException;
 import org.eclipse.aether.resolution.VersionRangeResult;
 
+import io.openliberty.tools.maven.utils.DependencyTrailIndex;
+import io.openliberty.tools.maven.utils.VersionRangeCache;
+
 /**
  * Liberty Abstract Mojo Support
  * 
  */
 public abstract class AbstractLibertySupport extends MojoSupport {
+
+    private static final Map<RepositorySystemSession, Map<String, File>> RESOLVED_ARTIFACT_FILES = new WeakHashMap<RepositorySystemSession, Map<String, File>>();
+
+    private static final Map<RepositorySystemSession, VersionRangeCache> VERSION_RANGE_CACHES = new WeakHashMap<RepositorySystemSession, VersionRangeCache>();
+
     /**
      * Maven Project
      */
@@ -87,6 +99,22 @@ public abstract class AbstractLibertySupport extends MojoSupport {
     
     @Parameter(property = "reactorProjects", required = true, readonly = true)
     protected List<MavenProject> reactorProjects;
+
+    /**
+     * Time in seconds to reuse the highest version of a resolved version range, e.g. of the runtimeArtifact,
+     * in the goals of the current build. Set to 0 to resolve version ranges in every goal.
+     */
+    @Parameter(property = "versionRangeCacheTtl", defaultValue = "600")
+    protected long versionRangeCacheTtl = 600;
+
+    /**
+     * Persist resolved version ranges next to the local repository so that later builds can reuse them
+     * within the versionRangeCacheTtl.
+     */
+    @Parameter(property = "persistVersionRangeCache", defaultValue = "false")
+    protected boolean persistVersionRangeCache;
+
+    private DependencyTrailIndex dependencyTrailIndex;
     
     protected MavenProject getProject() {
         return project;
@@ -260,20 +288,19 @@ public abstract class AbstractLibertySupport extends MojoSupport {
                 }
             }
         
-            for (Artifact artifact : artifacts) {
-                if (artifact.getGroupId().equals(groupId) && 
-                    ((compareArtifactId == null) ||
-                     (isWildcard && artifact.getArtifactId().startsWith(compareArtifactId)) ||
-                     (artifact.getArtifactId().equals(compareArtifactId)))) {
-                    if (!artifact.isResolved()) {
-                        ArtifactItem item = createArtifactItem(artifact.getGroupId(), artifact.getArtifactId(), artifact.getType(), artifact.getVersion()); 
-                        artifact = getArtifact(item);
-                    }
-                    log.debug("Found resolved dependency from project dependencies: " + artifact.getGroupId() + ":"
-                            + artifact.getArtifactId() + ":" + artifact.getVersion());
-                    resolvedDependencies.add(artifact);
-                    findTransitiveDependencies(artifact, getProject().getArtifacts(), resolvedDependencies);
+            DependencyTrailIndex index = getDependencyTrailIndex(artifacts);
+            List<Artifact> matches = compareArtifactId == null || isWildcard
+                    ? index.getArtifactsByPrefix(groupId, compareArtifactId == null ? "" : compareArtifactId)
+                    : index.getArtifacts(groupId, compareArtifactId);
+            for (Artifact artifact : matches) {
+                if (!artifact.isResolved()) {
+                    ArtifactItem item = createArtifactItem(artifact.getGroupId(), artifact.getArtifactId(), artifact.getType(), artifact.getVersion()); 
+                    artifact = getArtifact(item);
                 }
+                log.debug("Found resolved dependency from project dependencies: " + artifact.getGroupId() + ":"
+                        + artifact.getArtifactId() + ":" + artifact.getVersion());
+                resolvedDependencies.add(artifact);
+                findTransitiveDependencies(artifact, getProject().getArtifacts(), resolvedDependencies);
             }
 
             if (resolvedDependencies.isEmpty() && getProject().getDependencyManagement() != null) {
@@ -306,20 +333,27 @@ public abstract class AbstractLibertySupport extends MojoSupport {
 
      protected void findTransitiveDependencies(Artifact resolvedArtifact, Set<Artifact> resolvedArtifacts, Set<Artifact> resolvedDependencies) {
         boolean isProvidedScopeAllowed = resolvedArtifact.getScope().equals(Artifact.SCOPE_PROVIDED);
-        String coords = resolvedArtifact.getGroupId() + ":" + resolvedArtifact.getArtifactId() + ":";
-        for (Artifact artifact : resolvedArtifacts) {
+        // only the artifacts whose dependency trail contains the groupId:artifactId of the resolved artifact
+        List<Artifact> candidates = getDependencyTrailIndex(resolvedArtifacts).getArtifactsWithTrailThrough(
+                resolvedArtifact.getGroupId(), resolvedArtifact.getArtifactId(), resolvedArtifact.getVersion());
+        for (Artifact artifact : candidates) {
             // Do not copy transitive dependencies with SCOPE_PROVIDED unless the resolvedArtifact is SCOPE_PROVIDED.
             boolean isProvidedScope = artifact.getScope().equals(Artifact.SCOPE_PROVIDED);
             if (!artifact.equals(resolvedArtifact) && (!isProvidedScope || isProvidedScopeAllowed)) {
-                List<String> depTrail = artifact.getDependencyTrail();
-                if (dependencyTrailContainsArtifact(coords, resolvedArtifact.getVersion(), depTrail)) {
-                    log.info("Adding transitive dependency with scope: "+artifact.getScope()+" and GAV: "+artifact.getGroupId()+":"+artifact.getArtifactId()+":"+artifact.getVersion());
-                    resolvedDependencies.add(artifact);
-                }
+                log.info("Adding transitive dependency with scope: "+artifact.getScope()+" and GAV: "+artifact.getGroupId()+":"+artifact.getArtifactId()+":"+artifact.getVersion());
+                resolvedDependencies.add(artifact);
             }
         }
      }
 
+     // the index of the resolved artifacts, built once for each set of project artifacts
+     private DependencyTrailIndex getDependencyTrailIndex(Set<Artifact> resolvedArtifacts) {
+         if (dependencyTrailIndex == null || !dependencyTrailIndex.isIndexOf(resolvedArtifacts)) {
+             dependencyTrailIndex = new DependencyTrailIndex(resolvedArtifacts);
+         }
+         return dependencyTrailIndex;
+     }
+
      protected boolean dependencyTrailContainsArtifact(String gaCoords, String version, List<String> depTrail) {
          for (String nextFullArtifactId : depTrail) {
              if (nextFullArtifactId.startsWith(gaCoords) && 
@@ -422,7 +456,104 @@ public abstract class AbstractLibertySupport extends MojoSupport {
         return artifact;
     }
     
+    /**
+     * Resolves the given artifacts in one request, so that the repository system downloads them
+     * concurrently, and keeps their files for the rest of the build. Artifacts without a version
+     * in the item, the project dependencies or the project dependencyManagement are skipped, and
+     * resolution failures are left to the goal that needs the artifact.
+     *
+     * @param items the artifacts that the goal will need
+     */
+    protected void prefetchArtifacts(List<ArtifactItem> items) {
+        Map<String, File> resolvedFiles = getResolvedArtifactFiles();
+        List<ArtifactRequest> requests = new ArrayList<ArtifactRequest>();
+        for (ArtifactItem item : items) {
+            if (item == null || item.getGroupId() == null || item.getArtifactId() == null || item.getType() == null) {
+                continue;
+            }
+            String version = item.getVersion();
+            if (version == null) {
+                Artifact artifact = resolveFromProjectDependencies(item);
+                if (artifact != null && artifact.isResolved()) {
+                    continue;
+                }
+                Dependency dependency = artifact == null ? resolveFromProjectDepMgmt(item) : null;
+                version = artifact != null ? artifact.getVersion() : dependency != null ? dependency.getVersion() : null;
+            } else if (version.trim().startsWith("[") || version.trim().startsWith("(")) {
+                try {
+                    // same as createArtifact, which would resolve the range later
+                    version = resolveVersionRange(item.getGroupId(), item.getArtifactId(), item.getType(), version);
+                    item.setVersion(version);
+                } catch (VersionRangeResolutionException e) {
+                    log.debug("Unable to prefetch " + item.getGroupId() + ":" + item.getArtifactId() + ": " + e.getMessage());
+                    continue;
+                }
+            }
+            if (version == null) {
+                continue;
+            }
+            org.eclipse.aether.artifact.Artifact aetherArtifact = new org.eclipse.aether.artifact.DefaultArtifact(
+                    item.getGroupId(), item.getArtifactId(), item.getType(), version);
+            if (!resolvedFiles.containsKey(getArtifactKey(aetherArtifact))) {
+                requests.add(new ArtifactRequest().setRepositories(this.repositories).setArtifact(aetherArtifact));
+            }
+        }
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        List<ArtifactResult> results;
+        try {
+            results = this.repositorySystem.resolveArtifacts(this.repoSession, requests);
+        } catch (ArtifactResolutionException e) {
+            // keep what was resolved, the failed artifacts are reported when they are needed
+            results = e.getResults();
+        }
+        for (ArtifactResult result : results) {
+            if (result.isResolved() && result.getArtifact().getFile() != null) {
+                resolvedFiles.put(getArtifactKey(result.getArtifact()), result.getArtifact().getFile());
+            }
+        }
+        log.debug("Prefetched " + requests.size() + " artifacts in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    // resolved version ranges of the current build, shared by the goals of the build
+    private VersionRangeCache getVersionRangeCache() {
+        synchronized (VERSION_RANGE_CACHES) {
+            VersionRangeCache cache = VERSION_RANGE_CACHES.get(repoSession);
+            if (cache == null) {
+                cache = new VersionRangeCache();
+                VERSION_RANGE_CACHES.put(repoSession, cache);
+            }
+            return cache;
+        }
+    }
+
+    // resolved artifact files of the current build, shared by the goals of the build
+    private Map<String, File> getResolvedArtifactFiles() {
+        synchronized (RESOLVED_ARTIFACT_FILES) {
+            Map<String, File> files = RESOLVED_ARTIFACT_FILES.get(repoSession);
+            if (files == null) {
+                files = new ConcurrentHashMap<String, File>();
+                RESOLVED_ARTIFACT_FILES.put(repoSession, files);
+            }
+            return files;
+        }
+    }
+
+    private static String getArtifactKey(org.eclipse.aether.artifact.Artifact artifact) {
+        return artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getExtension() + ":"
+                + artifact.getClassifier() + ":" + artifact.getVersion();
+    }
+
     private File resolveArtifactFile(org.eclipse.aether.artifact.Artifact aetherArtifact) throws MojoExecutionException {
+        Map<String, File> resolvedFiles = getResolvedArtifactFiles();
+        File resolvedFile = resolvedFiles.get(getArtifactKey(aetherArtifact));
+        if (resolvedFile != null && resolvedFile.exists()) {
+            return resolvedFile;
+        }
+
         ArtifactRequest req = new ArtifactRequest().setRepositories(this.repositories).setArtifact(aetherArtifact);
         ArtifactResult resolutionResult = null;
         
@@ -438,12 +569,34 @@ public abstract class AbstractLibertySupport extends MojoSupport {
         }
         
         File artifactFile = resolutionResult.getArtifact().getFile();
+        if (artifactFile != null) {
+            resolvedFiles.put(getArtifactKey(aetherArtifact), artifactFile);
+        }
         
         return artifactFile;
     }
     
     private String resolveVersionRange(String groupId, String artifactId, String extension, String version)
             throws VersionRangeResolutionException {
+        StringBuilder repositoryIds = new StringBuilder();
+        for (RemoteRepository repository : repositories) {
+            repositoryIds.append(repository.getId()).append(',');
+        }
+        String key = VersionRangeCache.getKey(groupId, artifactId, extension, version, repositoryIds.toString());
+        boolean useCache = versionRangeCacheTtl > 0 && (session == null || !session.getRequest().isUpdateSnapshots());
+        File persistentCache = new File(new File(artifactRepository.getBasedir()).getParentFile(), "liberty-version-ranges.properties");
+        VersionRangeCache versionRangeCache = getVersionRangeCache();
+        if (useCache) {
+            if (persistVersionRangeCache) {
+                versionRangeCache.load(persistentCache, log);
+            }
+            String cachedVersion = versionRangeCache.get(key, versionRangeCacheTtl * 1000L);
+            if (cachedVersion != null) {
+                getLog().debug("Using the cached highest version " + cachedVersion + " of " + groupId + ":" + artifactId + ":" + version);
+                return cachedVersion;
+            }
+        }
+
         org.eclipse.aether.artifact.Artifact aetherArtifact = new org.eclipse.aether.artifact.DefaultArtifact(groupId,
                 artifactId, extension, version);
         
@@ -458,6 +611,13 @@ public abstract class AbstractLibertySupport extends MojoSupport {
                     + ":" + artifactId + ":" + extension + ":" + version);
         }
         getLog().debug("Available versions: " + rangeResult.getVersions());
-        return rangeResult.getHighestVersion().toString();
+        String highestVersion = rangeResult.getHighestVersion().toString();
+        if (versionRangeCacheTtl > 0) {
+            versionRangeCache.put(key, highestVersion);
+            if (persistVersionRangeCache) {
+                versionRangeCache.store(persistentCache, key, log);
+            }
+        }
+        return highestVersion;
     }
 }
@@ -20,13 +20,14 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.MessageFormat;
-import java.util.Enumeration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.ResourceBundle;
+import java.util.Set;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 import org.apache.maven.artifact.Artifact;
@@ -44,6 +45,11 @@ import org.codehaus.plexus.util.IOUtil;
 
 import io.openliberty.tools.ant.install.InstallLibertyTask;
 import io.openliberty.tools.common.plugins.util.ServerFeatureUtil;
+import io.openliberty.tools.maven.utils.ArchiveExtractor;
+import io.openliberty.tools.maven.utils.InstallManifest;
+import io.openliberty.tools.maven.utils.InstallMarker;
+import io.openliberty.tools.maven.utils.RuntimeCache;
+import io.openliberty.tools.maven.utils.ServerHomeIndex;
 
 /**
  * Basic Liberty Mojo Support
@@ -78,6 +84,33 @@ public class BasicSupport extends AbstractLibertySupport {
     @Parameter(property = "isInstall", defaultValue = "true")
     protected boolean isInstall = true;
 
+    /**
+     * Extract the runtime archive with several threads instead of the Ant unzip task.
+     * Off by default; ArchiveExtractorBenchmarkTest compares both on a given archive.
+     */
+    @Parameter(property = "parallelExtract", defaultValue = "false")
+    protected boolean parallelExtract;
+
+    /**
+     * Extract the runtime archive once into a cache shared by all projects, and populate the install directory
+     * from it. Only the jars directly in the lib directory are hard linked; all other files are copied.
+     */
+    @Parameter(property = "sharedRuntimeCache", defaultValue = "false")
+    protected boolean sharedRuntimeCache = false;
+
+    /**
+     * Directory of the shared runtime cache. Defaults to liberty-runtimes next to the local Maven repository.
+     */
+    @Parameter(property = "sharedRuntimeCacheDirectory")
+    protected File sharedRuntimeCacheDirectory;
+
+    /**
+     * When the runtime archive changes, only replace the files that differ from the previous installation
+     * instead of deleting and extracting the whole installation.
+     */
+    @Parameter(property = "deltaInstall", defaultValue = "false")
+    protected boolean deltaInstall = false;
+
     /**
      * Server Install Directory
      */
@@ -232,6 +265,19 @@ public class BasicSupport extends AbstractLibertySupport {
                     }
                 }
                 
+                if (isInstallGoal()) {
+                    // resolve the artifacts that the goal installs in one request rather than one at a time
+                    List<ArtifactItem> prefetchItems = new ArrayList<ArtifactItem>();
+                    prefetchItems.add(assemblyArtifact);
+                    prefetchItems.add(licenseArtifact);
+                    for (org.apache.maven.model.Dependency dependency : project.getDependencies()) {
+                        if ("esa".equals(dependency.getType())) {
+                            prefetchItems.add(createArtifactItem(dependency.getGroupId(), dependency.getArtifactId(), dependency.getType(), dependency.getVersion()));
+                        }
+                    }
+                    prefetchArtifacts(prefetchItems);
+                }
+
                 Artifact artifact = getArtifact(assemblyArtifact);                
                 
                 assemblyArchive = artifact.getFile();
@@ -276,6 +322,16 @@ public class BasicSupport extends AbstractLibertySupport {
         }
     }
 
+    /**
+     * Whether the goal installs the runtime, license or features. Only these goals prefetch the license
+     * and feature artifacts in init, so that other goals do not download them.
+     * 
+     * @return true for the goals that install the runtime, license or features
+     */
+    protected boolean isInstallGoal() {
+        return false;
+    }
+
     protected void checkServerHomeExists() throws MojoExecutionException {
         if (!installDirectory.exists()) {
             throw new MojoExecutionException(MessageFormat.format(messages.getString("error.server.home.noexist"), installDirectory));
@@ -292,30 +348,16 @@ public class BasicSupport extends AbstractLibertySupport {
                     MojoExecutionException {
         log.debug(MessageFormat.format(messages.getString("debug.discover.server.home"), ""));
 
+        // the server home of an archive is indexed so that goals do not open the archive again
+        ServerHomeIndex serverHomeIndex = new ServerHomeIndex(new File(assemblyInstallDirectory, ".server-home-index.properties"), log);
         File dir = null;
-        ZipFile zipFile = null;
-
         try {
-            zipFile = new ZipFile(archive);
-
-            Enumeration<?> n = zipFile.entries();
-            while (n.hasMoreElements()) {
-                ZipEntry entry = (ZipEntry) n.nextElement();
-                if (entry.getName().endsWith("lib/ws-launch.jar")) {
-                    File file = new File(assemblyInstallDirectory, entry.getName());
-                    dir = file.getParentFile().getParentFile();
-                    break;
-                }
+            String serverHome = serverHomeIndex.getServerHome(archive);
+            if (serverHome != null) {
+                dir = new File(assemblyInstallDirectory, serverHome);
             }
         } catch (IOException e) {
             throw new MojoExecutionException(MessageFormat.format(messages.getString("error.discover.server.home.fail"), archive), e);
-        } finally {
-            try {
-                zipFile.close();
-            } catch (Exception e) {
-                //Ignore it.
-            }
-
         }
 
         if (dir == null) {
@@ -346,22 +388,30 @@ public class BasicSupport extends AbstractLibertySupport {
     protected void installFromFile() throws Exception {
         // Check if there is a different/newer archive or missing marker to trigger assembly install
         File installMarker = new File(installDirectory, ".installed");
+        InstallMarker marker = new InstallMarker(installMarker, assemblyArchive, log);
+        InstallManifest installManifest = new InstallManifest(new File(assemblyInstallDirectory, ".install-manifest.properties"));
+        boolean refreshRequested = refresh;
 
         if (!refresh) {
             if (!installMarker.exists()) {
                 refresh = true;
-            } else if (assemblyArchive.lastModified() > installMarker.lastModified()) {
+            } else if (!marker.isInstalled()) {
                 log.debug(MessageFormat.format(messages.getString("debug.detect.assembly.archive"), ""));
                 refresh = true;
-            } else if(!assemblyArchive.getCanonicalPath().equals(FileUtils.fileRead(installMarker))) {
-                refresh = true;
             }
         } else {
             log.debug(MessageFormat.format(messages.getString("debug.request.refresh"), ""));
         }
 
+        boolean useSharedRuntimeCache = sharedRuntimeCache && licenseArtifact == null;
+        boolean delta = refresh && deltaInstall && !refreshRequested && !useSharedRuntimeCache
+                && installDirectory.isDirectory() && installManifest.exists();
+
         String userDirectoryPath = userDirectory.getCanonicalPath();
-        if (refresh && installDirectory.exists() && installDirectory.isDirectory()) {
+        if (delta) {
+            // the files are replaced by the delta install below
+            installMarker.delete();
+        } else if (refresh && installDirectory.exists() && installDirectory.isDirectory()) {
             log.info(MessageFormat.format(messages.getString("info.uninstalling.server.home"), installDirectory));
             // Delete everything in the install directory except usr directory
             for(File f : installDirectory.listFiles()) {
@@ -377,31 +427,83 @@ public class BasicSupport extends AbstractLibertySupport {
 
             FileUtils.forceMkdir(installDirectory);
 
-            Expand unzip = (Expand) ant.createTask("unzip");
-
-            unzip.setSrc(assemblyArchive);
-            unzip.setDest(assemblyInstallDirectory.getCanonicalFile());
-            unzip.execute();
-
-            // Make scripts executable, since Java unzip ignores perms
-            Chmod chmod = (Chmod) ant.createTask("chmod");
-            chmod.setPerm("ugo+rx");
-            chmod.setDir(installDirectory);
-            chmod.setIncludes("bin/*");
-            chmod.setExcludes("bin/*.bat");
-            chmod.execute();
+            long start = System.currentTimeMillis();
+            File destination = assemblyInstallDirectory.getCanonicalFile();
+            String scriptDirectory = destination.toPath().relativize(installDirectory.getCanonicalFile().toPath()).toString()
+                    .replace(File.separatorChar, '/');
+            scriptDirectory = scriptDirectory.isEmpty() ? "bin/" : scriptDirectory + "/bin/";
+            ArchiveExtractor extractor = new ArchiveExtractor(Math.min(Runtime.getRuntime().availableProcessors(), 8), log);
+            if (delta) {
+                installDelta(installManifest, destination, scriptDirectory, extractor);
+                log.debug("Updated the installation in " + (System.currentTimeMillis() - start) + " ms");
+            } else if (useSharedRuntimeCache) {
+                // the license installer rewrites runtime files, so licensed runtimes are not linked to the cache
+                RuntimeCache runtimeCache = new RuntimeCache(getSharedRuntimeCacheDirectory(), log);
+                File extracted = runtimeCache.getExtracted(assemblyArchive, marker.getArchiveDigest(), extractor, scriptDirectory);
+                runtimeCache.populate(extracted, destination, RuntimeCache.getLinkedDirectories(installDirectory));
+                log.debug("Installed the assembly from the shared runtime cache in " + (System.currentTimeMillis() - start) + " ms");
+            } else if (parallelExtract) {
+                int files = extractor.extract(assemblyArchive, destination, scriptDirectory);
+                log.debug("Extracted " + files + " files in " + (System.currentTimeMillis() - start) + " ms");
+            } else {
+                Expand unzip = (Expand) ant.createTask("unzip");
+
+                unzip.setSrc(assemblyArchive);
+                unzip.setDest(assemblyInstallDirectory.getCanonicalFile());
+                unzip.execute();
+
+                // Make scripts executable, since Java unzip ignores perms
+                Chmod chmod = (Chmod) ant.createTask("chmod");
+                chmod.setPerm("ugo+rx");
+                chmod.setDir(installDirectory);
+                chmod.setIncludes("bin/*");
+                chmod.setExcludes("bin/*.bat");
+                chmod.execute();
+                log.debug("Extracted the assembly with the Ant unzip task in " + (System.currentTimeMillis() - start) + " ms");
+            }
 
             // delete installMarker first in case it was packaged with the assembly
             installMarker.delete();
-            installMarker.createNewFile();
             
-            // Write the assembly archive path so we can determine whether to install a different assembly in future invocations
-            FileUtils.fileWrite(installMarker, assemblyArchive.getCanonicalPath());
+            // Write the assembly archive details so we can determine whether to install a different assembly in future invocations
+            marker.write();
+            if (deltaInstall) {
+                installManifest.write(destination, getArchiveFileEntries());
+            } else {
+                installManifest.delete();
+            }
         } else {
             log.info(MessageFormat.format(messages.getString("info.reuse.installed.assembly"), ""));
         }
     }
 
+    /**
+     * Updates the installation to the current assembly archive. Files whose CRC, size and last modified time
+     * match the manifest of the previous installation are kept, files that are not in the archive are deleted
+     * except in the user directory, and all other files are extracted.
+     */
+    private void installDelta(InstallManifest installManifest, File destination, String scriptDirectory, ArchiveExtractor extractor)
+            throws IOException {
+        Map<String, String> entries = getArchiveFileEntries();
+        Set<String> changed = installManifest.getChangedEntries(destination, entries);
+        int removed = InstallManifest.deleteFilesNotInArchive(installDirectory, destination, entries.keySet(), userDirectory);
+        extractor.extract(assemblyArchive, destination, scriptDirectory, changed);
+        log.info("Updated the installed assembly: " + changed.size() + " files extracted, " + removed + " files removed and "
+                + (entries.size() - changed.size()) + " files unchanged.");
+    }
+
+    // file entry name -> crc:size of the assembly archive
+    protected Map<String, String> getArchiveFileEntries() throws IOException {
+        return InstallManifest.getArchiveFileEntries(assemblyArchive);
+    }
+
+    private File getSharedRuntimeCacheDirectory() {
+        if (sharedRuntimeCacheDirectory != null) {
+            return sharedRuntimeCacheDirectory;
+        }
+        return new File(new File(artifactRepository.getBasedir()).getParentFile(), "liberty-runtimes");
+    }
+
     protected void installFromArchive() throws Exception {
         InstallLibertyTask installTask = (InstallLibertyTask) ant.createTask("antlib:io/openliberty/tools/ant:install-liberty");
         if (installTask == null) {
@@ -146,7 +146,9 @@ public class DeployMojo extends DeployMojoSupport {
     protected void installDependencies() throws Exception {
         Set<Artifact> artifacts = project.getArtifacts();
         log.debug("Number of compile dependencies for " + project.getArtifactId() + " : " + artifacts.size());
-        
+
+        // applications that are not loose reactor projects are copied together after the loop
+        List<Artifact> apps = new ArrayList<Artifact>();
         for (Artifact artifact : artifacts) {
             // skip if not an application type supported by Liberty
             if (!isSupportedType(artifact.getType())) {
@@ -162,7 +164,7 @@ public class DeployMojo extends DeployMojoSupport {
                         MavenProject dependProj = getReactorMavenProject(artifact);
                         installLooseApplication(dependProj);
                     } else {
-                        installApp(resolveArtifact(artifact));
+                        apps.add(resolveArtifact(artifact));
                     }
                 } else {
                     log.warn(MessageFormat.format(messages.getString("error.application.not.supported"),
@@ -170,6 +172,7 @@ public class DeployMojo extends DeployMojoSupport {
                 }
             }
         }
+        installApps(apps);
     }
     
     protected void installProject() throws Exception {
@@ -18,10 +18,21 @@ package io.openliberty.tools.maven.applications;
 import java.io.File;
 import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -35,6 +46,7 @@ import io.openliberty.tools.ant.ServerTask;
 import io.openliberty.tools.ant.SpringBootUtilTask;
 import io.openliberty.tools.maven.server.PluginConfigSupport;
 import io.openliberty.tools.maven.utils.CommonLogger;
+import io.openliberty.tools.maven.utils.ConfigFileSync;
 import io.openliberty.tools.maven.utils.MavenProjectUtil;
 import io.openliberty.tools.common.plugins.config.ApplicationXmlDocument;
 import io.openliberty.tools.common.plugins.config.LooseApplication;
@@ -61,10 +73,80 @@ public class DeployMojoSupport extends PluginConfigSupport {
     @Parameter(property = "copyLibsDirectory")
     protected File copyLibsDirectory;
 
+    /**
+     * Copy the dependency applications to the server concurrently and wait for all of them to start at once,
+     * instead of copying and verifying one application at a time.
+     */
+    @Parameter(property = "concurrentDeploy", defaultValue = "false")
+    protected boolean concurrentDeploy;
+
     protected ApplicationXmlDocument applicationXml = new ApplicationXmlDocument();
 
     protected void installApp(Artifact artifact) throws Exception {
-    
+        File target = prepareAppInstall(artifact);
+
+        Copy copyFile = (Copy) ant.createTask("copy");
+        copyFile.setFile(artifact.getFile());
+        copyFile.setTofile(target);
+        copyFile.execute();
+
+        verifyAppStarted(target.getName());
+    }
+
+    /**
+     * Installs several applications. With concurrentDeploy, the application configuration is validated
+     * and the previous application files are deleted for one application at a time, then the applications
+     * are copied concurrently, each to a temporary file that is moved into the monitored directory, and the
+     * start of all applications is verified with a single wait on the server log.
+     */
+    protected void installApps(List<Artifact> artifacts) throws Exception {
+        if (!concurrentDeploy || artifacts.size() <= 1) {
+            for (Artifact artifact : artifacts) {
+                installApp(artifact);
+            }
+            return;
+        }
+
+        Map<File, File> copies = new LinkedHashMap<File, File>();
+        List<String> fileNames = new ArrayList<String>();
+        for (Artifact artifact : artifacts) {
+            File target = prepareAppInstall(artifact);
+            copies.put(artifact.getFile(), target);
+            fileNames.add(target.getName());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(copies.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            Map<File, Future<Void>> results = new LinkedHashMap<File, Future<Void>>();
+            for (final Map.Entry<File, File> copy : copies.entrySet()) {
+                results.put(copy.getKey(), executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        ConfigFileSync.copy(copy.getKey(), copy.getValue());
+                        return null;
+                    }
+                }));
+            }
+            for (Map.Entry<File, Future<Void>> result : results.entrySet()) {
+                try {
+                    result.getValue().get();
+                } catch (ExecutionException e) {
+                    throw new MojoExecutionException("Unable to copy the application " + result.getKey() + " to the server.", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verifyAppsStarted(fileNames);
+    }
+
+    /**
+     * Validates the application configuration and deletes the previous application files.
+     *
+     * @return the file to copy the application to
+     */
+    private File prepareAppInstall(Artifact artifact) throws Exception {
         if (artifact.getFile() == null || artifact.getFile().isDirectory()) {
             String warName = getAppFileName(project);
             File f = new File(project.getBuild().getDirectory() + "/" + warName);
@@ -78,14 +160,9 @@ public class DeployMojoSupport extends PluginConfigSupport {
         File destDir = new File(serverDirectory, getAppsDirectory());
         log.info(MessageFormat.format(messages.getString("info.install.app"), artifact.getFile().getCanonicalPath()));
 
-        Copy copyFile = (Copy) ant.createTask("copy");
-        copyFile.setFile(artifact.getFile());
         String fileName = artifact.getFile().getName();
         if (stripVersion) {
             fileName = stripVersionFromName(fileName, artifact.getBaseVersion());
-            copyFile.setTofile(new File(destDir, fileName));
-        } else {
-            copyFile.setTodir(destDir);
         }
 
         // validate application configuration if appsDirectory="dropins" or inject
@@ -98,9 +175,8 @@ public class DeployMojoSupport extends PluginConfigSupport {
         // application can be expanded if server.xml configure with <applicationManager
         // autoExpand="true"/>
         deleteApplication(new File(serverDirectory, "apps/expanded"), artifact.getFile());
-        copyFile.execute();
 
-        verifyAppStarted(fileName);
+        return new File(destDir, fileName);
     }
 
     // install war project artifact using loose application configuration file
@@ -224,31 +300,82 @@ public class DeployMojoSupport extends PluginConfigSupport {
 
     protected void verifyAppStarted(String appFile) throws MojoExecutionException {
         if (shouldValidateAppStart()) {
-            String appName = appFile.substring(0, appFile.lastIndexOf('.'));
-            if (getAppsDirectory().equals("apps")) {
-                ServerConfigDocument scd = null;
+            String appName = getAppName(appFile);
 
-                File serverXML = new File(serverDirectory, "server.xml");
+            ServerTask serverTask = initializeJava();
+            if (serverTask.waitForStringInLog(START_APP_MESSAGE_REGEXP + appName, timeout * 1000, new File(new File(outputDirectory, serverName), "logs/messages.log")) == null) {
+                throw new MojoExecutionException(MessageFormat.format(messages.getString("error.deploy.fail"), appName));
+            }
+        }
+    }
 
-                try {
-                    scd = ServerConfigDocument.getInstance(CommonLogger.getInstance(), serverXML, configDirectory,
-                            bootstrapPropertiesFile, combinedBootstrapProperties, serverEnvFile, false);
-
-                    //appName will be set to a name derived from appFile if no name can be found.
-                    appName = scd.findNameForLocation(appFile);
-                } catch (Exception e) {
-                    log.warn(e.getLocalizedMessage());
-                    log.debug(e);
-                } 
+    /**
+     * Waits until all applications started, or the timeout elapsed since the wait began.
+     */
+    protected void verifyAppsStarted(List<String> appFiles) throws MojoExecutionException {
+        if (shouldValidateAppStart()) {
+            Set<String> remaining = new LinkedHashSet<String>();
+            for (String appFile : appFiles) {
+                remaining.add(getAppName(appFile));
             }
 
             ServerTask serverTask = initializeJava();
-            if (serverTask.waitForStringInLog(START_APP_MESSAGE_REGEXP + appName, timeout * 1000, new File(new File(outputDirectory, serverName), "logs/messages.log")) == null) {
-                throw new MojoExecutionException(MessageFormat.format(messages.getString("error.deploy.fail"), appName));
+            File messagesLog = new File(new File(outputDirectory, serverName), "logs/messages.log");
+            long deadline = System.currentTimeMillis() + timeout * 1000;
+            while (!remaining.isEmpty()) {
+                // wait for the start message of any remaining application, then check which one started
+                long wait = deadline - System.currentTimeMillis();
+                String regexp = getStartedAppsRegexp(remaining);
+                String line = wait > 0 ? serverTask.waitForStringInLog(regexp, wait, messagesLog) : null;
+                String started = line != null ? getStartedApp(Pattern.compile(regexp), line) : null;
+                if (started == null || !remaining.remove(started)) {
+                    throw new MojoExecutionException(MessageFormat.format(messages.getString("error.deploy.fail"), StringUtils.join(remaining, ", ")));
+                }
             }
         }
     }
 
+    // the start message of any of the applications, with the whole application name so that
+    // an application name that is a prefix of another name does not match its start message
+    static String getStartedAppsRegexp(Set<String> appNames) {
+        StringBuilder names = new StringBuilder();
+        for (String appName : appNames) {
+            names.append(names.length() == 0 ? "" : "|").append(Pattern.quote(appName));
+        }
+        return START_APP_MESSAGE_REGEXP + "(?<![\\w.-])(" + names + ")(?![\\w.-])";
+    }
+
+    /**
+     * @param startedApps the pattern of getStartedAppsRegexp
+     * @param line a line of the server log
+     * @return the name of the application whose start message is the line, or null
+     */
+    static String getStartedApp(Pattern startedApps, String line) {
+        Matcher matcher = startedApps.matcher(line);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private String getAppName(String appFile) {
+        String appName = appFile.substring(0, appFile.lastIndexOf('.'));
+        if (getAppsDirectory().equals("apps")) {
+            ServerConfigDocument scd = null;
+
+            File serverXML = new File(serverDirectory, "server.xml");
+
+            try {
+                scd = ServerConfigDocument.getInstance(CommonLogger.getInstance(), serverXML, configDirectory,
+                        bootstrapPropertiesFile, combinedBootstrapProperties, serverEnvFile, false);
+
+                //appName will be set to a name derived from appFile if no name can be found.
+                appName = scd.findNameForLocation(appFile);
+            } catch (Exception e) {
+                log.warn(e.getLocalizedMessage());
+                log.debug(e);
+            } 
+        }
+        return appName;
+    }
+
     private void addEmbeddedLib(Element parent, MavenProject proj, LooseApplication looseApp, String dir)
             throws Exception {
         Set<Artifact> artifacts = proj.getArtifacts();
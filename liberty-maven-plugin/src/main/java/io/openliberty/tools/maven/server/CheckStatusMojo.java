@@ -15,11 +15,16 @@
  */
 package io.openliberty.tools.maven.server;
 
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.text.MessageFormat;
 
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
 
 import io.openliberty.tools.ant.ServerTask;
+import io.openliberty.tools.maven.utils.ServerStatusProbe;
 
 /**
  * Check a liberty server status
@@ -27,6 +32,25 @@ import io.openliberty.tools.ant.ServerTask;
 @Mojo(name = "status")
 public class CheckStatusMojo extends StartDebugMojoSupport {
 
+    /**
+     * Check the status from the server lock and process files instead of running the server status
+     * command. The command is still run if the files do not show whether the server is running.
+     */
+    @Parameter(property = "statusProbe", defaultValue = "true")
+    private boolean statusProbe;
+
+    /**
+     * A server URL to request if the server files do not show whether the server is running.
+     */
+    @Parameter(property = "statusUrl")
+    private String statusUrl;
+
+    /**
+     * Connect and read timeout in milliseconds of the statusUrl request.
+     */
+    @Parameter(property = "statusUrlTimeout", defaultValue = "5000")
+    private int statusUrlTimeout;
+
     protected void doExecute() throws Exception {
         if (skip) {
             getLog().info("\nSkipping status goal.\n");
@@ -41,8 +65,31 @@ public class CheckStatusMojo extends StartDebugMojoSupport {
 
         log.info(MessageFormat.format(messages.getString("info.server.status.check"), ""));
 
+        if (statusProbe && serverDirectory.exists()) {
+            ServerStatusProbe.Status status = new ServerStatusProbe(outputDirectory, serverName, log).getStatus(getStatusUrl(), statusUrlTimeout);
+            if (status == ServerStatusProbe.Status.RUNNING) {
+                log.info(MessageFormat.format(messages.getString("info.server.status.running"), serverName));
+                return;
+            } else if (status == ServerStatusProbe.Status.STOPPED) {
+                log.info(MessageFormat.format(messages.getString("info.server.status.stopped"), serverName));
+                return;
+            }
+            log.debug("The server files do not show whether the server " + serverName + " is running, running the server status command.");
+        }
+
         ServerTask serverTask = initializeJava();
         serverTask.setOperation("status");
         serverTask.execute();
     }
+
+    private URL getStatusUrl() throws MojoExecutionException {
+        if (statusUrl == null || statusUrl.isEmpty()) {
+            return null;
+        }
+        try {
+            return new URL(statusUrl);
+        } catch (MalformedURLException e) {
+            throw new MojoExecutionException("The statusUrl value " + statusUrl + " is not a valid URL.", e);
+        }
+    }
 }
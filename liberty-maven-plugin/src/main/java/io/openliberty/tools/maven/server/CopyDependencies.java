@@ -38,6 +38,14 @@ public class CopyDependencies {
     @Parameter(defaultValue="false")
     private Boolean stripVersion;
 
+    /**
+     * Boolean to indicate whether to hard link the files from the local repository instead of
+     * copying them, where the file system supports it. A linked file shares its content with the
+     * file in the local repository, so changing either changes both. The default is false.
+     */
+    @Parameter(defaultValue="false")
+    private boolean link = false;
+
     /**
      * A list of Dependency to copy.
      */
@@ -71,6 +79,14 @@ public class CopyDependencies {
         this.stripVersion = new Boolean(strip);
     }
     
+    public boolean isLink() {
+        return link;
+    }
+
+    public void setLink(boolean link) {
+        this.link = link;
+    }
+
     /**
      * Get all the current Dependency to copy.
      *
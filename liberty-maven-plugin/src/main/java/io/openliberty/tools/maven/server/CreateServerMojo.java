@@ -51,6 +51,11 @@ public class CreateServerMojo extends PluginConfigSupport {
     @Parameter(property = "noPassword", defaultValue = "false")
     private boolean noPassword;
     
+    @Override
+    protected boolean isInstallGoal() {
+        return true;
+    }
+
     @Override
     protected void doExecute() throws Exception {
         if (skip) {
@@ -17,27 +17,36 @@ package io.openliberty.tools.maven.server;
 
 import static org.twdata.maven.mojoexecutor.MojoExecutor.configuration;
 import static org.twdata.maven.mojoexecutor.MojoExecutor.element;
-import static org.twdata.maven.mojoexecutor.MojoExecutor.executeMojo;
-import static org.twdata.maven.mojoexecutor.MojoExecutor.executionEnvironment;
-import static org.twdata.maven.mojoexecutor.MojoExecutor.goal;
 import static org.twdata.maven.mojoexecutor.MojoExecutor.name;
 
 import java.io.File;
 import java.io.IOException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Plugin;
@@ -48,15 +57,14 @@ import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.ProjectBuilder;
 import org.apache.maven.project.ProjectBuildingException;
+import org.apache.maven.project.ProjectBuildingRequest;
 import org.apache.maven.project.ProjectBuildingResult;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
-import org.eclipse.aether.collection.CollectRequest;
-import org.eclipse.aether.resolution.DependencyRequest;
 import org.eclipse.aether.resolution.DependencyResolutionException;
-import org.eclipse.aether.resolution.DependencyResult;
 import org.twdata.maven.mojoexecutor.MojoExecutor.Element;
 
 import io.openliberty.tools.ant.ServerTask;
@@ -66,7 +74,18 @@ import io.openliberty.tools.common.plugins.util.PluginExecutionException;
 import io.openliberty.tools.common.plugins.util.PluginScenarioException;
 import io.openliberty.tools.common.plugins.util.ServerFeatureUtil;
 import io.openliberty.tools.common.plugins.util.ServerStatusUtil;
+import io.openliberty.tools.maven.utils.ChangeBatcher;
+import io.openliberty.tools.maven.utils.DependencyDiff;
+import io.openliberty.tools.maven.utils.DependencyResolutionCache;
+import io.openliberty.tools.maven.utils.DevModeMetrics;
 import io.openliberty.tools.maven.utils.ExecuteMojoUtil;
+import io.openliberty.tools.maven.utils.Fingerprint;
+import io.openliberty.tools.maven.utils.FingerprintStore;
+import io.openliberty.tools.maven.utils.IncrementalJavaCompiler;
+import io.openliberty.tools.maven.utils.MavenProjectUtil;
+import io.openliberty.tools.maven.utils.ServerStatusProbe;
+import io.openliberty.tools.maven.utils.TestImpactAnalyzer;
+import io.openliberty.tools.maven.utils.TestImpactAnalyzer.TestSelection;
 import io.openliberty.tools.maven.applications.DeployMojoSupport;
 import io.openliberty.tools.maven.BasicSupport;
 
@@ -78,6 +97,8 @@ import io.openliberty.tools.maven.BasicSupport;
 public class DevMojo extends StartDebugMojoSupport {
 
     private static final String TEST_RUN_ID_PROPERTY_NAME = "liberty.dev.test.run.id";
+
+    private static final TestSelection ALL_TESTS = new TestSelection(null, null);
     private static final String LIBERTY_HOSTNAME = "liberty.hostname";
     private static final String LIBERTY_HTTP_PORT = "liberty.http.port";
     private static final String LIBERTY_HTTPS_PORT = "liberty.https.port";
@@ -115,7 +136,46 @@ public class DevMojo extends StartDebugMojoSupport {
     @Parameter(property = "compileWait", defaultValue = "0.5")
     private double compileWait;
 
-    private int runId = 0;
+    /**
+     * Compile source changes in process, recompiling only the changed sources and the sources that depend on them.
+     */
+    @Parameter(property = "incrementalCompile", defaultValue = "false")
+    private boolean incrementalCompile;
+
+    /**
+     * Run unit tests and integration tests concurrently when the application has not been updated since the last test run.
+     */
+    @Parameter(property = "parallelTests", defaultValue = "false")
+    private boolean parallelTests;
+
+    /**
+     * Run only the tests that reference classes changed since the last test run, directly or transitively.
+     */
+    @Parameter(property = "impactedTestsOnly", defaultValue = "false")
+    private boolean impactedTestsOnly;
+
+    /**
+     * Time in seconds that files must be unchanged before a batch of changes is processed. 0 disables batching.
+     */
+    @Parameter(property = "changeBatchWindow", defaultValue = "0")
+    private double changeBatchWindow;
+
+    /**
+     * Maximum time in seconds to wait for a batch of changes to settle before processing it.
+     */
+    @Parameter(property = "changeBatchMaxWait", defaultValue = "10")
+    private double changeBatchMaxWait;
+
+    /**
+     * Print a breakdown of the time spent in each phase of a dev mode cycle, such as compilation, plugin goals and test runs.
+     * The times are always written to target/liberty-dev-metrics.
+     */
+    @Parameter(property = "reportCycleTimes", defaultValue = "false")
+    private boolean reportCycleTimes;
+
+    private final AtomicInteger runId = new AtomicInteger();
+
+    private DevModeMetrics metrics;
 
     private ServerTask serverTask = null;
     
@@ -186,6 +246,28 @@ public class DevMojo extends StartDebugMojoSupport {
     @Parameter(readonly = true, required = true, defaultValue = "${project.build.testOutputDirectory}")
     private File testOutputDirectory;
 
+    // maven-compiler-plugin options that are not passed to the incremental compiler
+    private static final List<String> UNSUPPORTED_INCREMENTAL_COMPILER_OPTIONS = Arrays.asList("annotationProcessorPaths",
+            "annotationProcessors", "compilerArgs", "compilerArgument", "compilerArguments", "compilerId", "executable",
+            "fork", "generatedSourcesDirectory", "generatedTestSourcesDirectory", "includes", "excludes", "jdkToolchain",
+            "multiReleaseOutput", "parameters", "proc", "testCompilerArgument", "testCompilerArguments", "testExcludes",
+            "testIncludes", "testRelease", "testSource", "testTarget");
+
+    // in-process compilers that only recompile changed sources and their dependents
+    private IncrementalJavaCompiler mainCompiler;
+    private IncrementalJavaCompiler testCompiler;
+    private List<String> compilerArgs;
+
+    private DependencyResolutionCache dependencyCache;
+
+    private ChangeBatcher changeBatcher;
+    private TestImpactAnalyzer testImpactAnalyzer;
+
+    // times of the last application update and of the start of the last test run
+    private volatile long lastAppUpdate = 0;
+    private volatile long lastTestRun = 0;
+    private List<File> resourceDirs;
+
     /**
      * Additional options for the docker run command when dev mode starts a container.
      */
@@ -394,29 +476,6 @@ public class DevMojo extends StartDebugMojoSupport {
             return result;
         }
 
-        private List<Dependency> getEsaDependency(List<Dependency> dependencies) {
-            List<Dependency> deps = new ArrayList<Dependency>();
-            if (dependencies != null) {
-                for (Dependency d : dependencies) {
-                    if ("esa".equals(d.getType())) {
-                        deps.add(d);
-                    }
-                }
-            }
-            return deps;
-        }
-        private List<Dependency> getCompileDependency(List<Dependency> dependencies) {
-            List<Dependency> deps = new ArrayList<Dependency>();
-            if (dependencies != null) {
-                for (Dependency d : dependencies) {
-                    if ("compile".equals(d.getScope())) {
-                        deps.add(d);
-                    }
-                }
-            }
-            return deps;
-        }
-
         private static final String LIBERTY_BOOTSTRAP_PROP = "liberty.bootstrap.";
         private static final String LIBERTY_JVM_PROP = "liberty.jvm.";
         private static final String LIBERTY_ENV_PROP = "liberty.env.";
@@ -486,7 +545,24 @@ public class DevMojo extends StartDebugMojoSupport {
         }
 
         @Override
-        public boolean recompileBuildFile(File buildFile, List<String> artifactPaths, ThreadPoolExecutor executor)
+        public boolean recompileBuildFile(final File buildFile, final List<String> artifactPaths, final ThreadPoolExecutor executor)
+                throws PluginExecutionException {
+            metrics.beginCycle("build file change");
+            try {
+                return changeBatcher.process(ChangeBatcher.Kind.POM, Collections.singletonList(buildFile),
+                        new ChangeBatcher.Action<Boolean, PluginExecutionException>() {
+                            @Override
+                            public Boolean run() throws PluginExecutionException {
+                                lastAppUpdate = System.currentTimeMillis();
+                                return processBuildFileChange(buildFile, artifactPaths, executor);
+                            }
+                        });
+            } finally {
+                metrics.endCycle();
+            }
+        }
+
+        private boolean processBuildFileChange(File buildFile, List<String> artifactPaths, ThreadPoolExecutor executor)
                 throws PluginExecutionException {
             // monitoring project pom.xml file changes in dev mode:
             // - liberty.* properites in project properties section
@@ -501,19 +577,30 @@ public class DevMojo extends StartDebugMojoSupport {
 
             ProjectBuildingResult build;
             try {
-                build = mavenProjectBuilder.build(buildFile,
-                        session.getProjectBuildingRequest().setResolveDependencies(true));
+                // only build the model here, the dependencies are resolved through the cache
+                ProjectBuildingRequest buildingRequest = new DefaultProjectBuildingRequest(
+                        session.getProjectBuildingRequest());
+                buildingRequest.setResolveDependencies(false);
+                build = mavenProjectBuilder.build(buildFile, buildingRequest);
             } catch (ProjectBuildingException e) {
                 log.error("Could not parse pom.xml. " + e.getMessage());
                 log.debug(e);
                 return false;
             }
+            try {
+                dependencyCache.resolve(build.getProject(), project);
+            } catch (DependencyResolutionException e) {
+                log.error("Could not resolve the dependencies in pom.xml. " + e.getMessage());
+                log.debug(e);
+                return false;
+            }
 
             // set the updated project in current session;
             Plugin backupLibertyPlugin = getLibertyPlugin();
             MavenProject backupProject = project;
             project = build.getProject();
             session.setCurrentProject(project);
+            getMojoExecutionCache().invalidate();
             Plugin libertyPlugin = getLibertyPlugin();
 
             try {
@@ -549,49 +636,19 @@ public class DevMojo extends StartDebugMojoSupport {
                     redeployApp = true;
                 }
 
-                List<Dependency> deps = project.getDependencies();
-                List<Dependency> oldDeps = backupProject.getDependencies();
-                if (!deps.equals(oldDeps)) {
+                DependencyDiff dependencyDiff = new DependencyDiff(backupProject.getDependencies(), project.getDependencies());
+                if (!dependencyDiff.isEmpty()) {
                     runBoostPackage = true;
                     // detect esa dependency changes
-                    if (!getEsaDependency(deps).equals(getEsaDependency(oldDeps))) {
+                    if (dependencyDiff.hasChangesOfType("esa")) {
                         installFeature = true;
                     }
                     // detect compile dependency changes
-                    if (!getCompileDependency(deps).equals(getCompileDependency(oldDeps))) {
+                    if (dependencyDiff.hasChangesInScope("compile")) {
                         redeployApp = true;
                     }
                     // update classpath for dependencies changes
-                    List<Artifact> updatedArtifacts = getNewDependencies(deps, oldDeps);
-                    if (!updatedArtifacts.isEmpty()) {
-                        for (Artifact artifact : updatedArtifacts) {
-                            org.eclipse.aether.artifact.Artifact aetherArtifact = new org.eclipse.aether.artifact.DefaultArtifact(
-                                    artifact.getGroupId(), artifact.getArtifactId(), artifact.getType(),
-                                    artifact.getVersion());
-                            org.eclipse.aether.graph.Dependency dependency = new org.eclipse.aether.graph.Dependency(
-                                    aetherArtifact, null, true);
-
-                            CollectRequest collectRequest = new CollectRequest();
-                            collectRequest.setRoot(dependency);
-                            collectRequest.setRepositories(repositories);
-
-                            List<String> addToClassPath = new ArrayList<String>();
-                            DependencyRequest depRequest = new DependencyRequest(collectRequest, null);
-
-                            DependencyResult dependencyResult = repositorySystem.resolveDependencies(repoSession,
-                                    depRequest);
-                            org.eclipse.aether.graph.DependencyNode root = dependencyResult.getRoot();
-                            List<File> artifactsList = new ArrayList<File>();
-                            addArtifacts(root, artifactsList);
-                            for (File a : artifactsList) {
-                                log.debug("Artifact: " + a);
-                                if (a.getCanonicalPath().endsWith(".jar")) {
-                                    addToClassPath.add(a.getCanonicalPath());
-                                }
-                            }
-                            artifactPaths.addAll(addToClassPath);
-                        }
-                    }
+                    artifactPaths.addAll(getClasspathAdditions(dependencyDiff.getAddedOrChanged()));
                 }
 
                 if (restartServer) {
@@ -621,19 +678,36 @@ public class DevMojo extends StartDebugMojoSupport {
                     log.debug("changes in the pom.xml are not monitored by dev mode");
                     return true;
                 }
-            } catch (IOException | DependencyResolutionException | MojoExecutionException
-                    | ProjectBuildingException e) {
+            } catch (IOException | MojoExecutionException | ProjectBuildingException e) {
                 log.error("An unexpected error occurred while processing changes in pom.xml. " + e.getMessage());
                 log.debug(e);
                 project = backupProject;
                 session.setCurrentProject(backupProject);
+                getMojoExecutionCache().invalidate();
                 return false;
             }
             return true;
         }
 
         @Override
-        public void checkConfigFile(File configFile, File serverDir) {
+        public void checkConfigFile(final File configFile, final File serverDir) {
+            List<File> inputs = Arrays.asList(configFile, new File(serverDir, "server.xml"), new File(serverDir, "configDropins"));
+            metrics.beginCycle("server configuration change");
+            try {
+                changeBatcher.process(ChangeBatcher.Kind.SERVER_CONFIG, inputs, new ChangeBatcher.Action<Void, RuntimeException>() {
+                    @Override
+                    public Void run() {
+                        lastAppUpdate = System.currentTimeMillis();
+                        installConfigFeatures(serverDir);
+                        return null;
+                    }
+                });
+            } finally {
+                metrics.endCycle();
+            }
+        }
+
+        private void installConfigFeatures(File serverDir) {
             try {
                 ServerFeature servUtil = getServerFeatureUtil();
                 Set<String> features = servUtil.getServerFeatures(serverDir, libertyDirPropertyFiles);
@@ -657,27 +731,136 @@ public class DevMojo extends StartDebugMojoSupport {
         }
 
         @Override
-        public boolean compile(File dir) {
+        public boolean compile(final File dir) {
+            ChangeBatcher.Kind kind = dir.equals(testSourceDirectory) ? ChangeBatcher.Kind.TEST_JAVA : ChangeBatcher.Kind.JAVA;
+            metrics.beginCycle(kind == ChangeBatcher.Kind.JAVA ? "source change" : "test source change");
+            try {
+                return changeBatcher.process(kind, Collections.singletonList(dir), new ChangeBatcher.Action<Boolean, RuntimeException>() {
+                    @Override
+                    public Boolean run() {
+                        if (dir.equals(sourceDirectory)) {
+                            lastAppUpdate = System.currentTimeMillis();
+                        }
+                        return compileDirectory(dir);
+                    }
+                });
+            } finally {
+                metrics.endCycle();
+            }
+        }
+
+        private boolean compileDirectory(File dir) {
             try {
                 if (dir.equals(sourceDirectory)) {
+                    if (mainCompiler != null && mainCompiler.isAvailable()) {
+                        long start = System.currentTimeMillis();
+                        boolean compiled = mainCompiler.compile(project.getCompileClasspathElements(), compilerArgs);
+                        metrics.record("incremental compile", System.currentTimeMillis() - start);
+                        runMojo("org.apache.maven.plugins", "maven-resources-plugin", "resources");
+                        if (compiled && testCompiler.isAvailable()) {
+                            // the test classes that use the changed main classes must be compiled before the tests run
+                            testCompiler.classesChanged(mainCompiler.getChangedClasses(), mainCompiler.hasChangedConstants());
+                            if (testCompiler.hasChangedClasspathClasses() && testSourceDirectory.exists()) {
+                                start = System.currentTimeMillis();
+                                testCompiler.compile(project.getTestClasspathElements(), compilerArgs);
+                                metrics.record("incremental test compile", System.currentTimeMillis() - start);
+                            }
+                        }
+                        return compiled;
+                    }
                     runMojo("org.apache.maven.plugins", "maven-compiler-plugin", "compile");
                     runMojo("org.apache.maven.plugins", "maven-resources-plugin", "resources");
                 }
                 if (dir.equals(testSourceDirectory)) {
+                    if (testCompiler != null && testCompiler.isAvailable()) {
+                        long start = System.currentTimeMillis();
+                        boolean compiled = testCompiler.compile(project.getTestClasspathElements(), compilerArgs);
+                        metrics.record("incremental test compile", System.currentTimeMillis() - start);
+                        runMojo("org.apache.maven.plugins", "maven-resources-plugin", "testResources");
+                        return compiled;
+                    }
                     runMojo("org.apache.maven.plugins", "maven-compiler-plugin", "testCompile");
                     runMojo("org.apache.maven.plugins", "maven-resources-plugin", "testResources");
                 }
                 return true;
-            } catch (MojoExecutionException e) {
+            } catch (MojoExecutionException | DependencyResolutionRequiredException | IOException e) {
                 log.error("Unable to compile", e);
                 return false;
             }
         }
 
+        // integration tests started concurrently with the unit tests of the current test run
+        private Future<Void> integrationTests;
+        private ExecutorService integrationTestExecutor;
+
+        // tests selected for the current test run
+        private TestSelection testSelection;
+
+        // set when a test run is requested from the keyboard, which always runs all tests
+        private volatile boolean allTestsRequested;
+
+        @Override
+        public void runTestThread(boolean waitForApplicationUpdate, ThreadPoolExecutor executor, int messageOccurrences,
+                boolean forceSkipUTs, boolean manualInvocation) {
+            if (manualInvocation) {
+                allTestsRequested = true;
+            }
+            super.runTestThread(waitForApplicationUpdate, executor, messageOccurrences, forceSkipUTs, manualInvocation);
+        }
+
+        private TestSelection selectTests() {
+            if (testImpactAnalyzer == null) {
+                return ALL_TESTS;
+            }
+            if (allTestsRequested) {
+                allTestsRequested = false;
+                return testImpactAnalyzer.selectAll();
+            }
+            return testImpactAnalyzer.select();
+        }
+
+        private boolean isEmpty(List<String> tests) {
+            return tests != null && tests.isEmpty();
+        }
+
         @Override
         public void runUnitTests() throws PluginExecutionException, PluginScenarioException {
+            metrics.beginCycle("unit tests");
             try {
-                runTestMojo("org.apache.maven.plugins", "maven-surefire-plugin", "test");
+                runSelectedUnitTests();
+            } finally {
+                metrics.endCycle();
+            }
+        }
+
+        private void runSelectedUnitTests() throws PluginExecutionException, PluginScenarioException {
+            awaitPreviousIntegrationTests();
+            boolean appUpdated = lastAppUpdate >= lastTestRun;
+            lastTestRun = System.currentTimeMillis();
+            final TestSelection selection = selectTests();
+            testSelection = selection;
+            if (parallelTests && !skipITs && !appUpdated && !isEmpty(selection.getIntegrationTests())) {
+                // the server already runs the current application, so the integration tests do not need to wait
+                log.debug("Running integration tests concurrently with unit tests");
+                integrationTests = getIntegrationTestExecutor().submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws MojoExecutionException {
+                        metrics.beginCycle("concurrent integration tests");
+                        try {
+                            runTestMojo("org.apache.maven.plugins", "maven-failsafe-plugin", "integration-test", selection.getIntegrationTests());
+                        } finally {
+                            metrics.endCycle();
+                        }
+                        return null;
+                    }
+                });
+            }
+            if (isEmpty(selection.getUnitTests())) {
+                log.info("No unit tests are affected by the changes.");
+                return;
+            }
+            try {
+                runTestMojo("org.apache.maven.plugins", "maven-surefire-plugin", "test", selection.getUnitTests());
                 runTestMojo("org.apache.maven.plugins", "maven-surefire-report-plugin", "report-only");
             } catch (MojoExecutionException e) {
                 Throwable cause = e.getCause();
@@ -691,8 +874,30 @@ public class DevMojo extends StartDebugMojoSupport {
 
         @Override
         public void runIntegrationTests() throws PluginExecutionException, PluginScenarioException {
+            metrics.beginCycle("integration tests");
+            try {
+                runSelectedIntegrationTests();
+            } finally {
+                metrics.endCycle();
+            }
+        }
+
+        private void runSelectedIntegrationTests() throws PluginExecutionException, PluginScenarioException {
+            Future<Void> startedIntegrationTests = integrationTests;
+            integrationTests = null;
+            // the selection is made by runUnitTests unless unit tests are skipped
+            TestSelection selection = testSelection != null ? testSelection : selectTests();
+            testSelection = null;
+            if (startedIntegrationTests == null && isEmpty(selection.getIntegrationTests())) {
+                log.info("No integration tests are affected by the changes.");
+                return;
+            }
             try {
-                runTestMojo("org.apache.maven.plugins", "maven-failsafe-plugin", "integration-test");
+                if (startedIntegrationTests != null) {
+                    awaitIntegrationTests(startedIntegrationTests);
+                } else {
+                    runTestMojo("org.apache.maven.plugins", "maven-failsafe-plugin", "integration-test", selection.getIntegrationTests());
+                }
                 runTestMojo("org.apache.maven.plugins", "maven-surefire-report-plugin", "failsafe-report-only");
                 runTestMojo("org.apache.maven.plugins", "maven-failsafe-plugin", "verify");
             } catch (MojoExecutionException e) {
@@ -705,12 +910,68 @@ public class DevMojo extends StartDebugMojoSupport {
             }
         }
 
+        private void awaitIntegrationTests(Future<Void> future) throws MojoExecutionException, PluginExecutionException {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof MojoExecutionException) {
+                    throw (MojoExecutionException) e.getCause();
+                }
+                throw new PluginExecutionException("Failed to run integration tests", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PluginExecutionException("Interrupted while running integration tests", e);
+            }
+        }
+
+        /**
+         * Waits for integration tests that were started with the unit tests of the previous test run
+         * but were not collected, e.g. because the unit tests failed.
+         */
+        private void awaitPreviousIntegrationTests() {
+            Future<Void> previousIntegrationTests = integrationTests;
+            integrationTests = null;
+            if (previousIntegrationTests != null) {
+                try {
+                    awaitIntegrationTests(previousIntegrationTests);
+                } catch (MojoExecutionException | PluginExecutionException e) {
+                    log.debug("Integration tests from the previous test run failed: " + e.getMessage());
+                }
+            }
+        }
+
+        private synchronized ExecutorService getIntegrationTestExecutor() {
+            if (integrationTestExecutor == null) {
+                integrationTestExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "liberty-dev-integration-tests");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+            return integrationTestExecutor;
+        }
+
         @Override
         public void redeployApp() throws PluginExecutionException {
+            metrics.beginCycle("redeploy");
             try {
-                runLibertyMojoDeploy();
-            } catch (MojoExecutionException e) {
-                throw new PluginExecutionException("liberty:deploy goal failed:" + e.getMessage());
+                changeBatcher.settle(ChangeBatcher.Kind.RESOURCE, getRedeployInputs(), new ChangeBatcher.Action<Void, PluginExecutionException>() {
+                    @Override
+                    public Void run() throws PluginExecutionException {
+                        lastAppUpdate = System.currentTimeMillis();
+                        try {
+                            runLibertyMojoDeploy();
+                        } catch (MojoExecutionException e) {
+                            throw new PluginExecutionException("liberty:deploy goal failed:" + e.getMessage());
+                        }
+                        return null;
+                    }
+                });
+            } finally {
+                metrics.endCycle();
             }
         }
 
@@ -743,9 +1004,16 @@ public class DevMojo extends StartDebugMojoSupport {
 
         processContainerParams();
 
+        metrics = new DevModeMetrics(new File(project.getBuild().getDirectory(), "liberty-dev-metrics"), reportCycleTimes, log);
+        getMojoExecutionCache().setMetrics(metrics);
+        metrics.beginCycle("startup");
+
         if (!container) {
             if (serverDirectory.exists()) {
-                if (ServerStatusUtil.isServerRunning(installDirectory, super.outputDirectory, serverName)) {
+                // check the server files first, and only run the server status command if they do not show the status
+                ServerStatusProbe.Status status = new ServerStatusProbe(super.outputDirectory, serverName, log).getStatus();
+                if (status == ServerStatusProbe.Status.RUNNING || (status == ServerStatusProbe.Status.UNKNOWN
+                        && ServerStatusUtil.isServerRunning(installDirectory, super.outputDirectory, serverName))) {
                     throw new MojoExecutionException("The server " + serverName
                             + " is already running. Terminate all instances of the server before starting dev mode."
                             + " You can stop a server instance with the command 'mvn liberty:stop'.");
@@ -781,15 +1049,49 @@ public class DevMojo extends StartDebugMojoSupport {
             log.info("Running boost:package");
             runBoostMojo("package");
         } else {
-            runLibertyMojoCreate();
+            // skip the goals whose inputs are unchanged since the last dev mode session
+            FingerprintStore startupFingerprints = new FingerprintStore(
+                    new File(project.getBuild().getDirectory(), "liberty-dev/startup-fingerprints.properties"), log);
+            String createFingerprint = getCreateFingerprint();
+            boolean create = !new File(serverDirectory, "server.xml").exists()
+                    || !new File(installDirectory, "lib/ws-launch.jar").exists()
+                    || !startupFingerprints.matches("create", createFingerprint);
+            if (create) {
+                // a new or updated server needs the other goals to run as well
+                startupFingerprints.clear();
+                runLibertyMojoCreate();
+                startupFingerprints.put("create", createFingerprint);
+            } else {
+                log.info("Skipping liberty:create, the server configuration is unchanged since the last dev mode session.");
+            }
             // If non-container, install features before starting server. Otherwise, user should have "RUN features.sh" in their Dockerfile if they want features to be installed.
             if (!container) {
-                runLibertyMojoInstallFeature(null, null);
+                String installFeatureFingerprint = getInstallFeatureFingerprint();
+                if (create || !startupFingerprints.matches("install-feature", installFeatureFingerprint)) {
+                    startupFingerprints.remove("install-feature");
+                    runLibertyMojoInstallFeature(null, null);
+                    startupFingerprints.put("install-feature", installFeatureFingerprint);
+                } else {
+                    log.info("Skipping liberty:install-feature, the features are unchanged since the last dev mode session.");
+                }
+            }
+            String deployFingerprint = getDeployFingerprint();
+            if (create || deployFingerprint == null || !startupFingerprints.matches("deploy", deployFingerprint)) {
+                startupFingerprints.remove("deploy");
+                runLibertyMojoDeploy();
+                // the fingerprint is only available once the deploy goal wrote the loose application descriptor
+                if (deployFingerprint == null) {
+                    deployFingerprint = getDeployFingerprint();
+                }
+                if (deployFingerprint != null) {
+                    startupFingerprints.put("deploy", deployFingerprint);
+                }
+            } else {
+                log.info("Skipping liberty:deploy, the application deployment is unchanged since the last dev mode session.");
             }
-            runLibertyMojoDeploy();
         }
         // resource directories
-        List<File> resourceDirs = new ArrayList<File>();
+        resourceDirs = new ArrayList<File>();
         if (outputDirectory.exists()) {
             List<Resource> resources = project.getResources();
             for (Resource resource : resources) {
@@ -805,11 +1107,40 @@ public class DevMojo extends StartDebugMojoSupport {
             resourceDirs.add(defaultResourceDir);
         }
 
+        dependencyCache = new DependencyResolutionCache(repositorySystem, repoSession,
+                new File(project.getBuild().getDirectory(), "liberty-dev/dependency-cache"), log);
+        try {
+            dependencyCache.store(project);
+        } catch (IOException e) {
+            log.debug("Unable to write the dependency cache: " + e.getMessage());
+        }
+
+        // the initial build is the first processed batch of each kind
+        changeBatcher = new ChangeBatcher((long) (changeBatchWindow * 1000L), (long) (changeBatchMaxWait * 1000L), log);
+        changeBatcher.seed(ChangeBatcher.Kind.JAVA, Collections.singletonList(sourceDirectory), true);
+        changeBatcher.seed(ChangeBatcher.Kind.TEST_JAVA, Collections.singletonList(testSourceDirectory), true);
+        changeBatcher.seed(ChangeBatcher.Kind.POM, Collections.singletonList(project.getFile()), true);
+
+        if (impactedTestsOnly) {
+            testImpactAnalyzer = new TestImpactAnalyzer(outputDirectory, testOutputDirectory, log);
+        }
+
         JavaCompilerOptions compilerOptions = getMavenCompilerOptions();
+        if (incrementalCompile && isIncrementalCompileSupported()) {
+            compilerArgs = getIncrementalCompilerArgs(compilerOptions);
+            mainCompiler = new IncrementalJavaCompiler(sourceDirectory, outputDirectory, log);
+            testCompiler = new IncrementalJavaCompiler(testSourceDirectory, testOutputDirectory, log);
+            if (!mainCompiler.isAvailable()) {
+                log.debug("No system Java compiler is available, source changes will be compiled with the maven-compiler-plugin");
+            }
+        }
 
         util = new DevMojoUtil(installDirectory, userDirectory, serverDirectory, sourceDirectory, testSourceDirectory, configDirectory, project.getBasedir(), resourceDirs, compilerOptions, settings.getLocalRepository());
         util.addShutdownHook(executor);
+        long serverStart = System.currentTimeMillis();
         util.startServer();
+        metrics.record("server start", System.currentTimeMillis() - serverStart);
+        metrics.endCycle();
 
         // collect artifacts canonical paths in order to build classpath
         List<String> artifactPaths = util.getArtifacts();
@@ -841,6 +1172,123 @@ public class DevMojo extends StartDebugMojoSupport {
         }
     }
 
+    /**
+     * Gets the fingerprint of the inputs of the create goal: the plugin and its create configuration,
+     * liberty.* properties, configuration files, dependencies and the installed runtime.
+     */
+    private String getCreateFingerprint() throws IOException {
+        Plugin libertyPlugin = getLibertyPlugin();
+        Fingerprint fingerprint = new Fingerprint().add(libertyPlugin.getVersion())
+                .add(ExecuteMojoUtil.getPluginGoalConfig(libertyPlugin, "create", log))
+                .add(DependencyResolutionCache.getKey(project))
+                .addFile(configDirectory).addFile(serverXmlFile).addFile(bootstrapPropertiesFile)
+                .addFile(jvmOptionsFile).addFile(serverEnvFile)
+                .addFile(new File(installDirectory, ".installed")).addFile(new File(installDirectory, "lib/versions"));
+        return addLibertyProperties(fingerprint).getValue();
+    }
+
+    /**
+     * Gets the fingerprint of the inputs of the install-feature goal: its configuration, the esa dependencies,
+     * liberty.* properties, the server configuration that lists the features and the installed runtime.
+     */
+    private String getInstallFeatureFingerprint() throws IOException {
+        Fingerprint fingerprint = new Fingerprint()
+                .add(ExecuteMojoUtil.getPluginGoalConfig(getLibertyPlugin(), "install-feature", log));
+        for (Dependency dependency : project.getDependencies()) {
+            if ("esa".equals(dependency.getType())) {
+                fingerprint.add(DependencyDiff.getKey(dependency));
+            }
+        }
+        fingerprint.addFile(new File(serverDirectory, "server.xml")).addFile(new File(serverDirectory, "configDropins"))
+                .addFile(new File(installDirectory, ".installed")).addFile(new File(installDirectory, "lib/versions"));
+        return addLibertyProperties(fingerprint).getValue();
+    }
+
+    /**
+     * Gets the fingerprint of the inputs of the deploy goal for a loose application: its configuration,
+     * liberty.* properties, the project dependencies, the war or ear plugin configuration and the web
+     * application or ear source files. The loose application descriptors that the goal writes are not
+     * inputs, but the goal runs if none were written yet.
+     * 
+     * @return the fingerprint, or null if the application is not deployed as a loose application
+     */
+    private String getDeployFingerprint() throws IOException {
+        if (!DeployMojoSupport.isSupportedLooseAppType(project.getPackaging())) {
+            return null;
+        }
+        List<File> descriptors = new ArrayList<File>();
+        listFiles(new File(serverDirectory, "apps"), descriptors, "xml");
+        listFiles(new File(serverDirectory, "dropins"), descriptors, "xml");
+        if (descriptors.isEmpty()) {
+            return null;
+        }
+        Fingerprint fingerprint = new Fingerprint()
+                .add(ExecuteMojoUtil.getPluginGoalConfig(getLibertyPlugin(), "deploy", log))
+                .add(project.getPackaging()).add(project.getBuild().getFinalName())
+                .add(DependencyResolutionCache.getKey(project));
+        addApplicationSources(fingerprint);
+        return addLibertyProperties(fingerprint).getValue();
+    }
+
+    /**
+     * Adds the liberty.* project properties, overridden by system and user properties such as
+     * -Dliberty.var.name=value, as the goals use them.
+     */
+    private Fingerprint addLibertyProperties(Fingerprint fingerprint) {
+        return fingerprint.addProperties("liberty.", project.getProperties(), session.getSystemProperties(),
+                session.getUserProperties());
+    }
+
+    /**
+     * Adds the war or ear plugin configuration and the source directories of a loose application.
+     */
+    private void addApplicationSources(Fingerprint fingerprint) throws IOException {
+        File basedir = project.getBasedir();
+        if ("war".equals(project.getPackaging())) {
+            Plugin warPlugin = project.getPlugin("org.apache.maven.plugins:maven-war-plugin");
+            fingerprint.add(warPlugin == null ? null : warPlugin.getConfiguration());
+            String warSourceDirectory = MavenProjectUtil.getPluginConfiguration(project, "org.apache.maven.plugins",
+                    "maven-war-plugin", "warSourceDirectory");
+            fingerprint.addFile(resolve(basedir, warSourceDirectory == null ? "src/main/webapp" : warSourceDirectory));
+            Map<String, String> webResources = MavenProjectUtil.getWebResourcesConfiguration(project);
+            if (webResources != null) {
+                for (String directory : new TreeSet<String>(webResources.keySet())) {
+                    fingerprint.add(directory).addFile(resolve(basedir, directory));
+                }
+            }
+        } else if ("ear".equals(project.getPackaging())) {
+            Plugin earPlugin = project.getPlugin("org.apache.maven.plugins:maven-ear-plugin");
+            fingerprint.add(earPlugin == null ? null : earPlugin.getConfiguration());
+            String earSourceDirectory = MavenProjectUtil.getPluginConfiguration(project, "org.apache.maven.plugins",
+                    "maven-ear-plugin", "earSourceDirectory");
+            fingerprint.addFile(resolve(basedir, earSourceDirectory == null ? "src/main/application" : earSourceDirectory));
+            String applicationXml = MavenProjectUtil.getPluginConfiguration(project, "org.apache.maven.plugins",
+                    "maven-ear-plugin", "applicationXml");
+            if (applicationXml != null && !applicationXml.isEmpty()) {
+                fingerprint.addFile(resolve(basedir, applicationXml));
+            }
+        }
+    }
+
+    private static File resolve(File basedir, String path) {
+        File file = new File(path);
+        return file.isAbsolute() || basedir == null ? file : new File(basedir, path);
+    }
+
+    /**
+     * Gets the files that a redeploy of the application depends on.
+     * 
+     * @return the class output directory and the resource directories
+     */
+    private List<File> getRedeployInputs() {
+        List<File> inputs = new ArrayList<File>();
+        inputs.add(outputDirectory);
+        if (resourceDirs != null) {
+            inputs.addAll(resourceDirs);
+        }
+        return inputs;
+    }
+
     private JavaCompilerOptions getMavenCompilerOptions() {
         Plugin plugin = getPlugin("org.apache.maven.plugins", "maven-compiler-plugin");
         Xpp3Dom configuration = ExecuteMojoUtil.getPluginGoalConfig(plugin, "compile", log);
@@ -874,6 +1322,52 @@ public class DevMojo extends StartDebugMojoSupport {
         return compilerOptions;
     }
 
+    /**
+     * Checks whether the maven-compiler-plugin configuration only uses options that
+     * the incremental compiler passes to javac.
+     * 
+     * @return true if source changes can be compiled in process
+     */
+    private boolean isIncrementalCompileSupported() {
+        Plugin plugin = getPlugin("org.apache.maven.plugins", "maven-compiler-plugin");
+        for (String goal : new String[] { "compile", "testCompile" }) {
+            Xpp3Dom configuration = ExecuteMojoUtil.getPluginGoalConfig(plugin, goal, log);
+            if (configuration == null) {
+                continue;
+            }
+            for (String option : UNSUPPORTED_INCREMENTAL_COMPILER_OPTIONS) {
+                if (configuration.getChild(option) != null) {
+                    log.info("Source changes are compiled with the maven-compiler-plugin because its " + goal
+                            + " configuration sets " + option + ", which the incremental compiler does not support.");
+                    return false;
+                }
+            }
+        }
+        if (Boolean.parseBoolean(project.getProperties().getProperty("maven.compiler.parameters"))) {
+            log.info("Source changes are compiled with the maven-compiler-plugin because maven.compiler.parameters is set.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the javac arguments for the incremental compiler from the compiler options and the project's source encoding.
+     * 
+     * @param compilerOptions the options from the maven-compiler-plugin configuration
+     * @return list of javac arguments
+     */
+    private List<String> getIncrementalCompilerArgs(JavaCompilerOptions compilerOptions) {
+        List<String> args = new ArrayList<String>(compilerOptions.getOptions());
+        String encoding = getCompilerOption(ExecuteMojoUtil.getPluginGoalConfig(getPlugin("org.apache.maven.plugins", "maven-compiler-plugin"), "compile", log),
+                "encoding", "project.build.sourceEncoding");
+        if (encoding != null) {
+            args.add("-encoding");
+            args.add(encoding);
+        }
+        log.debug("Incremental compiler options: " + args);
+        return args;
+    }
+
     /**
      * Gets a compiler option's value from maven-compiler-plugin's configuration or project properties.
      * 
@@ -904,54 +1398,65 @@ public class DevMojo extends StartDebugMojoSupport {
         }
     }
 
-    private void addArtifacts(org.eclipse.aether.graph.DependencyNode root, List<File> artifacts) {
-        if (root.getArtifact() != null) {
-            artifacts.add(root.getArtifact().getFile());
+    /**
+     * Gets the jar files of added or changed dependencies and of their transitive dependencies from the
+     * resolved artifacts of the project, so the dependencies are not resolved again.
+     * 
+     * @param dependencies the added or changed dependencies
+     * @return canonical paths of the jar files
+     */
+    private List<String> getClasspathAdditions(List<Dependency> dependencies) throws IOException {
+        List<String> addToClassPath = new ArrayList<String>();
+        if (dependencies.isEmpty()) {
+            return addToClassPath;
         }
-
-        for (org.eclipse.aether.graph.DependencyNode node : root.getChildren()) {
-            addArtifacts(node, artifacts);
+        // same format as the dependency trail ids without the version
+        Set<String> ids = new HashSet<String>();
+        for (Dependency dependency : dependencies) {
+            String id = dependency.getGroupId() + ":" + dependency.getArtifactId() + ":" + dependency.getType();
+            if (dependency.getClassifier() != null && !dependency.getClassifier().isEmpty()) {
+                id += ":" + dependency.getClassifier();
+            }
+            ids.add(id);
         }
-    }
-
-    private List<Artifact> getNewDependencies(List<Dependency> dependencies, List<Dependency> existingDependencies) {
-        List<Artifact> updatedArtifacts = new ArrayList<Artifact>();
-        for (Dependency dep : dependencies) {
-            boolean newDependency = true;
-            try {
-                // resolve new artifact
-                Artifact artifact = getArtifact(dep.getGroupId(), dep.getArtifactId(), dep.getType(), dep.getVersion());
-
-                // match dependencies based on artifactId, groupId, version and type
-                for (Dependency existingDep : existingDependencies) {
-                    Artifact existingArtifact = getArtifact(existingDep.getGroupId(), existingDep.getArtifactId(), existingDep.getType(), existingDep.getVersion());
-                    if (Objects.equals(artifact.getArtifactId(), existingArtifact.getArtifactId())
-                            && Objects.equals(artifact.getGroupId(), existingArtifact.getGroupId())
-                            && Objects.equals(artifact.getVersion(), existingArtifact.getVersion())
-                            && Objects.equals(artifact.getType(), existingArtifact.getType())) {
-                        newDependency = false;
-                        break;
-                    }
-                }
-                if (newDependency) {
-                    log.debug("New dependency found: " + artifact.toString());
-                    updatedArtifacts.add(artifact);
+        for (Artifact artifact : project.getArtifacts()) {
+            List<String> trail = artifact.getDependencyTrail();
+            if (trail == null || trail.size() < 2) {
+                continue;
+            }
+            String directId = trail.get(1);
+            File file = artifact.getFile();
+            if (ids.contains(directId.substring(0, directId.lastIndexOf(':'))) && file != null) {
+                log.debug("Artifact: " + file);
+                if (file.getCanonicalPath().endsWith(".jar")) {
+                    addToClassPath.add(file.getCanonicalPath());
                 }
-            } catch (MojoExecutionException e) {
-                log.warn(e.getMessage());
-            } catch (IllegalArgumentException e) {
-                log.warn(dep.toString() + " is not valid: " + e.getMessage());
             }
         }
-        return updatedArtifacts;
+        return addToClassPath;
     }
 
     private void runTestMojo(String groupId, String artifactId, String goal) throws MojoExecutionException {
+        runTestMojo(groupId, artifactId, goal, null);
+    }
+
+    /**
+     * Runs a test related goal.
+     * 
+     * @param tests the test classes to run, or null to run the tests configured in the project
+     */
+    private void runTestMojo(String groupId, String artifactId, String goal, List<String> tests) throws MojoExecutionException {
         Plugin plugin = getPlugin(groupId, artifactId);
-        Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(plugin, goal, log);
+        Xpp3Dom config = getMojoExecutionCache().getGoalConfiguration(plugin, goal);
+        if (tests != null) {
+            injectTests(config, tests);
+        }
 
         if (goal.equals("test")) {
             injectTestId(config);
+            if (parallelTests) {
+                injectForkSettings(config);
+            }
         } else if (goal.equals("integration-test")) {
             injectTestId(config);
             injectLibertyProperties(config);
@@ -1013,7 +1518,41 @@ public class DevMojo extends StartDebugMojoSupport {
         }
 
         log.debug(groupId + ":" + artifactId + " " + goal + " configuration:\n" + config);
-        executeMojo(plugin, goal(goal), config, executionEnvironment(project, session.clone(), pluginManager));
+        getMojoExecutionCache().execute(plugin, goal, config, project, session.clone());
+    }
+
+    /**
+     * Set the test parameter to the given test classes, unless tests are already selected
+     * in the plugin configuration or with the test property.
+     * 
+     * @param config
+     *            The configuration element
+     * @param tests
+     *            The test classes to run
+     */
+    private void injectTests(Xpp3Dom config, List<String> tests) {
+        if (config.getChild("test") != null || session.getUserProperties().getProperty("test") != null) {
+            log.debug("Tests are selected in the project configuration, running the configured tests");
+            return;
+        }
+        config.addChild(element(name("test"), TestImpactAnalyzer.toTestParameter(tests)).toDom());
+        if (config.getChild("failIfNoSpecifiedTests") == null) {
+            config.addChild(element(name("failIfNoSpecifiedTests"), "false").toDom());
+        }
+    }
+
+    /**
+     * Set forkCount to half of the available processors and reuseForks to true for the
+     * surefire test goal, unless they are already configured in the plugin configuration
+     * or as properties, so that the unit tests leave cores for a concurrent failsafe run.
+     * 
+     * @param config
+     *            The configuration element
+     */
+    private void injectForkSettings(Xpp3Dom config) {
+        int forkCount = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ExecuteMojoUtil.setDefaultForkSettings(config, forkCount, session.getUserProperties(), session.getSystemProperties(),
+                project.getProperties());
     }
 
     /**
@@ -1026,10 +1565,10 @@ public class DevMojo extends StartDebugMojoSupport {
     private void injectTestId(Xpp3Dom config) {
         Xpp3Dom properties = config.getChild("properties");
         if (properties == null || properties.getChild(TEST_RUN_ID_PROPERTY_NAME) == null) {
-            Element e = element(name("properties"), element(name(TEST_RUN_ID_PROPERTY_NAME), String.valueOf(runId++)));
+            Element e = element(name("properties"), element(name(TEST_RUN_ID_PROPERTY_NAME), String.valueOf(runId.getAndIncrement())));
             config.addChild(e.toDom());
         } else {
-            properties.getChild(TEST_RUN_ID_PROPERTY_NAME).setValue(String.valueOf(runId++));
+            properties.getChild(TEST_RUN_ID_PROPERTY_NAME).setValue(String.valueOf(runId.getAndIncrement()));
         }
     }
 
@@ -1077,8 +1616,7 @@ public class DevMojo extends StartDebugMojoSupport {
         MavenSession boostSession = this.session;
 
         log.debug("plugin version: " + boostPlugin.getVersion());
-        executeMojo(boostPlugin, goal(goal), configuration(),
-                executionEnvironment(boostProject, boostSession, pluginManager));
+        getMojoExecutionCache().execute(boostPlugin, goal, configuration(), boostProject, boostSession);
 
     }
 
@@ -1150,12 +1688,11 @@ public class DevMojo extends StartDebugMojoSupport {
      */
     private void runCompileMojo(String goal) throws MojoExecutionException {
         Plugin plugin = getPlugin("org.apache.maven.plugins", "maven-compiler-plugin");
-        Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(plugin, goal, log);
+        Xpp3Dom config = getMojoExecutionCache().getGoalConfiguration(plugin, goal);
         config = Xpp3Dom.mergeXpp3Dom(configuration(element(name("failOnError"), "false")), config);
         log.info("Running maven-compiler-plugin:" + goal);
         log.debug("configuration:\n" + config);
-        executeMojo(plugin, goal(goal), config,
-                executionEnvironment(project, session, pluginManager));
+        getMojoExecutionCache().execute(plugin, goal, config, project, session);
     }
 
     /**
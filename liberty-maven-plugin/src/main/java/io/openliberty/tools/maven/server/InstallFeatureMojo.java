@@ -46,6 +46,11 @@ public class InstallFeatureMojo extends InstallFeatureSupport {
     @Parameter
     private String containerName;
 
+    @Override
+    protected boolean isInstallGoal() {
+        return true;
+    }
+
     /*
      * (non-Javadoc)
      * @see org.codehaus.mojo.pluginsupport.MojoSupport#doExecute()
@@ -24,6 +24,11 @@ import org.apache.maven.plugins.annotations.ResolutionScope;
 @Mojo(name = "install-server", requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME)
 public class InstallServerMojo extends PluginConfigSupport {
 
+    @Override
+    protected boolean isInstallGoal() {
+        return true;
+    }
+
     @Override
     protected void doExecute() throws Exception {
         if (skip) {
@@ -17,13 +17,22 @@ package io.openliberty.tools.maven.server;
 
 import java.util.List;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.text.MessageFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Properties;
+import java.util.Set;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
@@ -32,6 +41,13 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
 
 import io.openliberty.tools.ant.ServerTask;
+import io.openliberty.tools.common.plugins.util.ServerStatusUtil;
+import io.openliberty.tools.maven.utils.DigestUtil;
+import io.openliberty.tools.maven.utils.Fingerprint;
+import io.openliberty.tools.maven.utils.FingerprintStore;
+import io.openliberty.tools.maven.utils.LooseApplicationArchiver;
+import io.openliberty.tools.maven.utils.ParallelZipWriter;
+import io.openliberty.tools.maven.utils.ServerStatusProbe;
 
 /**
  * Package a liberty server
@@ -68,6 +84,12 @@ public class PackageServerMojo extends StartDebugMojoSupport {
         }
     }
 
+    // the layers of a layered package, from the least to the most frequently changed
+    private static final String[] LAYERS = { "runtime", "features", "shared", "app" };
+
+    // the entry time of reproducible packages without an outputTimestamp, 1980-01-01T00:00:00Z
+    private static final long DEFAULT_OUTPUT_TIME = 315532800000L;
+
     private PackageFileType packageFileType = null;
     private File packageFile = null;
 
@@ -124,6 +146,35 @@ public class PackageServerMojo extends StartDebugMojoSupport {
      */
     @Parameter(property = "skipLibertyPackage", defaultValue = "false")
     protected boolean skipLibertyPackage = false;
+
+    /**
+     * Create zip packages in the plugin, compressing the entries on several threads, instead of running
+     * the server package command. Only applies to the "all", "usr" and "wlp" include values without os.
+     */
+    @Parameter(property = "nativePackaging", defaultValue = "false")
+    private boolean nativePackaging;
+
+    /**
+     * Create reproducible packages in the plugin: the entries are sorted, use the outputTimestamp time and
+     * have normalized permissions, so that unchanged server content produces an identical package.
+     * Implies nativePackaging.
+     */
+    @Parameter(property = "reproduciblePackage", defaultValue = "false")
+    private boolean reproduciblePackage;
+
+    /**
+     * The entry time of reproducible packages, as an ISO 8601 date time or seconds since the epoch.
+     */
+    @Parameter(defaultValue = "${project.build.outputTimestamp}")
+    private String outputTimestamp;
+
+    /**
+     * Also create one archive per layer in the packageName-layers directory: the runtime, the installed
+     * features, the shared resources and the server with its applications. Unchanged layers are not
+     * written again. Implies nativePackaging.
+     */
+    @Parameter(property = "layeredPackage", defaultValue = "false")
+    private boolean layeredPackage;
     
     @Override
     protected void doExecute() throws Exception {
@@ -157,7 +208,9 @@ public class PackageServerMojo extends StartDebugMojoSupport {
         serverTask.setOs(os);
         serverTask.setServerRoot(serverRoot);
         log.info(MessageFormat.format(messages.getString("info.server.package.file.location"), packageFile.getCanonicalPath()));
-        serverTask.execute();
+        if (!packageNatively()) {
+            serverTask.execute();
+        }
 
         if ("liberty-assembly".equals(project.getPackaging())) {
             project.getArtifact().setFile(packageFile);
@@ -275,6 +328,311 @@ public class PackageServerMojo extends StartDebugMojoSupport {
         }
     }
 
+    /**
+     * Creates the package in the plugin if nativePackaging, reproduciblePackage or layeredPackage is set and
+     * supported for the package options. A package is not written again if its entries did not change.
+     * Jar packages are always created by the server package command, which adds the manifest and launcher
+     * classes that make them executable.
+     *
+     * @return true if the package was created, false if the server package command must create it
+     * @throws IOException
+     * @throws MojoExecutionException
+     */
+    private boolean packageNatively() throws IOException, MojoExecutionException {
+        if (!nativePackaging && !reproduciblePackage && !layeredPackage) {
+            return false;
+        }
+        ArrayList<String> includeValues = parseInclude();
+        String includeValue = includeValues.isEmpty() ? "all" : includeValues.get(0);
+        if (packageFileType != PackageFileType.ZIP) {
+            logNativePackagingUnsupported("Native packaging does not support the package type " + packageFileType.getValue() + ", running the server package command.");
+            return false;
+        }
+        if (includeValues.size() > 1 || !Arrays.asList("all", "usr", "wlp").contains(includeValue) || (os != null && !os.isEmpty())) {
+            logNativePackagingUnsupported("Native packaging does not support the include value " + include + " or the os option, running the server package command.");
+            return false;
+        }
+        checkServerStopped();
+
+        final ParallelZipWriter writer = new ParallelZipWriter(Runtime.getRuntime().availableProcessors(), log);
+        if (reproduciblePackage) {
+            writer.setFixedTime(getOutputTime());
+        }
+        final FingerprintStore store = new FingerprintStore(new File(project.getBuild().getDirectory(), "liberty-package/package-fingerprints.properties"), log);
+        LooseApplicationArchiver archiver = new LooseApplicationArchiver(new LooseApplicationArchiver.ArchiveWriter() {
+            @Override
+            public void write(File archive, List<ParallelZipWriter.Entry> entries) throws IOException {
+                writeArchive(writer, archive, entries, store);
+            }
+        });
+        List<ParallelZipWriter.Entry> entries;
+        try {
+            entries = getPackageEntries(includeValue, archiver);
+            writeArchive(writer, packageFile, entries, store);
+        } catch (IOException e) {
+            logNativePackagingUnsupported("Unable to create the package natively, running the server package command: " + e.getMessage());
+            return false;
+        }
+        if (layeredPackage) {
+            writeLayers(writer, entries, store);
+        }
+        return true;
+    }
+
+    /**
+     * The server package command refuses to package a running server, whose workarea and configuration
+     * may change while they are read. Check the output directory of the package goal, and the servers
+     * directory that a server started by the other goals writes to.
+     */
+    private void checkServerStopped() throws MojoExecutionException {
+        Set<File> outputDirectories = new LinkedHashSet<File>();
+        outputDirectories.add(outputDirectory);
+        outputDirectories.add(serverDirectory.getParentFile());
+        for (File dir : outputDirectories) {
+            ServerStatusProbe.Status status = new ServerStatusProbe(dir, serverName, log).getStatus();
+            if (status == ServerStatusProbe.Status.RUNNING || (status == ServerStatusProbe.Status.UNKNOWN
+                    && ServerStatusUtil.isServerRunning(installDirectory, dir, serverName))) {
+                throw new MojoExecutionException("The server " + serverName
+                        + " is running. Stop the server before packaging it, for example with the command 'mvn liberty:stop'.");
+            }
+        }
+    }
+
+    private void logNativePackagingUnsupported(String message) {
+        if (reproduciblePackage || layeredPackage) {
+            log.warn(message);
+        } else {
+            log.debug(message);
+        }
+    }
+
+    /**
+     * Writes an archive unless the archive exists and was written from the same entries, names and file
+     * sizes and modification times, with the same options.
+     *
+     * @return the SHA-256 of the archive
+     */
+    private String writeArchive(ParallelZipWriter writer, File archive, List<ParallelZipWriter.Entry> entries, FingerprintStore store) throws IOException {
+        Fingerprint fingerprint = new Fingerprint().add(reproduciblePackage ? getOutputTimeValue() : "-");
+        for (ParallelZipWriter.Entry entry : entries) {
+            fingerprint.add(entry.getName());
+            if (entry.getFile() != null) {
+                fingerprint.add(entry.getFile().length()).add(entry.getFile().lastModified());
+            }
+        }
+        String inputs = fingerprint.getValue();
+        String key = archive.getCanonicalPath();
+        String stored = store.get(key);
+        if (stored != null && archive.isFile() && stored.startsWith(inputs + ":" + archive.length() + ":" + archive.lastModified() + ":")) {
+            log.debug("The archive " + archive + " is up to date.");
+            return stored.substring(stored.lastIndexOf(':') + 1);
+        }
+        writer.write(archive, entries);
+        String sha256 = DigestUtil.sha256(archive);
+        store.put(key, inputs + ":" + archive.length() + ":" + archive.lastModified() + ":" + sha256);
+        return sha256;
+    }
+
+    /**
+     * Writes one archive per layer to the packageName-layers directory, together with a layers.properties
+     * file that lists the layers in order with their SHA-256, so that tools can skip unchanged layers.
+     * Files of the runtime directory that are not in the assembly archive belong to the features layer.
+     */
+    private void writeLayers(ParallelZipWriter writer, List<ParallelZipWriter.Entry> entries, FingerprintStore store) throws IOException, MojoExecutionException {
+        Set<String> runtimeFiles = null;
+        String archivePrefix = null;
+        if (installType == InstallType.FROM_FILE && assemblyArchive != null) {
+            runtimeFiles = getArchiveFileEntries().keySet();
+            archivePrefix = assemblyInstallDirectory.getCanonicalFile().toPath().relativize(installDirectory.getCanonicalFile().toPath())
+                    .toString().replace(File.separatorChar, '/');
+            archivePrefix = archivePrefix.isEmpty() ? "" : archivePrefix + "/";
+        }
+        Map<String, List<ParallelZipWriter.Entry>> layers = getLayers(entries, getServerRoot(), runtimeFiles, archivePrefix);
+
+        File layersDir = new File(packageFile.getParentFile(), getPackageName() + "-layers");
+        createDir(layersDir);
+        Properties index = new Properties();
+        StringBuilder layerNames = new StringBuilder();
+        for (Map.Entry<String, List<ParallelZipWriter.Entry>> layer : layers.entrySet()) {
+            File layerFile = new File(layersDir, layer.getKey() + "." + packageFileType.getValue());
+            if (layer.getValue().isEmpty()) {
+                if (layerFile.delete()) {
+                    store.remove(layerFile.getCanonicalPath());
+                }
+                continue;
+            }
+            String sha256 = writeArchive(writer, layerFile, layer.getValue(), store);
+            layerNames.append(layerNames.length() == 0 ? "" : ",").append(layer.getKey());
+            index.setProperty(layer.getKey() + ".file", layerFile.getName());
+            index.setProperty(layer.getKey() + ".sha256", sha256);
+        }
+        index.setProperty("layers", layerNames.toString());
+        OutputStream out = new FileOutputStream(new File(layersDir, "layers.properties"));
+        try {
+            index.store(out, "Server package layers");
+        } finally {
+            out.close();
+        }
+        log.info("Created the package layers " + layerNames + " in " + layersDir.getCanonicalPath());
+    }
+
+    /**
+     * Splits the file entries of a package into the layers, with the directory entries of each layer.
+     *
+     * @param runtimeFiles the files of the runtime archive, or null if all runtime files belong to the runtime layer
+     * @param archivePrefix the path of the runtime installation in the runtime archive
+     */
+    static Map<String, List<ParallelZipWriter.Entry>> getLayers(List<ParallelZipWriter.Entry> entries, String root, Set<String> runtimeFiles, String archivePrefix) {
+        Map<String, List<ParallelZipWriter.Entry>> layers = new LinkedHashMap<String, List<ParallelZipWriter.Entry>>();
+        for (String layer : LAYERS) {
+            layers.put(layer, new ArrayList<ParallelZipWriter.Entry>());
+        }
+        String serversRoot = root + "usr/servers/";
+        for (ParallelZipWriter.Entry entry : entries) {
+            if (entry.getFile() == null) {
+                continue;
+            }
+            String name = entry.getName();
+            String layer;
+            if (name.startsWith(serversRoot)) {
+                layer = "app";
+            } else if (name.startsWith(root + "usr/")) {
+                layer = "shared";
+            } else if (runtimeFiles != null && !runtimeFiles.contains(archivePrefix + name.substring(root.length()))) {
+                layer = "features";
+            } else {
+                layer = "runtime";
+            }
+            addWithParentDirectories(layers.get(layer), entry);
+        }
+        return layers;
+    }
+
+    // adds a file entry after the directory entries of its parents that are not in the list yet
+    static void addWithParentDirectories(List<ParallelZipWriter.Entry> layer, ParallelZipWriter.Entry entry) {
+        String previous = layer.isEmpty() ? "" : layer.get(layer.size() - 1).getName();
+        String name = entry.getName();
+        int separator = -1;
+        while ((separator = name.indexOf('/', separator + 1)) != -1) {
+            String dir = name.substring(0, separator + 1);
+            if (!previous.startsWith(dir)) {
+                layer.add(new ParallelZipWriter.Entry(dir, null));
+            }
+        }
+        layer.add(entry);
+    }
+
+    private String getServerRoot() {
+        return (serverRoot != null && !serverRoot.isEmpty() ? serverRoot : "wlp") + "/";
+    }
+
+    private String getOutputTimeValue() {
+        return outputTimestamp == null ? "" : outputTimestamp.trim();
+    }
+
+    /**
+     * Gets the entry time of reproducible packages from outputTimestamp, like other reproducible Maven archives.
+     */
+    private long getOutputTime() throws MojoExecutionException {
+        return parseOutputTime(getOutputTimeValue());
+    }
+
+    static long parseOutputTime(String value) throws MojoExecutionException {
+        // a single character disables the timestamp in Maven, use the default time
+        if (value.length() < 2) {
+            return DEFAULT_OUTPUT_TIME;
+        }
+        if (value.matches("\\d+")) {
+            return Long.parseLong(value) * 1000;
+        }
+        try {
+            return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX").parse(value).getTime();
+        } catch (ParseException e) {
+            throw new MojoExecutionException("The outputTimestamp value " + value + " is not an ISO 8601 date time such as 2020-01-01T00:00:00Z or a number of seconds since the epoch.");
+        }
+    }
+
+    /**
+     * Gets the package entries in the server package layout: the runtime under the server root, and the
+     * user directory with only the packaged server, without its logs and workarea. Loose applications
+     * are replaced by their application archives.
+     */
+    private List<ParallelZipWriter.Entry> getPackageEntries(String includeValue, LooseApplicationArchiver archiver) throws IOException {
+        String root = getServerRoot();
+        File installDir = installDirectory.getCanonicalFile();
+        File userDir = userDirectory.getCanonicalFile();
+        Set<File> excluded = new HashSet<File>();
+        excluded.add(new File(installDir, "usr"));
+        excluded.add(userDir);
+
+        List<ParallelZipWriter.Entry> entries = new ArrayList<ParallelZipWriter.Entry>();
+        entries.add(new ParallelZipWriter.Entry(root, null));
+        if (!"usr".equals(includeValue)) {
+            addPackageEntries(installDir, root, excluded, entries, null, null);
+        }
+        if (!"wlp".equals(includeValue)) {
+            String usrRoot = root + "usr/";
+            entries.add(new ParallelZipWriter.Entry(usrRoot, null));
+            File serversDir = new File(userDir, "servers");
+            File serverDir = serverDirectory.getCanonicalFile();
+            excluded.add(new File(serverDir, "logs"));
+            excluded.add(new File(serverDir, "workarea"));
+            File[] files = listSorted(userDir);
+            for (File file : files) {
+                if (file.getCanonicalFile().equals(serversDir.getCanonicalFile())) {
+                    entries.add(new ParallelZipWriter.Entry(usrRoot + "servers/", null));
+                    entries.add(new ParallelZipWriter.Entry(usrRoot + "servers/" + serverDir.getName() + "/", null));
+                    addPackageEntries(serverDir, usrRoot + "servers/" + serverDir.getName() + "/", excluded, entries, archiver,
+                            new File(project.getBuild().getDirectory(), "liberty-package/loose-applications"));
+                } else if ("all".equals(includeValue) || "shared".equals(file.getName())) {
+                    if (file.isDirectory()) {
+                        entries.add(new ParallelZipWriter.Entry(usrRoot + file.getName() + "/", null));
+                        addPackageEntries(file, usrRoot + file.getName() + "/", excluded, entries, null, null);
+                    } else {
+                        entries.add(new ParallelZipWriter.Entry(usrRoot + file.getName(), file));
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Adds the entries of the files of a directory. If an archiver is given, the loose applications of the
+     * apps and dropins directories are written to the loose applications directory and added as archives.
+     */
+    static void addPackageEntries(File dir, String prefix, Set<File> excluded, List<ParallelZipWriter.Entry> entries,
+            LooseApplicationArchiver archiver, File looseApplicationsDir) throws IOException {
+        for (File file : listSorted(dir)) {
+            if (excluded.contains(file.getCanonicalFile()) || file.getName().equals(".sLock") || file.getName().equals(".sCommand")) {
+                continue;
+            }
+            if (file.isDirectory()) {
+                entries.add(new ParallelZipWriter.Entry(prefix + file.getName() + "/", null));
+                boolean applications = file.getName().equals("apps") || file.getName().equals("dropins");
+                addPackageEntries(file, prefix + file.getName() + "/", excluded, entries, applications ? archiver : null,
+                        applications ? new File(looseApplicationsDir, file.getName()) : null);
+            } else if (archiver != null && (dir.getName().equals("apps") || dir.getName().equals("dropins"))
+                    && LooseApplicationArchiver.isLooseApplication(file)) {
+                String archiveName = LooseApplicationArchiver.getArchiveName(file);
+                File archive = new File(looseApplicationsDir, archiveName);
+                archiver.build(file, archive);
+                entries.add(new ParallelZipWriter.Entry(prefix + archiveName, archive));
+            } else {
+                entries.add(new ParallelZipWriter.Entry(prefix + file.getName(), file));
+            }
+        }
+    }
+
+    private static File[] listSorted(File dir) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return new File[0];
+        }
+        Arrays.sort(files);
+        return files;
+    }
+
     private void createDir(File dir) throws MojoExecutionException {
         if (!dir.exists() && !dir.mkdirs()) {
             throw new MojoExecutionException("Unable to create directory "+dir.getPath());
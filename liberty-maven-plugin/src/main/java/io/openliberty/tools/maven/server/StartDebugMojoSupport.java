@@ -17,9 +17,6 @@ package io.openliberty.tools.maven.server;
 
 import static org.twdata.maven.mojoexecutor.MojoExecutor.artifactId;
 import static org.twdata.maven.mojoexecutor.MojoExecutor.configuration;
-import static org.twdata.maven.mojoexecutor.MojoExecutor.executeMojo;
-import static org.twdata.maven.mojoexecutor.MojoExecutor.executionEnvironment;
-import static org.twdata.maven.mojoexecutor.MojoExecutor.goal;
 import static org.twdata.maven.mojoexecutor.MojoExecutor.groupId;
 import static org.twdata.maven.mojoexecutor.MojoExecutor.plugin;
 import static org.twdata.maven.mojoexecutor.MojoExecutor.version;
@@ -27,9 +24,11 @@ import static org.twdata.maven.mojoexecutor.MojoExecutor.element;
 import static org.twdata.maven.mojoexecutor.MojoExecutor.name;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.text.MessageFormat;
 import java.util.ArrayList;
@@ -54,15 +53,15 @@ import org.apache.maven.plugin.BuildPluginManager;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Parameter;
-import org.apache.tools.ant.taskdefs.Copy;
-import org.apache.tools.ant.types.FileSet;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.twdata.maven.mojoexecutor.MojoExecutor.Element;
 
 import io.openliberty.tools.ant.ServerTask;
 import io.openliberty.tools.common.plugins.config.ServerConfigDropinXmlDocument;
 import io.openliberty.tools.maven.BasicSupport;
-import io.openliberty.tools.maven.utils.ExecuteMojoUtil;
+import io.openliberty.tools.maven.utils.ConfigFileSync;
+import io.openliberty.tools.maven.utils.DependencyCopier;
+import io.openliberty.tools.maven.utils.MojoExecutionCache;
 
 /**
  * Start/Debug server support.
@@ -91,6 +90,8 @@ public class StartDebugMojoSupport extends BasicSupport {
     @Component
     protected BuildPluginManager pluginManager;
 
+    private MojoExecutionCache mojoExecutionCache;
+
     /* 
      * Define a set of dependencies to copy to the target Liberty server.
      */
@@ -175,11 +176,23 @@ public class StartDebugMojoSupport extends BasicSupport {
     
     protected void runMojo(String groupId, String artifactId, String goal) throws MojoExecutionException {
         Plugin plugin = getPlugin(groupId, artifactId);
-        Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(plugin, goal, log);
+        Xpp3Dom config = getMojoExecutionCache().getGoalConfiguration(plugin, goal);
         log.info("Running " + artifactId + ":" + goal);
         log.debug("configuration:\n" + config);
-        executeMojo(plugin, goal(goal), config,
-                executionEnvironment(project, session, pluginManager));
+        getMojoExecutionCache().execute(plugin, goal, config, project, session);
+    }
+
+    /**
+     * Get the cache used to execute plugin goals from this mojo. The cache must be
+     * invalidated when the project changes.
+     * 
+     * @return MojoExecutionCache
+     */
+    protected synchronized MojoExecutionCache getMojoExecutionCache() {
+        if (mojoExecutionCache == null) {
+            mojoExecutionCache = new MojoExecutionCache(pluginManager, log);
+        }
+        return mojoExecutionCache;
     }
     
     /**
@@ -226,7 +239,7 @@ public class StartDebugMojoSupport extends BasicSupport {
     }
 
     protected void runLibertyMojoCreate() throws MojoExecutionException {
-        Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(getLibertyPlugin(), "create", log);
+        Xpp3Dom config = getMojoExecutionCache().getGoalConfiguration(getLibertyPlugin(), "create");
         runLibertyMojo("create", config);
     }
 
@@ -235,7 +248,7 @@ public class StartDebugMojoSupport extends BasicSupport {
     }
     
     protected void runLibertyMojoDeploy(boolean forceLooseApp) throws MojoExecutionException {
-        Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(getLibertyPlugin(), "deploy", log);
+        Xpp3Dom config = getMojoExecutionCache().getGoalConfiguration(getLibertyPlugin(), "deploy");
         if(forceLooseApp) {
             Xpp3Dom looseApp = config.getChild("looseApplication");
             if (looseApp != null && "false".equals(looseApp.getValue())) {
@@ -247,7 +260,7 @@ public class StartDebugMojoSupport extends BasicSupport {
     }
 
     protected void runLibertyMojoInstallFeature(Element features, String containerName) throws MojoExecutionException {
-        Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(getLibertyPlugin(), "install-feature", log);;
+        Xpp3Dom config = getMojoExecutionCache().getGoalConfiguration(getLibertyPlugin(), "install-feature");;
         if (features != null) {
             config = Xpp3Dom.mergeXpp3Dom(configuration(features), config);
         }
@@ -260,8 +273,7 @@ public class StartDebugMojoSupport extends BasicSupport {
     private void runLibertyMojo(String goal, Xpp3Dom config) throws MojoExecutionException {
         log.info("Running liberty:" + goal);
         log.debug("configuration:\n" + config);
-        executeMojo(getLibertyPlugin(), goal(goal), config,
-                executionEnvironment(project, session, pluginManager));
+        getMojoExecutionCache().execute(getLibertyPlugin(), goal, config, project, session);
     }
 
     private void copyDependencies() throws Exception {
@@ -289,8 +301,10 @@ public class StartDebugMojoSupport extends BasicSupport {
                 log.debug("copyDependencies to location: "+dftLocationPath);
             }
 
+            // collect the files of all dependencies first and then copy them on several threads
+            DependencyCopier copier = new DependencyCopier(Runtime.getRuntime().availableProcessors(), copyDependencies.isLink(), log);
             for (Dependency dep : deps) {
-                copyDependencies(dep, null, dftLocationPath, defaultStripVersion);                
+                copyDependencies(dep, null, dftLocationPath, defaultStripVersion, copier);                
             }
 
             List<DependencyGroup> depGroups = copyDependencies.getDependencyGroups();
@@ -309,14 +323,16 @@ public class StartDebugMojoSupport extends BasicSupport {
                 }
                 List<Dependency> groupDeps = depGroup.getDependencies();
                 for (Dependency dep : groupDeps) {
-                    copyDependencies(dep, overrideLocation, dftLocationPath, stripVersion);                
+                    copyDependencies(dep, overrideLocation, dftLocationPath, stripVersion, copier);                
                 }
             }
 
+            copier.copy();
+
         }
     }
 
-    private void copyDependencies(Dependency dep, String overrideLocation, String defaultLocation, boolean stripVersion) throws Exception {
+    private void copyDependencies(Dependency dep, String overrideLocation, String defaultLocation, boolean stripVersion, DependencyCopier copier) throws Exception {
 
         String location = defaultLocation;
 
@@ -365,13 +381,7 @@ public class StartDebugMojoSupport extends BasicSupport {
            
                 File fileToCopyTo = new File(location, targetFileName);
 
-                Copy copy = (Copy) ant.createTask("copy");
-                copy.setFile(nextFile);
-                copy.setTofile(fileToCopyTo);
-                copy.setOverwrite(true);
-                copy.execute();
-
-                log.info("copyDependencies copied file "+nextFile.getName()+" to location "+location+"/"+targetFileName+".");
+                copier.add(nextFile, fileToCopyTo);
             }
         }
     }
@@ -389,23 +399,29 @@ public class StartDebugMojoSupport extends BasicSupport {
         // First check for Liberty configuration specified by Maven properties.
         loadLibertyConfigFromProperties();
 
-        if (configDirectory != null && configDirectory.exists()) {
-            // copy configuration files from configuration directory to server directory if end-user set it
-            Copy copydir = (Copy) ant.createTask("copy");
-            FileSet fileset = new FileSet();
-            fileset.setDir(configDirectory);
+        ConfigFileSync configSync = new ConfigFileSync(new File(project.getBuild().getDirectory(), "liberty-config-sync/" + serverName + ".properties"), log);
 
+        if (configDirectory != null && configDirectory.exists()) {
+            // copy configuration files from configuration directory to server directory if end-user set it,
+            // except the files that are replaced by explicitly set files or inlined configuration below
+            List<String> excludes = new ArrayList<String>();
+            if (serverXmlFile != null && serverXmlFile.exists()) {
+                excludes.add("server.xml");
+            }
+            if (jvmOptions != null || !jvmMavenProps.isEmpty() || (jvmOptionsFile != null && jvmOptionsFile.exists())) {
+                excludes.add("jvm.options");
+            }
+            if (bootstrapProperties != null || !bootstrapMavenProps.isEmpty()
+                    || (bootstrapPropertiesFile != null && bootstrapPropertiesFile.exists())) {
+                excludes.add("bootstrap.properties");
+            }
             // If mergeServerEnv is true, don't overwrite generated server.env
             File configDirServerEnv = new File(configDirectory, "server.env");
-            if(mergeServerEnv && configDirServerEnv.exists()){
-                // set excludes pattern 
-                fileset.setExcludes("server.env");
+            if ((mergeServerEnv && configDirServerEnv.exists()) || (!mergeServerEnv
+                    && (!envMavenProps.isEmpty() || (serverEnvFile != null && serverEnvFile.exists())))) {
+                excludes.add("server.env");
             }
-
-            copydir.addFileset(fileset);
-            copydir.setTodir(serverDirectory);
-            copydir.setOverwrite(true);
-            copydir.execute();
+            configSync.syncDirectory(configDirectory, serverDirectory, excludes.toArray(new String[excludes.size()]));
 
             File configDirServerXML = new File(configDirectory, "server.xml");
             if (configDirServerXML.exists()) {
@@ -432,19 +448,12 @@ public class StartDebugMojoSupport extends BasicSupport {
             if (serverXMLPath != null && ! serverXmlFile.getCanonicalPath().equals(serverXMLPath)) {
                 log.warn("The " + serverXMLPath + " file is overwritten by the "+serverXmlFile.getCanonicalPath()+" file.");
             }
-            Copy copy = (Copy) ant.createTask("copy");
-            copy.setFile(serverXmlFile);
-            copy.setTofile(new File(serverDirectory, "server.xml"));
-            copy.setOverwrite(true);
-            copy.execute();
+            configSync.syncFile(serverXmlFile, new File(serverDirectory, "server.xml"));
             serverXMLPath = serverXmlFile.getCanonicalPath();
         }
 
         // copy jvm.options to server directory if end-user explicitly set it
         File optionsFile = new File(serverDirectory, "jvm.options");
-        if (optionsFile.exists() && jvmOptionsPath == null) {
-            optionsFile.delete();
-        }
         if (jvmOptions != null || !jvmMavenProps.isEmpty()) {
             if (jvmOptionsPath != null) {
                 log.warn("The " + jvmOptionsPath + " file is overwritten by inlined configuration.");
@@ -455,19 +464,14 @@ public class StartDebugMojoSupport extends BasicSupport {
             if (jvmOptionsPath != null) {
                 log.warn("The " + jvmOptionsPath + " file is overwritten by the "+jvmOptionsFile.getCanonicalPath()+" file.");
             }
-            Copy copy = (Copy) ant.createTask("copy");
-            copy.setFile(jvmOptionsFile);
-            copy.setTofile(optionsFile);
-            copy.setOverwrite(true);
-            copy.execute();
+            configSync.syncFile(jvmOptionsFile, optionsFile);
             jvmOptionsPath = jvmOptionsFile.getCanonicalPath();
+        } else if (optionsFile.exists() && jvmOptionsPath == null) {
+            optionsFile.delete();
         }
 
         // copy bootstrap.properties to server directory if end-user explicitly set it
         File bootstrapFile = new File(serverDirectory, "bootstrap.properties");
-        if (bootstrapFile.exists() && bootStrapPropertiesPath == null) {
-            bootstrapFile.delete();
-        } 
         if (bootstrapProperties != null || !bootstrapMavenProps.isEmpty()) {
             if (bootStrapPropertiesPath != null) {
                 log.warn("The " + bootStrapPropertiesPath + " file is overwritten by inlined configuration.");
@@ -478,12 +482,10 @@ public class StartDebugMojoSupport extends BasicSupport {
             if (bootStrapPropertiesPath != null) {
                 log.warn("The " + bootStrapPropertiesPath + " file is overwritten by the "+ bootstrapPropertiesFile.getCanonicalPath()+" file.");
             }
-            Copy copy = (Copy) ant.createTask("copy");
-            copy.setFile(bootstrapPropertiesFile);
-            copy.setTofile(bootstrapFile);
-            copy.setOverwrite(true);
-            copy.execute();
+            configSync.syncFile(bootstrapPropertiesFile, bootstrapFile);
             bootStrapPropertiesPath = bootstrapPropertiesFile.getCanonicalPath();
+        } else if (bootstrapFile.exists() && bootStrapPropertiesPath == null) {
+            bootstrapFile.delete();
         }
 
         // copy server.env to server directory if end-user explicitly set it
@@ -499,22 +501,18 @@ public class StartDebugMojoSupport extends BasicSupport {
                 writeServerEnvProperties(envFile, envMavenProps);
                 serverEnvPath = "inlined configuration";
             } else if (serverEnvFile != null && serverEnvFile.exists()) {
-                Copy copy = (Copy) ant.createTask("copy");
-                copy.setFile(serverEnvFile);
-                copy.setTofile(envFile);
-                copy.setOverwrite(true);
-                copy.execute();
+                configSync.syncFile(serverEnvFile, envFile);
                 serverEnvPath = serverEnvFile.getCanonicalPath();
             }
         }
 
         File pluginVariableConfig = new File(serverDirectory, PLUGIN_VARIABLE_CONFIG_XML);
-        if (pluginVariableConfig.exists()) {
-            pluginVariableConfig.delete();
-        }
         if (!varMavenProps.isEmpty() || !defaultVarMavenProps.isEmpty()) {
             writeConfigDropinsServerVariables(pluginVariableConfig, varMavenProps, defaultVarMavenProps);  
+        } else if (pluginVariableConfig.exists()) {
+            pluginVariableConfig.delete();
         }
+        configSync.logSummary(serverDirectory);
 
         // log info on the configuration files that get used
         if (serverXMLPath != null && !serverXMLPath.isEmpty()) {
@@ -680,10 +678,10 @@ public class StartDebugMojoSupport extends BasicSupport {
             combinedBootstrapProperties = properties;
         }
 
-        makeParentDirectory(file);
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
         PrintWriter writer = null;
         try {
-            writer = new PrintWriter(file, "UTF-8");
+            writer = new PrintWriter(new OutputStreamWriter(content, "UTF-8"));
             writer.println(HEADER);
             for (Map.Entry<String, String> entry : combinedBootstrapProperties.entrySet()) {
                 String key = entry.getKey();
@@ -701,13 +699,14 @@ public class StartDebugMojoSupport extends BasicSupport {
                 writer.close();
             }
         }
+        writeIfChanged(file, content.toByteArray());
     }
 
     private void writeServerEnvProperties(File file, Map<String, String> mavenProperties) throws IOException {
-        makeParentDirectory(file);
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
         PrintWriter writer = null;
         try {
-            writer = new PrintWriter(file, "UTF-8");
+            writer = new PrintWriter(new OutputStreamWriter(content, "UTF-8"));
             writer.println(HEADER);
             for (Map.Entry<String, String> entry : mavenProperties.entrySet()) {
                 String key = entry.getKey();
@@ -724,6 +723,7 @@ public class StartDebugMojoSupport extends BasicSupport {
                 writer.close();
             }
         }
+        writeIfChanged(file, content.toByteArray());
     }
 
     // One of the passed in Lists must be not null and not empty
@@ -741,10 +741,10 @@ public class StartDebugMojoSupport extends BasicSupport {
             combinedJvmOptions = options;
         }
 
-        makeParentDirectory(file);
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
         PrintWriter writer = null;
         try {
-            writer = new PrintWriter(file, "UTF-8");
+            writer = new PrintWriter(new OutputStreamWriter(content, "UTF-8"));
             writer.println(HEADER);
             for (String option : combinedJvmOptions) {
                 writer.println(option);
@@ -754,6 +754,7 @@ public class StartDebugMojoSupport extends BasicSupport {
                 writer.close();
             }
         }
+        writeIfChanged(file, content.toByteArray());
     }
 
     private void writeConfigDropinsServerVariables(File file, Map<String,String> varMavenProps, Map<String,String> defaultVarMavenProps) throws IOException, TransformerException, ParserConfigurationException {
@@ -782,10 +783,25 @@ public class StartDebugMojoSupport extends BasicSupport {
             }
         }
 
-        // write XML document to file
+        // write XML document to a temporary file and replace the file only if the document changed
         makeParentDirectory(file);
-        configDocument.writeXMLDocument(file);
+        File generated = File.createTempFile("." + file.getName(), ".tmp", file.getParentFile());
+        configDocument.writeXMLDocument(generated);
+        if (ConfigFileSync.replaceIfChanged(generated, file)) {
+            log.debug("Wrote " + file);
+        } else {
+            log.debug("The generated " + file + " is unchanged.");
+        }
+    }
 
+    // writes a generated configuration file unless it already has the same content
+    private void writeIfChanged(File file, byte[] content) throws IOException {
+        makeParentDirectory(file);
+        if (ConfigFileSync.writeIfChanged(file, content)) {
+            log.debug("Wrote " + file);
+        } else {
+            log.debug("The generated " + file + " is unchanged.");
+        }
     }
 
     private void makeParentDirectory(File file) {
@@ -0,0 +1,329 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Extracts a zip archive with several threads. The entries are read from the
+ * central directory, written with file channels, and the POSIX permissions
+ * stored in the entry attributes are applied as each file is written. Scripts
+ * directly in the given scripts directory, except .bat files, also get the
+ * ugo+rx permissions that were previously set with the Ant chmod task.
+ */
+public class ArchiveExtractor {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int CENTRAL_DIRECTORY_HEADER = 0x02014b50;
+    private static final int HOST_UNIX = 3;
+
+    private static final PosixFilePermission[] PERMISSIONS = { PosixFilePermission.OTHERS_EXECUTE,
+            PosixFilePermission.OTHERS_WRITE, PosixFilePermission.OTHERS_READ, PosixFilePermission.GROUP_EXECUTE,
+            PosixFilePermission.GROUP_WRITE, PosixFilePermission.GROUP_READ, PosixFilePermission.OWNER_EXECUTE,
+            PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_READ };
+
+    private final int threads;
+    private final Log log;
+    private final boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+
+    /**
+     * @param threads the number of threads that write entries
+     * @param log the logger
+     */
+    public ArchiveExtractor(int threads, Log log) {
+        this.threads = Math.max(1, threads);
+        this.log = log;
+    }
+
+    /**
+     * Extract an archive into a directory, overwriting existing files.
+     *
+     * @param archive the zip archive
+     * @param destination the directory to extract into
+     * @param scriptDirectory the entry name prefix of the directory with the scripts to make executable, e.g. wlp/bin/
+     * @return the number of extracted files
+     * @throws IOException if the archive cannot be read, a file cannot be written,
+     *             or an entry would be written outside of the destination
+     */
+    public int extract(File archive, File destination, String scriptDirectory) throws IOException {
+        return extract(archive, destination, scriptDirectory, null);
+    }
+
+    /**
+     * Extract some files of an archive into a directory, overwriting existing
+     * files. All directory entries are created.
+     *
+     * @param archive the zip archive
+     * @param destination the directory to extract into
+     * @param scriptDirectory the entry name prefix of the directory with the scripts to make executable, e.g. wlp/bin/
+     * @param fileNames the names of the file entries to extract, or null to extract all files
+     * @return the number of extracted files
+     * @throws IOException if the archive cannot be read, a file cannot be written,
+     *             or an entry would be written outside of the destination
+     */
+    public int extract(File archive, File destination, final String scriptDirectory, Set<String> fileNames) throws IOException {
+        long start = System.currentTimeMillis();
+        final Path root = destination.getCanonicalFile().toPath();
+        final Map<String, Integer> modes = posix ? readUnixModes(archive) : Collections.<String, Integer> emptyMap();
+
+        // create the directories up front so the writers only create files
+        final List<ZipEntry> files = new ArrayList<ZipEntry>();
+        Map<Path, Long> directories = new LinkedHashMap<Path, Long>();
+        ZipFile zipFile = new ZipFile(archive);
+        try {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                Path target = resolve(root, entry.getName());
+                if (entry.isDirectory()) {
+                    Files.createDirectories(target);
+                    directories.put(target, entry.getTime());
+                } else if (fileNames == null || fileNames.contains(entry.getName())) {
+                    Files.createDirectories(target.getParent());
+                    files.add(entry);
+                }
+            }
+        } finally {
+            zipFile.close();
+        }
+
+        // largest entries first so that the threads finish at about the same time
+        Collections.sort(files, new Comparator<ZipEntry>() {
+            @Override
+            public int compare(ZipEntry e1, ZipEntry e2) {
+                return Long.compare(e2.getCompressedSize(), e1.getCompressedSize());
+            }
+        });
+
+        final File zip = archive;
+        final AtomicInteger next = new AtomicInteger();
+        int workers = Math.min(threads, Math.max(1, files.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        // each thread reads through its own zip file so that inflating is not serialized
+                        ZipFile zipFile = new ZipFile(zip);
+                        try {
+                            byte[] buffer = new byte[BUFFER_SIZE];
+                            int index;
+                            while ((index = next.getAndIncrement()) < files.size()) {
+                                ZipEntry entry = files.get(index);
+                                writeEntry(zipFile, entry, resolve(root, entry.getName()), modes.get(entry.getName()),
+                                        isScript(entry.getName(), scriptDirectory), buffer);
+                            }
+                        } finally {
+                            zipFile.close();
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Unable to extract " + archive, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting " + archive, e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // writing the files changed the directory times
+        for (Map.Entry<Path, Long> directory : directories.entrySet()) {
+            if (directory.getValue() != -1) {
+                Files.setLastModifiedTime(directory.getKey(), FileTime.fromMillis(directory.getValue()));
+            }
+        }
+
+        log.debug("Extracted " + files.size() + " files from " + archive + " with " + workers + " threads in "
+                + (System.currentTimeMillis() - start) + " ms");
+        return files.size();
+    }
+
+    private void writeEntry(ZipFile zipFile, ZipEntry entry, Path target, Integer mode, boolean script,
+            byte[] buffer) throws IOException {
+        // replace rather than overwrite existing files, which may be hard links to a shared runtime
+        Files.deleteIfExists(target);
+        InputStream in = zipFile.getInputStream(entry);
+        try {
+            FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            try {
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    byteBuffer.clear();
+                    byteBuffer.limit(read);
+                    while (byteBuffer.hasRemaining()) {
+                        out.write(byteBuffer);
+                    }
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+
+        if (entry.getTime() != -1) {
+            Files.setLastModifiedTime(target, FileTime.fromMillis(entry.getTime()));
+        }
+        if (posix && (mode != null || script)) {
+            Set<PosixFilePermission> permissions = mode != null ? toPermissions(mode) : Files.getPosixFilePermissions(target);
+            if (script) {
+                permissions.addAll(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_EXECUTE,
+                        PosixFilePermission.GROUP_READ, PosixFilePermission.GROUP_EXECUTE,
+                        PosixFilePermission.OTHERS_READ, PosixFilePermission.OTHERS_EXECUTE));
+            }
+            Files.setPosixFilePermissions(target, permissions);
+        }
+    }
+
+    private static boolean isScript(String name, String scriptDirectory) {
+        return scriptDirectory != null && name.startsWith(scriptDirectory)
+                && name.indexOf('/', scriptDirectory.length()) < 0 && !name.endsWith(".bat");
+    }
+
+    private static Path resolve(Path root, String name) throws IOException {
+        Path target = root.resolve(name).normalize();
+        if (!target.startsWith(root)) {
+            throw new IOException("The archive entry " + name + " is outside of the target directory " + root);
+        }
+        return target;
+    }
+
+    private static Set<PosixFilePermission> toPermissions(int mode) {
+        Set<PosixFilePermission> permissions = EnumSet.noneOf(PosixFilePermission.class);
+        for (int i = 0; i < PERMISSIONS.length; i++) {
+            if ((mode & (1 << i)) != 0) {
+                permissions.add(PERMISSIONS[i]);
+            }
+        }
+        return permissions;
+    }
+
+    /**
+     * Read the unix permissions of the entries from the central directory,
+     * which java.util.zip does not expose. Archives in the zip64 format or
+     * with a damaged central directory return no permissions.
+     */
+    private Map<String, Integer> readUnixModes(File archive) throws IOException {
+        Map<String, Integer> modes = new HashMap<String, Integer>();
+        FileChannel channel = FileChannel.open(archive.toPath(), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            // the end of central directory record is 22 bytes followed by a comment of up to 65535 bytes
+            int tailLength = (int) Math.min(size, 22 + 65535);
+            ByteBuffer tail = read(channel, size - tailLength, tailLength);
+            int eocd = -1;
+            for (int i = tailLength - 22; i >= 0; i--) {
+                if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY) {
+                    eocd = i;
+                    break;
+                }
+            }
+            if (eocd < 0) {
+                log.debug("No end of central directory record found in " + archive);
+                return modes;
+            }
+            int entryCount = tail.getShort(eocd + 10) & 0xffff;
+            long directorySize = tail.getInt(eocd + 12) & 0xffffffffL;
+            long directoryOffset = tail.getInt(eocd + 16) & 0xffffffffL;
+            if (entryCount == 0xffff || directoryOffset == 0xffffffffL || directoryOffset + directorySize > size) {
+                log.debug("Unable to read the central directory of " + archive + ", permissions are not restored");
+                return modes;
+            }
+
+            ByteBuffer directory = read(channel, directoryOffset, (int) directorySize);
+            int position = 0;
+            for (int i = 0; i < entryCount && position + 46 <= directorySize; i++) {
+                if (directory.getInt(position) != CENTRAL_DIRECTORY_HEADER) {
+                    break;
+                }
+                int host = (directory.getShort(position + 4) >> 8) & 0xff;
+                int nameLength = directory.getShort(position + 28) & 0xffff;
+                int extraLength = directory.getShort(position + 30) & 0xffff;
+                int commentLength = directory.getShort(position + 32) & 0xffff;
+                int mode = (directory.getInt(position + 38) >>> 16) & 0777;
+                if (host == HOST_UNIX && mode != 0) {
+                    byte[] name = new byte[nameLength];
+                    directory.position(position + 46);
+                    directory.get(name);
+                    modes.put(new String(name, StandardCharsets.UTF_8), mode);
+                }
+                position += 46 + nameLength + extraLength + commentLength;
+            }
+        } finally {
+            channel.close();
+        }
+        return modes;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+}
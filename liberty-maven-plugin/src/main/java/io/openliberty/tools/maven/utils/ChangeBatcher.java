@@ -0,0 +1,302 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Coalesces bursts of file changes before running a dev mode action. When an
+ * action is requested and files of that kind of change were modified within
+ * the batch window, the batcher waits until they have not changed for the
+ * length of the window, then runs the action once. Requests whose files have
+ * the same content as in the last processed batch are skipped. Files are
+ * compared by size and modification time first, and only files whose size or
+ * time changed, or whose time is too close to the last batch to tell edits
+ * apart, are compared by digest. With a window of 0, batching is disabled and
+ * every action runs immediately.
+ */
+public class ChangeBatcher {
+
+    public enum Kind {
+        JAVA, TEST_JAVA, RESOURCE, SERVER_CONFIG, POM
+    }
+
+    /**
+     * A dev mode action run for a batch of changes.
+     *
+     * @param <T> the result type
+     * @param <E> the exception thrown by the action
+     */
+    public interface Action<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    // file systems record modification times with a granularity of up to two seconds
+    private static final long TIMESTAMP_GRANULARITY = 2000;
+
+    private final long windowMillis;
+    private final long maxWaitMillis;
+    private final Log log;
+
+    // one lock per kind, so that a batch of one kind does not wait for another kind to settle
+    private final Map<Kind, Object> locks = new HashMap<Kind, Object>();
+
+    private static class Snapshot {
+        private final long time;
+        // path -> size and modification time
+        private final Map<String, String> stats;
+        // path -> digest, of the files that were compared by content
+        private final Map<String, String> digests;
+
+        private Snapshot(long time, Map<String, String> stats, Map<String, String> digests) {
+            this.time = time;
+            this.stats = stats;
+            this.digests = digests;
+        }
+    }
+
+    // the files of the last processed batch of each kind
+    private final ConcurrentMap<Kind, Snapshot> processedSnapshots = new ConcurrentHashMap<Kind, Snapshot>();
+    private final ConcurrentMap<Kind, Object> processedResults = new ConcurrentHashMap<Kind, Object>();
+
+    /**
+     * @param windowMillis time the files must be unchanged before a batch is processed, or 0 to disable batching
+     * @param maxWaitMillis maximum time to wait for the files to settle
+     * @param log the logger
+     */
+    public ChangeBatcher(long windowMillis, long maxWaitMillis, Log log) {
+        this.windowMillis = windowMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.log = log;
+        for (Kind kind : Kind.values()) {
+            locks.put(kind, new Object());
+        }
+    }
+
+    /**
+     * Record the current content of the files of a kind as processed, e.g.
+     * after the initial build.
+     *
+     * @param kind the kind of change
+     * @param inputs files and directories that the action depends on
+     * @param result the result to return for requests without changes
+     */
+    public void seed(Kind kind, List<File> inputs, Object result) {
+        if (windowMillis <= 0) {
+            return;
+        }
+        synchronized (locks.get(kind)) {
+            long time = System.currentTimeMillis();
+            putResult(kind, new Snapshot(time, getStats(stat(inputs)), new HashMap<String, String>()), result);
+        }
+    }
+
+    /**
+     * Wait for the changes of a kind to settle, then run the action unless the
+     * files have the same content as in the last processed batch of that kind.
+     *
+     * @param kind the kind of change
+     * @param inputs files and directories that the action depends on
+     * @param action the action to run
+     * @return the result of the action, or of the last processed batch if the action was skipped
+     * @throws E if the action fails
+     */
+    public <T, E extends Exception> T process(Kind kind, List<File> inputs, Action<T, E> action) throws E {
+        return process(kind, inputs, action, true);
+    }
+
+    /**
+     * Wait for the changes of a kind to settle, then run the action even if
+     * the files appear unchanged, e.g. for actions whose inputs are not all
+     * known to the batcher.
+     *
+     * @param kind the kind of change
+     * @param inputs files and directories that the action depends on
+     * @param action the action to run
+     * @return the result of the action
+     * @throws E if the action fails
+     */
+    public <T, E extends Exception> T settle(Kind kind, List<File> inputs, Action<T, E> action) throws E {
+        return process(kind, inputs, action, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T, E extends Exception> T process(Kind kind, List<File> inputs, Action<T, E> action, boolean skipUnchanged) throws E {
+        if (windowMillis <= 0) {
+            return action.run();
+        }
+        synchronized (locks.get(kind)) {
+            long start = System.currentTimeMillis();
+            Map<String, File> files = waitForChanges(inputs, start);
+
+            String batch = "";
+            Snapshot snapshot = null;
+            if (skipUnchanged) {
+                Snapshot processed = processedSnapshots.get(kind);
+                Map<String, String> digests = new HashMap<String, String>();
+                int batchSize = countChanges(processed, files, digests);
+                snapshot = new Snapshot(System.currentTimeMillis(), getStats(files), digests);
+                if (processed != null && batchSize == 0) {
+                    log.debug("No " + kind + " changes since the last batch, skipping");
+                    return (T) processedResults.get(kind);
+                }
+                batch = " of " + batchSize + " changed file(s)";
+            }
+
+            long settled = System.currentTimeMillis();
+            T result = action.run();
+            if (snapshot != null) {
+                putResult(kind, snapshot, result);
+            }
+            String message = "Processed " + kind + " batch" + batch + ": waited " + (settled - start)
+                    + " ms, action took " + (System.currentTimeMillis() - settled) + " ms";
+            if (settled - start > windowMillis) {
+                log.info(message);
+            } else {
+                log.debug(message);
+            }
+            return result;
+        }
+    }
+
+    // waits until no file was modified within the batch window and returns the files
+    private Map<String, File> waitForChanges(List<File> inputs, long start) {
+        Map<String, File> files = stat(inputs);
+        Map<String, String> stats = getStats(files);
+        while (isRecentlyModified(files, System.currentTimeMillis()) && System.currentTimeMillis() - start < maxWaitMillis) {
+            try {
+                Thread.sleep(windowMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            files = stat(inputs);
+            Map<String, String> next = getStats(files);
+            if (next.equals(stats)) {
+                break;
+            }
+            stats = next;
+        }
+        return files;
+    }
+
+    private boolean isRecentlyModified(Map<String, File> files, long now) {
+        for (File file : files.values()) {
+            if (file.lastModified() > now - windowMillis - TIMESTAMP_GRANULARITY) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void putResult(Kind kind, Snapshot snapshot, Object result) {
+        if (result != null) {
+            processedResults.put(kind, result);
+        } else {
+            processedResults.remove(kind);
+        }
+        processedSnapshots.put(kind, snapshot);
+    }
+
+    /**
+     * Counts the files that changed since the previous snapshot and collects the digests of the current files
+     * that are known or were computed. Only files whose size or modification time changed, or whose time is
+     * within the timestamp granularity of the previous batch, are read.
+     */
+    private static int countChanges(Snapshot previous, Map<String, File> current, Map<String, String> digests) {
+        if (previous == null) {
+            return current.size();
+        }
+        int changes = 0;
+        for (Map.Entry<String, File> file : current.entrySet()) {
+            String path = file.getKey();
+            String previousDigest = previous.digests.get(path);
+            boolean racy = file.getValue().lastModified() >= previous.time - TIMESTAMP_GRANULARITY;
+            if (getStat(file.getValue()).equals(previous.stats.get(path)) && !racy) {
+                if (previousDigest != null) {
+                    digests.put(path, previousDigest);
+                }
+                continue;
+            }
+            String digest = getDigest(file.getValue());
+            if (digest != null) {
+                digests.put(path, digest);
+            }
+            if (digest == null || !digest.equals(previousDigest)) {
+                changes++;
+            }
+        }
+        for (String path : previous.stats.keySet()) {
+            if (!current.containsKey(path)) {
+                changes++;
+            }
+        }
+        return changes;
+    }
+
+    private static String getDigest(File file) {
+        try {
+            return DigestUtil.sha256(file);
+        } catch (IOException e) {
+            // deleted while scanning, or not readable, in which case the batch is processed
+            return file.exists() ? "unreadable:" + System.nanoTime() : null;
+        }
+    }
+
+    private static Map<String, String> getStats(Map<String, File> files) {
+        Map<String, String> stats = new HashMap<String, String>();
+        for (Map.Entry<String, File> file : files.entrySet()) {
+            stats.put(file.getKey(), getStat(file.getValue()));
+        }
+        return stats;
+    }
+
+    private static String getStat(File file) {
+        return file.length() + ":" + file.lastModified();
+    }
+
+    private static Map<String, File> stat(List<File> inputs) {
+        Map<String, File> files = new HashMap<String, File>();
+        for (File input : inputs) {
+            if (input != null) {
+                addFiles(input, files);
+            }
+        }
+        return files;
+    }
+
+    private static void addFiles(File file, Map<String, File> files) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    addFiles(child, files);
+                }
+            }
+        } else if (file.exists()) {
+            files.put(file.getPath(), file);
+        }
+    }
+
+}
@@ -0,0 +1,310 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads class level dependencies directly from compiled bytecode.
+ */
+public class ClassDependencyUtil {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    // matches object types in field, method and generic signature descriptors
+    private static final Pattern DESCRIPTOR_TYPE = Pattern.compile("L([\\w/$]+)[;<]");
+
+    /**
+     * Get the binary name of the class stored at the given location relative to
+     * a class output directory.
+     *
+     * @param outputDirectory the class output directory
+     * @param classFile a .class file within the output directory
+     * @return the binary class name, e.g. com.example.Outer$Inner
+     */
+    public static String getClassName(File outputDirectory, File classFile) {
+        String relative = outputDirectory.toURI().relativize(classFile.toURI()).getPath();
+        if (relative.endsWith(".class")) {
+            relative = relative.substring(0, relative.length() - ".class".length());
+        }
+        return relative.replace('/', '.');
+    }
+
+    /**
+     * Get the binary name of the top level class that encloses the given class.
+     *
+     * @param className a binary class name
+     * @return the top level class name
+     */
+    public static String getTopLevelClassName(String className) {
+        int index = className.indexOf('$');
+        return index < 0 ? className : className.substring(0, index);
+    }
+
+    /**
+     * Recursively list all .class files in a directory.
+     *
+     * @param directory the directory to search
+     * @param classFiles the list to add the class files to
+     */
+    public static void listClassFiles(File directory, List<File> classFiles) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    listClassFiles(file, classFiles);
+                } else if (file.getName().endsWith(".class")) {
+                    classFiles.add(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the names of all classes referenced from the constant pool of a class
+     * file, including types that only appear in field, method or generic
+     * signatures.
+     *
+     * @param classFile the .class file to read
+     * @return set of binary class names referenced by the class, excluding
+     *         arrays of primitives
+     * @throws IOException if the file cannot be read or is not a class file
+     */
+    public static Set<String> getReferencedClasses(File classFile) throws IOException {
+        return readClassFile(classFile).references;
+    }
+
+    /**
+     * Read the classes referenced by a class file and whether the class declares
+     * compile-time constants. Compile-time constants are inlined into the classes
+     * that use them, so those classes do not reference the declaring class.
+     *
+     * @param classFile the .class file to read
+     * @return the class file information
+     * @throws IOException if the file cannot be read or is not a class file
+     */
+    public static ClassFileInfo readClassFile(File classFile) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(classFile)));
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(classFile + " is not a valid class file");
+            }
+            in.readUnsignedShort(); // minor version
+            in.readUnsignedShort(); // major version
+
+            int count = in.readUnsignedShort();
+            String[] utf8 = new String[count];
+            // constant pool index of a Class entry -> index of its name
+            int[] classNames = new int[count];
+            List<Integer> classIndexes = new ArrayList<Integer>();
+            for (int i = 1; i < count; i++) {
+                int tag = in.readUnsignedByte();
+                switch (tag) {
+                case 1: // Utf8
+                    utf8[i] = in.readUTF();
+                    break;
+                case 7: // Class
+                    classNames[i] = in.readUnsignedShort();
+                    classIndexes.add(classNames[i]);
+                    break;
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    in.readUnsignedShort();
+                    break;
+                case 15: // MethodHandle
+                    in.readUnsignedByte();
+                    in.readUnsignedShort();
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    in.readInt();
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    in.readLong();
+                    i++; // eight byte constants take two entries
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag + " in " + classFile);
+                }
+            }
+
+            Set<String> references = new HashSet<String>();
+            for (int index : classIndexes) {
+                String name = utf8[index];
+                if (name == null) {
+                    continue;
+                }
+                if (name.startsWith("[")) {
+                    addDescriptorTypes(name, references);
+                } else {
+                    references.add(name.replace('/', '.'));
+                }
+            }
+            for (String value : utf8) {
+                if (value != null && !value.isEmpty()) {
+                    char first = value.charAt(0);
+                    if (first == '(' || first == 'L' || first == '[' || first == '<') {
+                        addDescriptorTypes(value, references);
+                    }
+                }
+            }
+
+            in.readUnsignedShort(); // access flags
+            in.readUnsignedShort(); // this class
+            Set<String> supertypes = new HashSet<String>();
+            addClassName(utf8, classNames, in.readUnsignedShort(), supertypes); // super class
+            int interfaces = in.readUnsignedShort();
+            for (int i = 0; i < interfaces; i++) {
+                addClassName(utf8, classNames, in.readUnsignedShort(), supertypes);
+            }
+
+            // a field with a ConstantValue attribute is a compile-time constant
+            boolean declaresConstants = false;
+            int fields = in.readUnsignedShort();
+            for (int i = 0; i < fields; i++) {
+                in.readUnsignedShort(); // access flags
+                in.readUnsignedShort(); // name
+                in.readUnsignedShort(); // descriptor
+                int attributes = in.readUnsignedShort();
+                for (int j = 0; j < attributes; j++) {
+                    int name = in.readUnsignedShort();
+                    int length = in.readInt();
+                    if (name < count && "ConstantValue".equals(utf8[name])) {
+                        declaresConstants = true;
+                    }
+                    skipFully(in, length);
+                }
+            }
+
+            int methods = in.readUnsignedShort();
+            for (int i = 0; i < methods; i++) {
+                skipFully(in, 6); // access flags, name and descriptor
+                int attributes = in.readUnsignedShort();
+                for (int j = 0; j < attributes; j++) {
+                    in.readUnsignedShort();
+                    skipFully(in, in.readInt());
+                }
+            }
+
+            // the SourceFile attribute names the source of classes that are not in a source of their own name
+            String sourceFile = null;
+            int attributes = in.readUnsignedShort();
+            for (int i = 0; i < attributes; i++) {
+                int name = in.readUnsignedShort();
+                int length = in.readInt();
+                if (name < count && "SourceFile".equals(utf8[name]) && length == 2) {
+                    int index = in.readUnsignedShort();
+                    sourceFile = index < count ? utf8[index] : null;
+                } else {
+                    skipFully(in, length);
+                }
+            }
+            return new ClassFileInfo(references, declaresConstants, supertypes, sourceFile);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void addClassName(String[] utf8, int[] classNames, int index, Set<String> names) {
+        if (index > 0 && index < classNames.length && utf8[classNames[index]] != null) {
+            names.add(utf8[classNames[index]].replace('/', '.'));
+        }
+    }
+
+    /**
+     * The classes referenced by a class file, its direct supertypes, its source
+     * file name and whether it declares compile-time constants.
+     */
+    public static class ClassFileInfo {
+        private final Set<String> references;
+        private final boolean declaresConstants;
+        private final Set<String> supertypes;
+        private final String sourceFile;
+
+        private ClassFileInfo(Set<String> references, boolean declaresConstants, Set<String> supertypes, String sourceFile) {
+            this.references = references;
+            this.declaresConstants = declaresConstants;
+            this.supertypes = supertypes;
+            this.sourceFile = sourceFile;
+        }
+
+        /**
+         * @return the binary names of the classes referenced by the class
+         */
+        public Set<String> getReferences() {
+            return references;
+        }
+
+        /**
+         * @return true if the class has a field with a compile-time constant value
+         */
+        public boolean declaresConstants() {
+            return declaresConstants;
+        }
+
+        /**
+         * @return the binary names of the super class and the interfaces of the class
+         */
+        public Set<String> getSupertypes() {
+            return supertypes;
+        }
+
+        /**
+         * @return the name of the source file without its directory, e.g. A.java, or null if it is not recorded
+         */
+        public String getSourceFile() {
+            return sourceFile;
+        }
+    }
+
+    private static void skipFully(DataInputStream in, int length) throws IOException {
+        int remaining = length;
+        while (remaining > 0) {
+            int skipped = in.skipBytes(remaining);
+            if (skipped <= 0) {
+                throw new IOException("Unexpected end of class file");
+            }
+            remaining -= skipped;
+        }
+    }
+
+    private static void addDescriptorTypes(String descriptor, Set<String> references) {
+        Matcher matcher = DESCRIPTOR_TYPE.matcher(descriptor);
+        while (matcher.find()) {
+            references.add(matcher.group(1).replace('/', '.'));
+        }
+    }
+
+}
@@ -0,0 +1,226 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.DirectoryScanner;
+
+/**
+ * Copies configuration files to a server directory, writing only the files
+ * whose content changed, so that the server does not see modified files that
+ * it would process again. The files copied from a configuration directory are
+ * recorded in a manifest, and files that were removed from the configuration
+ * directory are deleted from the server directory unless they were modified
+ * there.
+ */
+public class ConfigFileSync {
+
+    private final FingerprintStore manifest;
+    private final Log log;
+
+    private final List<String> updated = new ArrayList<String>();
+    private final List<String> deleted = new ArrayList<String>();
+    private int unchanged;
+
+    /**
+     * @param manifestFile the manifest of the files copied from the configuration directory
+     * @param log the logger
+     */
+    public ConfigFileSync(File manifestFile, Log log) {
+        this.manifest = new FingerprintStore(manifestFile, log);
+        this.log = log;
+    }
+
+    /**
+     * Copy the files of a configuration directory, except the default excludes
+     * such as version control files, and delete the files that were copied from
+     * it before but no longer exist.
+     *
+     * @param sourceDir the configuration directory
+     * @param targetDir the server directory
+     * @param excludes the relative paths of files that are not copied or deleted
+     * @throws IOException if a file cannot be copied
+     */
+    public void syncDirectory(File sourceDir, File targetDir, String... excludes) throws IOException {
+        DirectoryScanner scanner = new DirectoryScanner();
+        scanner.setBasedir(sourceDir);
+        scanner.setExcludes(excludes);
+        scanner.addDefaultExcludes();
+        scanner.scan();
+
+        for (String dir : scanner.getIncludedDirectories()) {
+            new File(targetDir, dir).mkdirs();
+        }
+        Set<String> current = new HashSet<String>();
+        for (String path : scanner.getIncludedFiles()) {
+            String key = path.replace(File.separatorChar, '/');
+            current.add(key);
+            manifest.put(key, copy(new File(sourceDir, path), new File(targetDir, path), key));
+        }
+
+        List<String> excluded = Arrays.asList(excludes);
+        for (String key : manifest.getKeys()) {
+            if (current.contains(key) || excluded.contains(key)) {
+                continue;
+            }
+            File target = new File(targetDir, key);
+            if (target.isFile() && DigestUtil.sha256(target).equals(manifest.get(key))) {
+                Files.delete(target.toPath());
+                deleted.add(key);
+                log.debug("Deleted " + target + " that was removed from " + sourceDir);
+            } else if (target.exists()) {
+                log.debug("Keeping " + target + " that was removed from " + sourceDir + " because it was modified in the server directory.");
+            }
+            manifest.remove(key);
+        }
+    }
+
+    /**
+     * Copy a single configuration file if its content changed.
+     *
+     * @param source the configuration file
+     * @param target the file in the server directory
+     * @throws IOException if the file cannot be copied
+     */
+    public void syncFile(File source, File target) throws IOException {
+        copy(source, target, target.getName());
+    }
+
+    /**
+     * Log the files that were updated or deleted.
+     *
+     * @param serverDirectory the server directory
+     */
+    public void logSummary(File serverDirectory) {
+        if (updated.isEmpty() && deleted.isEmpty()) {
+            log.debug("The " + unchanged + " configuration files in " + serverDirectory + " are up to date.");
+            return;
+        }
+        StringBuilder summary = new StringBuilder("Updated the server configuration files in ").append(serverDirectory).append(": ");
+        if (!updated.isEmpty()) {
+            summary.append(updated.size()).append(" copied ").append(updated);
+        }
+        if (!deleted.isEmpty()) {
+            summary.append(updated.isEmpty() ? "" : ", ").append(deleted.size()).append(" deleted ").append(deleted);
+        }
+        log.info(summary.append(", ").append(unchanged).append(" unchanged.").toString());
+    }
+
+    // copies a file unless the target has the same content and returns the SHA-256 of the content
+    private String copy(File source, File target, String name) throws IOException {
+        String digest = DigestUtil.sha256(source);
+        if (target.isFile() && target.length() == source.length() && DigestUtil.sha256(target).equals(digest)) {
+            unchanged++;
+            return digest;
+        }
+        File parent = target.getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        copy(source, target);
+        updated.add(name);
+        log.debug("Copied " + source + " to " + target);
+        return digest;
+    }
+
+    /**
+     * Write generated content to a file unless the file already has the same
+     * content. The file is replaced atomically.
+     *
+     * @param target the file to write
+     * @param content the content
+     * @return true if the file was written
+     * @throws IOException if the file cannot be written
+     */
+    public static boolean writeIfChanged(File target, byte[] content) throws IOException {
+        if (target.isFile() && target.length() == content.length && Arrays.equals(Files.readAllBytes(target.toPath()), content)) {
+            return false;
+        }
+        File temp = File.createTempFile("." + target.getName(), ".tmp", target.getParentFile());
+        try {
+            Files.write(temp.toPath(), content);
+            replace(temp, target);
+        } finally {
+            temp.delete();
+        }
+        return true;
+    }
+
+    /**
+     * Move a generated file over a file unless the file already has the same
+     * content, in which case the generated file is deleted.
+     *
+     * @param generated the generated file, in the same directory as the target
+     * @param target the file to replace
+     * @return true if the file was replaced
+     * @throws IOException if the file cannot be replaced
+     */
+    public static boolean replaceIfChanged(File generated, File target) throws IOException {
+        try {
+            if (target.isFile() && target.length() == generated.length()
+                    && DigestUtil.sha256(target).equals(DigestUtil.sha256(generated))) {
+                return false;
+            }
+            replace(generated, target);
+            return true;
+        } finally {
+            generated.delete();
+        }
+    }
+
+    /**
+     * Copy a file to a temporary file in the target directory and move it over
+     * the target, so that a server monitoring the directory never reads a
+     * partially copied file.
+     *
+     * @param source the file to copy
+     * @param target the file to replace
+     * @throws IOException if the file cannot be copied
+     */
+    public static void copy(File source, File target) throws IOException {
+        File temp = File.createTempFile("." + target.getName(), ".tmp", target.getParentFile());
+        try {
+            Files.copy(source.toPath(), temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            replace(temp, target);
+        } finally {
+            temp.delete();
+        }
+    }
+
+    /**
+     * Replace a file with a complete file in the same directory, so that the
+     * server never reads a partially written file.
+     */
+    static void replace(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+}
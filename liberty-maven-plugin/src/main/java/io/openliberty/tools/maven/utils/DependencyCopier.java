@@ -0,0 +1,151 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Copies dependency files on several threads. Files that already have the
+ * same content are kept. If linking is enabled, files are hard linked to the
+ * source, e.g. in the local Maven repository, where the file system supports it.
+ */
+public class DependencyCopier {
+
+    private static enum Result {
+        UNCHANGED, LINKED, COPIED
+    }
+
+    private final int threads;
+    private final boolean link;
+    private final Log log;
+
+    // target -> source, the last source added for a target is copied
+    private final Map<File, File> files = new LinkedHashMap<File, File>();
+    private final AtomicBoolean linksSupported = new AtomicBoolean(true);
+
+    /**
+     * @param threads the number of threads that copy files
+     * @param link whether to hard link files instead of copying them
+     * @param log the logger
+     */
+    public DependencyCopier(int threads, boolean link, Log log) {
+        this.threads = Math.max(1, threads);
+        this.link = link;
+        this.log = log;
+    }
+
+    /**
+     * @param source the file to copy
+     * @param target the file to create
+     */
+    public void add(File source, File target) {
+        files.put(target, source);
+    }
+
+    /**
+     * Copy the added files and log a summary.
+     *
+     * @throws IOException if a file cannot be copied
+     */
+    public void copy() throws IOException {
+        if (files.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, files.size()));
+        int[] counts = new int[Result.values().length];
+        try {
+            List<Future<Result>> results = new ArrayList<Future<Result>>();
+            for (final Map.Entry<File, File> file : files.entrySet()) {
+                results.add(executor.submit(new Callable<Result>() {
+                    @Override
+                    public Result call() throws IOException {
+                        return copy(file.getValue(), file.getKey());
+                    }
+                }));
+            }
+            for (Future<Result> result : results) {
+                counts[get(result).ordinal()]++;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        log.info("copyDependencies copied " + counts[Result.COPIED.ordinal()] + ", linked " + counts[Result.LINKED.ordinal()]
+                + " and kept " + counts[Result.UNCHANGED.ordinal()] + " unchanged files in " + (System.currentTimeMillis() - start) + " ms.");
+        files.clear();
+    }
+
+    private Result copy(File source, File target) throws IOException {
+        if (target.isFile() && (Files.isSameFile(source.toPath(), target.toPath())
+                || (target.length() == source.length() && DigestUtil.sha256(target).equals(DigestUtil.sha256(source))))) {
+            log.debug("copyDependencies kept the unchanged file " + target);
+            return Result.UNCHANGED;
+        }
+
+        File temp = File.createTempFile("." + target.getName(), ".tmp", target.getParentFile());
+        try {
+            if (link && linksSupported.get()) {
+                try {
+                    Files.delete(temp.toPath());
+                    Files.createLink(temp.toPath(), source.toPath());
+                    ConfigFileSync.replace(temp, target);
+                    log.debug("copyDependencies linked file " + source + " to " + target);
+                    return Result.LINKED;
+                } catch (UnsupportedOperationException | FileSystemException e) {
+                    log.debug("Unable to link " + target + ", copying the dependencies instead: " + e.getMessage());
+                    linksSupported.set(false);
+                }
+            }
+            Files.copy(source.toPath(), temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            ConfigFileSync.replace(temp, target);
+            log.debug("copyDependencies copied file " + source + " to " + target);
+            return Result.COPIED;
+        } finally {
+            temp.delete();
+        }
+    }
+
+    private static Result get(Future<Result> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while copying dependencies", e);
+        }
+    }
+
+}
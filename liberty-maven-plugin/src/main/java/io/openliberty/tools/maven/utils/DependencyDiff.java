@@ -0,0 +1,184 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Exclusion;
+
+/**
+ * Difference between two lists of declared dependencies, computed in linear
+ * time. Dependencies are matched on groupId:artifactId:type:classifier. A
+ * matched dependency is changed if its version, scope, optional flag,
+ * systemPath or exclusions differ. The order of the exclusions does not matter.
+ */
+public class DependencyDiff {
+
+    private final List<Dependency> added = new ArrayList<Dependency>();
+    private final List<Dependency> removed = new ArrayList<Dependency>();
+    private final List<Dependency> changed = new ArrayList<Dependency>();
+
+    // scopes of the changed dependencies before the change
+    private final List<String> previousScopes = new ArrayList<String>();
+
+    public DependencyDiff(List<Dependency> oldDependencies, List<Dependency> newDependencies) {
+        Map<String, Dependency> oldByKey = index(oldDependencies);
+        Map<String, Dependency> newByKey = index(newDependencies);
+
+        for (Map.Entry<String, Dependency> entry : newByKey.entrySet()) {
+            Dependency oldDependency = oldByKey.get(entry.getKey());
+            Dependency newDependency = entry.getValue();
+            if (oldDependency == null) {
+                added.add(newDependency);
+            } else if (!Objects.equals(oldDependency.getVersion(), newDependency.getVersion())
+                    || !Objects.equals(getScope(oldDependency), getScope(newDependency))
+                    || oldDependency.isOptional() != newDependency.isOptional()
+                    || !Objects.equals(oldDependency.getSystemPath(), newDependency.getSystemPath())
+                    || !getExclusions(oldDependency).equals(getExclusions(newDependency))) {
+                changed.add(newDependency);
+                previousScopes.add(getScope(oldDependency));
+            }
+        }
+        for (Map.Entry<String, Dependency> entry : oldByKey.entrySet()) {
+            if (!newByKey.containsKey(entry.getKey())) {
+                removed.add(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Get the key of a dependency without its version.
+     *
+     * @param dependency the dependency
+     * @return groupId:artifactId:type:classifier
+     */
+    public static String getVersionlessKey(Dependency dependency) {
+        return dependency.getGroupId() + ":" + dependency.getArtifactId() + ":" + dependency.getType() + ":"
+                + (dependency.getClassifier() == null ? "" : dependency.getClassifier());
+    }
+
+    /**
+     * Get the key of a dependency including its version.
+     *
+     * @param dependency the dependency
+     * @return groupId:artifactId:type:classifier:version
+     */
+    public static String getKey(Dependency dependency) {
+        return getVersionlessKey(dependency) + ":" + dependency.getVersion();
+    }
+
+    private static Map<String, Dependency> index(List<Dependency> dependencies) {
+        Map<String, Dependency> index = new LinkedHashMap<String, Dependency>();
+        if (dependencies != null) {
+            for (Dependency dependency : dependencies) {
+                index.put(getVersionlessKey(dependency), dependency);
+            }
+        }
+        return index;
+    }
+
+    private static Set<String> getExclusions(Dependency dependency) {
+        Set<String> exclusions = new HashSet<String>();
+        for (Exclusion exclusion : dependency.getExclusions()) {
+            exclusions.add(exclusion.getGroupId() + ":" + exclusion.getArtifactId());
+        }
+        return exclusions;
+    }
+
+    private static String getScope(Dependency dependency) {
+        return dependency.getScope() == null ? "compile" : dependency.getScope();
+    }
+
+    /**
+     * @return dependencies that are only in the new list
+     */
+    public List<Dependency> getAdded() {
+        return Collections.unmodifiableList(added);
+    }
+
+    /**
+     * @return dependencies that are only in the old list
+     */
+    public List<Dependency> getRemoved() {
+        return Collections.unmodifiableList(removed);
+    }
+
+    /**
+     * @return dependencies from the new list whose version, scope, optional flag, systemPath or exclusions changed
+     */
+    public List<Dependency> getChanged() {
+        return Collections.unmodifiableList(changed);
+    }
+
+    /**
+     * @return added and changed dependencies from the new list
+     */
+    public List<Dependency> getAddedOrChanged() {
+        List<Dependency> dependencies = new ArrayList<Dependency>(added);
+        dependencies.addAll(changed);
+        return dependencies;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    /**
+     * @param type the dependency type, e.g. esa
+     * @return true if any added, removed or changed dependency has the given type
+     */
+    public boolean hasChangesOfType(String type) {
+        return containsType(added, type) || containsType(removed, type) || containsType(changed, type);
+    }
+
+    /**
+     * @param scope the dependency scope, where no scope means compile
+     * @return true if any added or removed dependency, or either side of a
+     *         changed dependency, has the given scope
+     */
+    public boolean hasChangesInScope(String scope) {
+        // a dependency that moved out of the scope is also a change in it
+        return containsScope(added, scope) || containsScope(removed, scope) || containsScope(changed, scope)
+                || previousScopes.contains(scope);
+    }
+
+    private static boolean containsType(List<Dependency> dependencies, String type) {
+        for (Dependency dependency : dependencies) {
+            if (type.equals(dependency.getType())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsScope(List<Dependency> dependencies, String scope) {
+        for (Dependency dependency : dependencies) {
+            if (scope.equals(getScope(dependency))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
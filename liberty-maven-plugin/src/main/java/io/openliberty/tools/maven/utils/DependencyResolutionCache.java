@@ -0,0 +1,461 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.maven.RepositoryUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.ArtifactHandler;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.ArtifactTypeRegistry;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.DependencyCollectionException;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.resolution.DependencyRequest;
+import org.eclipse.aether.resolution.DependencyResolutionException;
+import org.eclipse.aether.resolution.DependencyResult;
+
+/**
+ * Cache of resolved project dependencies, keyed on a hash of the effective
+ * dependency section of the project. Entries are kept in memory for the
+ * current project and persisted to a cache directory so that reverting a
+ * pom.xml change does not resolve the dependencies again. When the
+ * dependencies change, the dependency graph is collected in one request, and
+ * only the distinct artifacts that the previous project did not resolve are
+ * resolved, on several threads.
+ */
+public class DependencyResolutionCache {
+
+    // number of artifacts resolved concurrently
+    private static final int RESOLVER_THREADS = 5;
+
+    private static final int MAX_ENTRIES = 10;
+    private static final String CACHE_FILE_EXTENSION = ".deps";
+    private static final String SEPARATOR = "\t";
+
+    private final RepositorySystem repositorySystem;
+    private final RepositorySystemSession repoSession;
+    private final File cacheDirectory;
+    private final Log log;
+
+    public DependencyResolutionCache(RepositorySystem repositorySystem, RepositorySystemSession repoSession,
+            File cacheDirectory, Log log) {
+        this.repositorySystem = repositorySystem;
+        this.repoSession = repoSession;
+        this.cacheDirectory = cacheDirectory;
+        this.log = log;
+    }
+
+    /**
+     * Get the cache key of a project. The key covers the project coordinates,
+     * the declared dependencies in order and the dependency management section.
+     *
+     * @param project the Maven project
+     * @return SHA-256 hex string
+     */
+    public static String getKey(MavenProject project) {
+        MessageDigest digest = DigestUtil.newDigest();
+        DigestUtil.update(digest, project.getGroupId() + ":" + project.getArtifactId() + ":" + project.getVersion());
+        for (Dependency dependency : project.getDependencies()) {
+            DigestUtil.update(digest, getDependencyKey(dependency));
+        }
+        DigestUtil.update(digest, getManagementKey(project));
+        return DigestUtil.toHex(digest.digest());
+    }
+
+    /**
+     * Get a key that identifies every part of a declared dependency that
+     * affects its resolution.
+     *
+     * @param dependency the dependency
+     * @return the dependency key
+     */
+    public static String getDependencyKey(Dependency dependency) {
+        StringBuilder key = new StringBuilder();
+        key.append(dependency.getGroupId()).append(':').append(dependency.getArtifactId()).append(':')
+                .append(dependency.getType()).append(':').append(dependency.getClassifier()).append(':')
+                .append(dependency.getVersion()).append(':').append(dependency.getScope()).append(':')
+                .append(dependency.isOptional()).append(':').append(dependency.getSystemPath());
+        for (Exclusion exclusion : dependency.getExclusions()) {
+            key.append(":!").append(exclusion.getGroupId()).append(':').append(exclusion.getArtifactId());
+        }
+        return key.toString();
+    }
+
+    private static String getManagementKey(MavenProject project) {
+        MessageDigest digest = DigestUtil.newDigest();
+        DependencyManagement dependencyManagement = project.getDependencyManagement();
+        if (dependencyManagement != null) {
+            for (Dependency dependency : dependencyManagement.getDependencies()) {
+                DigestUtil.update(digest, getDependencyKey(dependency));
+            }
+        }
+        return DigestUtil.toHex(digest.digest());
+    }
+
+    /**
+     * Set the resolved artifacts of a project that was built without
+     * dependency resolution. If the dependency section is unchanged from the
+     * previous project or a persisted entry exists for it, the cached
+     * artifacts are used. Otherwise all dependencies are collected and
+     * resolved together, so that the version of each artifact is mediated
+     * across all dependencies as in a Maven build.
+     *
+     * @param project the project built without dependency resolution
+     * @param previousProject the project before the change, or null
+     * @throws DependencyResolutionException if the dependencies cannot be resolved
+     */
+    public void resolve(MavenProject project, MavenProject previousProject) throws DependencyResolutionException {
+        long start = System.currentTimeMillis();
+        String key = getKey(project);
+
+        if (previousProject != null && key.equals(getKey(previousProject))) {
+            log.debug("Dependencies are unchanged, reusing the resolved artifacts of the current project");
+            setArtifacts(project, new LinkedHashSet<Artifact>(previousProject.getArtifacts()));
+            return;
+        }
+
+        Set<Artifact> artifacts = load(key);
+        if (artifacts != null) {
+            log.debug("Loaded " + artifacts.size() + " resolved artifacts from the dependency cache in "
+                    + (System.currentTimeMillis() - start) + " ms");
+            setArtifacts(project, artifacts);
+            return;
+        }
+
+        artifacts = resolveDependencies(project, previousProject);
+        setArtifacts(project, artifacts);
+        log.debug("Resolved " + project.getDependencies().size() + " dependencies to " + artifacts.size() + " artifacts in "
+                + (System.currentTimeMillis() - start) + " ms");
+        try {
+            store(key, artifacts);
+        } catch (IOException e) {
+            log.debug("Unable to write the dependency cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Persist the resolved artifacts of a project, e.g. the project resolved by
+     * Maven when the build started.
+     *
+     * @param project a project with resolved dependencies
+     * @throws IOException if the cache entry cannot be written
+     */
+    public void store(MavenProject project) throws IOException {
+        store(getKey(project), project.getArtifacts());
+    }
+
+    private Set<Artifact> resolveDependencies(MavenProject project, MavenProject previousProject) throws DependencyResolutionException {
+        ArtifactTypeRegistry stereotypes = repoSession.getArtifactTypeRegistry();
+        CollectRequest collectRequest = new CollectRequest();
+        collectRequest.setRootArtifact(RepositoryUtils.toArtifact(project.getArtifact()));
+        collectRequest.setRepositories(project.getRemoteProjectRepositories());
+        for (Dependency dependency : project.getDependencies()) {
+            collectRequest.addDependency(RepositoryUtils.toDependency(dependency, stereotypes));
+        }
+        DependencyManagement dependencyManagement = project.getDependencyManagement();
+        if (dependencyManagement != null) {
+            for (Dependency dependency : dependencyManagement.getDependencies()) {
+                collectRequest.addManagedDependency(RepositoryUtils.toDependency(dependency, stereotypes));
+            }
+        }
+
+        DependencyNode root;
+        try {
+            root = repositorySystem.collectDependencies(repoSession, collectRequest).getRoot();
+
+            // the same artifact can be reached through several dependencies
+            Map<String, org.eclipse.aether.artifact.Artifact> uniqueArtifacts = new LinkedHashMap<String, org.eclipse.aether.artifact.Artifact>();
+            collectArtifacts(root.getChildren(), uniqueArtifacts);
+            Map<String, File> files = getResolvedFiles(previousProject);
+            List<org.eclipse.aether.artifact.Artifact> unresolved = new ArrayList<org.eclipse.aether.artifact.Artifact>();
+            for (Map.Entry<String, org.eclipse.aether.artifact.Artifact> artifact : uniqueArtifacts.entrySet()) {
+                if (!files.containsKey(artifact.getKey())) {
+                    unresolved.add(artifact.getValue());
+                }
+            }
+            log.debug("Resolving " + unresolved.size() + " of " + uniqueArtifacts.size() + " artifacts, the others were resolved before");
+            for (ArtifactResult result : resolveArtifacts(unresolved, project.getRemoteProjectRepositories())) {
+                files.put(getKey(result.getArtifact()), result.getArtifact().getFile());
+            }
+            setFiles(root.getChildren(), files);
+        } catch (DependencyCollectionException | ArtifactResolutionException e) {
+            throw new DependencyResolutionException(new DependencyResult(new DependencyRequest(collectRequest, null)), e);
+        }
+
+        Set<Artifact> artifacts = new LinkedHashSet<Artifact>();
+        RepositoryUtils.toArtifacts(artifacts, root.getChildren(),
+                Collections.singletonList(project.getArtifact().getId()), null);
+        return artifacts;
+    }
+
+    private static String getKey(org.eclipse.aether.artifact.Artifact artifact) {
+        return artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getExtension() + ":"
+                + artifact.getClassifier() + ":" + artifact.getBaseVersion();
+    }
+
+    private static void collectArtifacts(List<DependencyNode> nodes, Map<String, org.eclipse.aether.artifact.Artifact> artifacts) {
+        for (DependencyNode node : nodes) {
+            String key = getKey(node.getArtifact());
+            if (!artifacts.containsKey(key)) {
+                artifacts.put(key, node.getArtifact());
+                collectArtifacts(node.getChildren(), artifacts);
+            }
+        }
+    }
+
+    private static void setFiles(List<DependencyNode> nodes, Map<String, File> files) {
+        for (DependencyNode node : nodes) {
+            File file = files.get(getKey(node.getArtifact()));
+            if (file != null && node.getArtifact().getFile() == null) {
+                node.setArtifact(node.getArtifact().setFile(file));
+                setFiles(node.getChildren(), files);
+            }
+        }
+    }
+
+    // the files of the artifacts that the previous project resolved, by artifact key
+    private static Map<String, File> getResolvedFiles(MavenProject previousProject) {
+        Map<String, File> files = new HashMap<String, File>();
+        if (previousProject == null) {
+            return files;
+        }
+        for (Artifact artifact : previousProject.getArtifacts()) {
+            if (artifact.getFile() != null && artifact.getFile().exists()) {
+                files.put(getKey(RepositoryUtils.toArtifact(artifact)), artifact.getFile());
+            }
+        }
+        return files;
+    }
+
+    private List<ArtifactResult> resolveArtifacts(List<org.eclipse.aether.artifact.Artifact> artifacts,
+            final List<org.eclipse.aether.repository.RemoteRepository> repositories) throws ArtifactResolutionException {
+        List<ArtifactResult> results = new ArrayList<ArtifactResult>();
+        if (artifacts.isEmpty()) {
+            return results;
+        }
+        ExecutorService resolver = Executors.newFixedThreadPool(Math.min(artifacts.size(), RESOLVER_THREADS));
+        try {
+            List<Future<ArtifactResult>> futures = new ArrayList<Future<ArtifactResult>>();
+            for (final org.eclipse.aether.artifact.Artifact artifact : artifacts) {
+                futures.add(resolver.submit(new Callable<ArtifactResult>() {
+                    @Override
+                    public ArtifactResult call() throws ArtifactResolutionException {
+                        return repositorySystem.resolveArtifact(repoSession, new ArtifactRequest(artifact, repositories, null));
+                    }
+                }));
+            }
+            for (Future<ArtifactResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof ArtifactResolutionException) {
+                        throw (ArtifactResolutionException) e.getCause();
+                    }
+                    throw new IllegalStateException(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while resolving dependencies", e);
+                }
+            }
+        } finally {
+            resolver.shutdownNow();
+        }
+        return results;
+    }
+
+    private static void setArtifacts(MavenProject project, Set<Artifact> artifacts) {
+        project.setResolvedArtifacts(artifacts);
+        project.setArtifacts(artifacts);
+    }
+
+    private Set<Artifact> load(String key) {
+        File cacheFile = new File(cacheDirectory, key + CACHE_FILE_EXTENSION);
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+        Set<Artifact> artifacts = new LinkedHashSet<Artifact>();
+        try {
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(cacheFile), StandardCharsets.UTF_8));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    Artifact artifact = readArtifact(line);
+                    if (artifact.getFile() == null || !artifact.getFile().exists()) {
+                        log.debug("Cached artifact " + artifact + " is no longer available");
+                        return null;
+                    }
+                    artifacts.add(artifact);
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Ignoring unreadable dependency cache entry " + cacheFile + ": " + e.getMessage());
+            return null;
+        }
+        cacheFile.setLastModified(System.currentTimeMillis());
+        return artifacts;
+    }
+
+    private void store(String key, Set<Artifact> artifacts) throws IOException {
+        if (!cacheDirectory.exists() && !cacheDirectory.mkdirs()) {
+            throw new IOException("Unable to create directory " + cacheDirectory);
+        }
+        File cacheFile = new File(cacheDirectory, key + CACHE_FILE_EXTENSION);
+        File tempFile = new File(cacheDirectory, key + ".tmp");
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8));
+        try {
+            for (Artifact artifact : artifacts) {
+                writer.println(writeArtifact(artifact));
+            }
+        } finally {
+            writer.close();
+        }
+        Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        prune();
+    }
+
+    private void prune() {
+        File[] entries = cacheDirectory.listFiles();
+        if (entries == null) {
+            return;
+        }
+        List<File> cacheFiles = new ArrayList<File>();
+        for (File entry : entries) {
+            if (entry.getName().endsWith(CACHE_FILE_EXTENSION)) {
+                cacheFiles.add(entry);
+            }
+        }
+        if (cacheFiles.size() <= MAX_ENTRIES) {
+            return;
+        }
+        Collections.sort(cacheFiles, new Comparator<File>() {
+            @Override
+            public int compare(File f1, File f2) {
+                return Long.compare(f2.lastModified(), f1.lastModified());
+            }
+        });
+        for (File cacheFile : cacheFiles.subList(MAX_ENTRIES, cacheFiles.size())) {
+            if (!cacheFile.delete()) {
+                log.debug("Unable to delete old dependency cache entry " + cacheFile);
+            }
+        }
+    }
+
+    private static String writeArtifact(Artifact artifact) {
+        ArtifactHandler handler = artifact.getArtifactHandler();
+        List<String> trail = artifact.getDependencyTrail();
+        StringBuilder trailString = new StringBuilder();
+        if (trail != null) {
+            for (String id : trail) {
+                if (trailString.length() > 0) {
+                    trailString.append(',');
+                }
+                trailString.append(id);
+            }
+        }
+        String[] fields = new String[] { artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion(),
+                artifact.getType(), nullToEmpty(artifact.getClassifier()), nullToEmpty(artifact.getScope()),
+                Boolean.toString(artifact.isOptional()),
+                artifact.getFile() == null ? "" : artifact.getFile().getAbsolutePath(), trailString.toString(),
+                handler.getExtension(), nullToEmpty(handler.getLanguage()),
+                Boolean.toString(handler.isAddedToClasspath()), Boolean.toString(handler.isIncludesDependencies()) };
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                line.append(SEPARATOR);
+            }
+            line.append(fields[i]);
+        }
+        return line.toString();
+    }
+
+    private static Artifact readArtifact(String line) throws IOException {
+        String[] fields = line.split(SEPARATOR, -1);
+        if (fields.length != 13) {
+            throw new IOException("Invalid cache line: " + line);
+        }
+        DefaultArtifactHandler handler = new DefaultArtifactHandler(fields[3]);
+        handler.setExtension(fields[9]);
+        handler.setLanguage(emptyToNull(fields[10]));
+        handler.setAddedToClasspath(Boolean.parseBoolean(fields[11]));
+        handler.setIncludesDependencies(Boolean.parseBoolean(fields[12]));
+
+        Artifact artifact = new DefaultArtifact(fields[0], fields[1], VersionRange.createFromVersion(fields[2]),
+                emptyToNull(fields[5]), fields[3], emptyToNull(fields[4]), handler, Boolean.parseBoolean(fields[6]));
+        if (!fields[7].isEmpty()) {
+            artifact.setFile(new File(fields[7]));
+            artifact.setResolved(true);
+        }
+        if (!fields[8].isEmpty()) {
+            artifact.setDependencyTrail(new ArrayList<String>(Arrays.asList(fields[8].split(","))));
+        }
+        return artifact;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+}
@@ -0,0 +1,138 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.maven.artifact.Artifact;
+
+/**
+ * An index of the resolved artifacts of a project by groupId:artifactId, and
+ * of the artifacts whose dependency trail passes through each
+ * groupId:artifactId, so that the artifacts and transitive dependencies of a
+ * dependency are found without scanning all artifacts and their trails.
+ */
+public class DependencyTrailIndex {
+
+    private static class TrailEntry {
+        private final String coordinates;
+        private final Artifact artifact;
+
+        private TrailEntry(String coordinates, Artifact artifact) {
+            this.coordinates = coordinates;
+            this.artifact = artifact;
+        }
+    }
+
+    private final Set<Artifact> artifacts;
+    private final int size;
+
+    // groupId:artifactId -> artifacts, sorted for artifactId prefix queries
+    private final TreeMap<String, List<Artifact>> artifactsByKey = new TreeMap<String, List<Artifact>>();
+
+    // groupId:artifactId -> the trail entries of that artifact, with the artifact whose trail contains it
+    private final Map<String, List<TrailEntry>> trailsByKey = new HashMap<String, List<TrailEntry>>();
+
+    /**
+     * @param artifacts the resolved artifacts of the project
+     */
+    public DependencyTrailIndex(Set<Artifact> artifacts) {
+        this.artifacts = artifacts;
+        this.size = artifacts.size();
+        for (Artifact artifact : artifacts) {
+            getList(artifactsByKey, artifact.getGroupId() + ":" + artifact.getArtifactId()).add(artifact);
+            List<String> trail = artifact.getDependencyTrail();
+            if (trail != null) {
+                for (String coordinates : trail) {
+                    int groupEnd = coordinates.indexOf(':');
+                    int artifactEnd = groupEnd < 0 ? -1 : coordinates.indexOf(':', groupEnd + 1);
+                    if (artifactEnd > 0) {
+                        getList(trailsByKey, coordinates.substring(0, artifactEnd)).add(new TrailEntry(coordinates, artifact));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param artifacts the resolved artifacts of the project
+     * @return true if this index was built from the same set of artifacts
+     */
+    public boolean isIndexOf(Set<Artifact> artifacts) {
+        return this.artifacts == artifacts && size == artifacts.size();
+    }
+
+    /**
+     * @param groupId the groupId
+     * @param artifactIdPrefix the artifactId prefix, or an empty string to match all artifacts of the group
+     * @return the artifacts of the group whose artifactId starts with the prefix
+     */
+    public List<Artifact> getArtifactsByPrefix(String groupId, String artifactIdPrefix) {
+        String from = groupId + ":" + artifactIdPrefix;
+        List<Artifact> result = new ArrayList<Artifact>();
+        for (List<Artifact> matches : artifactsByKey.subMap(from, true, from + Character.MAX_VALUE, false).values()) {
+            result.addAll(matches);
+        }
+        return result;
+    }
+
+    /**
+     * @return the artifacts with the groupId and artifactId
+     */
+    public List<Artifact> getArtifacts(String groupId, String artifactId) {
+        List<Artifact> matches = artifactsByKey.get(groupId + ":" + artifactId);
+        return matches == null ? Collections.<Artifact>emptyList() : matches;
+    }
+
+    /**
+     * @param groupId the groupId of an artifact
+     * @param artifactId the artifactId of an artifact
+     * @param version the version of the artifact, or null for any version
+     * @return the artifacts whose dependency trail contains the artifact, including the artifact itself
+     */
+    public List<Artifact> getArtifactsWithTrailThrough(String groupId, String artifactId, String version) {
+        List<TrailEntry> entries = trailsByKey.get(groupId + ":" + artifactId);
+        if (entries == null) {
+            return Collections.emptyList();
+        }
+        List<Artifact> result = new ArrayList<Artifact>();
+        Artifact previous = null;
+        for (TrailEntry entry : entries) {
+            // entries of the same artifact are adjacent
+            if (entry.artifact != previous && (version == null || entry.coordinates.endsWith(":" + version))) {
+                result.add(entry.artifact);
+                previous = entry.artifact;
+            }
+        }
+        return result;
+    }
+
+    private static <T> List<T> getList(Map<String, List<T>> map, String key) {
+        List<T> list = map.get(key);
+        if (list == null) {
+            list = new ArrayList<T>();
+            map.put(key, list);
+        }
+        return list;
+    }
+
+}
@@ -0,0 +1,218 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Records the wall time of dev mode cycles and of the phases within them,
+ * such as plugin goals, compilation and test runs. A cycle is started by a
+ * trigger, e.g. a source change, on the current thread, and phases recorded on
+ * that thread are added to it. When the cycle ends, a breakdown is logged and
+ * appended to a rolling CSV file and a rolling JSON lines file.
+ */
+public class DevModeMetrics {
+
+    private static final long MAX_LOG_SIZE = 1024 * 1024;
+
+    private static class Phase {
+        private final String name;
+        private final long millis;
+
+        private Phase(String name, long millis) {
+            this.name = name;
+            this.millis = millis;
+        }
+    }
+
+    private static class Cycle {
+        private final int id;
+        private final String trigger;
+        private final long start = System.currentTimeMillis();
+        private final List<Phase> phases = new ArrayList<Phase>();
+        private int depth = 1;
+
+        private Cycle(int id, String trigger) {
+            this.id = id;
+            this.trigger = trigger;
+        }
+    }
+
+    private final File metricsDirectory;
+    private final boolean report;
+    private final Log log;
+    private final AtomicInteger cycleIds = new AtomicInteger();
+    private final ThreadLocal<Cycle> currentCycle = new ThreadLocal<Cycle>();
+
+    /**
+     * @param metricsDirectory directory for the metrics logs, or null to not write logs
+     * @param report whether to log the breakdown of each cycle at info level instead of debug
+     * @param log the logger
+     */
+    public DevModeMetrics(File metricsDirectory, boolean report, Log log) {
+        this.metricsDirectory = metricsDirectory;
+        this.report = report;
+        this.log = log;
+    }
+
+    /**
+     * Start a cycle on the current thread. If a cycle is already active on
+     * this thread, the new cycle is nested in it and ends with it.
+     *
+     * @param trigger what started the cycle
+     */
+    public void beginCycle(String trigger) {
+        Cycle cycle = currentCycle.get();
+        if (cycle != null) {
+            cycle.depth++;
+        } else {
+            currentCycle.set(new Cycle(cycleIds.incrementAndGet(), trigger));
+        }
+    }
+
+    /**
+     * End the cycle on the current thread, report its breakdown and write it
+     * to the metrics logs.
+     */
+    public void endCycle() {
+        Cycle cycle = currentCycle.get();
+        if (cycle == null || --cycle.depth > 0) {
+            return;
+        }
+        currentCycle.remove();
+        long total = System.currentTimeMillis() - cycle.start;
+
+        StringBuilder breakdown = new StringBuilder();
+        breakdown.append("Dev mode cycle ").append(cycle.id).append(" (").append(cycle.trigger).append(") took ")
+                .append(total).append(" ms");
+        for (Phase phase : cycle.phases) {
+            breakdown.append("\n    ").append(phase.name).append(": ").append(phase.millis).append(" ms");
+        }
+        if (report) {
+            log.info(breakdown.toString());
+        } else {
+            log.debug(breakdown.toString());
+        }
+
+        if (metricsDirectory != null) {
+            try {
+                write(cycle, total);
+            } catch (IOException e) {
+                log.debug("Unable to write dev mode metrics to " + metricsDirectory + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Record a phase of the cycle on the current thread. Phases outside of a
+     * cycle are only logged at debug level.
+     *
+     * @param name the phase name
+     * @param millis the wall time of the phase
+     */
+    public void record(String name, long millis) {
+        Cycle cycle = currentCycle.get();
+        if (cycle != null) {
+            cycle.phases.add(new Phase(name, millis));
+        } else {
+            log.debug(name + " took " + millis + " ms");
+        }
+    }
+
+    private synchronized void write(Cycle cycle, long total) throws IOException {
+        if (!metricsDirectory.exists() && !metricsDirectory.mkdirs()) {
+            throw new IOException("Unable to create directory " + metricsDirectory);
+        }
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        String timestamp = format.format(new Date(cycle.start));
+
+        File csvFile = roll(new File(metricsDirectory, "phases.csv"));
+        boolean header = !csvFile.exists();
+        PrintWriter csv = open(csvFile);
+        try {
+            if (header) {
+                csv.println("cycle,timestamp,trigger,phase,millis");
+            }
+            csv.println(cycle.id + "," + timestamp + "," + csvValue(cycle.trigger) + ",total," + total);
+            for (Phase phase : cycle.phases) {
+                csv.println(cycle.id + "," + timestamp + "," + csvValue(cycle.trigger) + "," + csvValue(phase.name) + ","
+                        + phase.millis);
+            }
+        } finally {
+            csv.close();
+        }
+
+        PrintWriter json = open(roll(new File(metricsDirectory, "cycles.jsonl")));
+        try {
+            StringBuilder line = new StringBuilder();
+            line.append("{\"cycle\":").append(cycle.id).append(",\"timestamp\":\"").append(timestamp)
+                    .append("\",\"trigger\":\"").append(jsonValue(cycle.trigger)).append("\",\"millis\":").append(total)
+                    .append(",\"phases\":[");
+            for (int i = 0; i < cycle.phases.size(); i++) {
+                Phase phase = cycle.phases.get(i);
+                if (i > 0) {
+                    line.append(',');
+                }
+                line.append("{\"name\":\"").append(jsonValue(phase.name)).append("\",\"millis\":").append(phase.millis)
+                        .append('}');
+            }
+            line.append("]}");
+            json.println(line);
+        } finally {
+            json.close();
+        }
+    }
+
+    // keep one previous log when the current one grows too large
+    private static File roll(File file) {
+        if (file.length() > MAX_LOG_SIZE) {
+            File previous = new File(file.getParentFile(), file.getName() + ".1");
+            previous.delete();
+            file.renameTo(previous);
+        }
+        return file;
+    }
+
+    private static PrintWriter open(File file) throws IOException {
+        return new PrintWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+    }
+
+    private static String csvValue(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String jsonValue(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+}
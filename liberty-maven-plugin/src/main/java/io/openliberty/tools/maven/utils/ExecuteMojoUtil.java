@@ -25,6 +25,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 
 import org.apache.maven.model.Plugin;
 import org.apache.maven.model.PluginExecution;
@@ -238,6 +239,33 @@ public class ExecuteMojoUtil {
         return config;
     }
     
+    /**
+     * Set forkCount and reuseForks in a surefire or failsafe goal configuration
+     * unless they are already configured, either in the configuration or as
+     * properties such as -DforkCount on the command line.
+     *
+     * @param config the goal configuration
+     * @param forkCount the forkCount to set
+     * @param properties the user, system and project properties
+     */
+    public static void setDefaultForkSettings(Xpp3Dom config, int forkCount, Properties... properties) {
+        if (config.getChild("forkCount") == null && !isPropertySet("forkCount", properties)) {
+            config.addChild(element(name("forkCount"), String.valueOf(forkCount)).toDom());
+        }
+        if (config.getChild("reuseForks") == null && !isPropertySet("reuseForks", properties)) {
+            config.addChild(element(name("reuseForks"), "true").toDom());
+        }
+    }
+
+    private static boolean isPropertySet(String name, Properties... properties) {
+        for (Properties p : properties) {
+            if (p != null && p.getProperty(name) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static Xpp3Dom validateConfiguration(Plugin plugin, String goal, Xpp3Dom config, Log log) {
         Xpp3Dom goalConfig;
         String executionGoal = plugin.getArtifactId() + ":" + goal;
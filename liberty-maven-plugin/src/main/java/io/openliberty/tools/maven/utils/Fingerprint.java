@@ -0,0 +1,116 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Builds a SHA-256 fingerprint from values and file contents.
+ */
+public class Fingerprint {
+
+    private final MessageDigest digest = DigestUtil.newDigest();
+
+    public Fingerprint add(Object value) {
+        DigestUtil.update(digest, value == null ? null : value.toString());
+        return this;
+    }
+
+    /**
+     * Add the entries of a map in key order.
+     *
+     * @param map the map to add, may be null
+     * @return this fingerprint
+     */
+    public Fingerprint add(Map<?, ?> map) {
+        if (map == null) {
+            return add((Object) null);
+        }
+        Map<String, String> sorted = new TreeMap<String, String>();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            sorted.put(String.valueOf(entry.getKey()), String.valueOf(entry.getValue()));
+        }
+        for (Map.Entry<String, String> entry : sorted.entrySet()) {
+            add(entry.getKey()).add(entry.getValue());
+        }
+        return this;
+    }
+
+    /**
+     * Add the properties with a prefix in key order. A property in a later set
+     * of properties overrides the same property in an earlier set, e.g. user
+     * properties override project properties.
+     *
+     * @param prefix the prefix of the properties to add
+     * @param properties the sets of properties, null sets are ignored
+     * @return this fingerprint
+     */
+    public Fingerprint addProperties(String prefix, Properties... properties) {
+        Map<String, String> selected = new TreeMap<String, String>();
+        for (Properties set : properties) {
+            if (set != null) {
+                for (String key : set.stringPropertyNames()) {
+                    if (key.startsWith(prefix)) {
+                        selected.put(key, set.getProperty(key));
+                    }
+                }
+            }
+        }
+        return add(selected);
+    }
+
+    /**
+     * Add the contents of a file, or the relative paths and contents of all files
+     * in a directory. A missing file is added as a marker value.
+     *
+     * @param file the file or directory, may be null
+     * @return this fingerprint
+     * @throws IOException if a file cannot be read
+     */
+    public Fingerprint addFile(File file) throws IOException {
+        if (file == null || !file.exists()) {
+            return add("<missing>");
+        }
+        addFile(file, "");
+        return this;
+    }
+
+    private void addFile(File file, String path) throws IOException {
+        if (file.isDirectory()) {
+            add(path + "/");
+            File[] children = file.listFiles();
+            if (children != null) {
+                Arrays.sort(children);
+                for (File child : children) {
+                    addFile(child, path + "/" + child.getName());
+                }
+            }
+        } else {
+            add(path).add(file.length()).add(DigestUtil.sha256(file));
+        }
+    }
+
+    public String getValue() {
+        return DigestUtil.toHex(digest.digest());
+    }
+
+}
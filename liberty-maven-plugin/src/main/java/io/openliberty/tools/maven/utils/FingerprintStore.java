@@ -0,0 +1,124 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Fingerprints of named inputs, persisted as a properties file.
+ */
+public class FingerprintStore {
+
+    private final File file;
+    private final Log log;
+    private final Properties fingerprints = new Properties();
+
+    public FingerprintStore(File file, Log log) {
+        this.file = file;
+        this.log = log;
+        if (file.isFile()) {
+            try {
+                InputStream in = new FileInputStream(file);
+                try {
+                    fingerprints.load(in);
+                } finally {
+                    in.close();
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                log.debug("Unable to read fingerprints from " + file + ": " + e.getMessage());
+                fingerprints.clear();
+            }
+        }
+    }
+
+    /**
+     * @param key the name of the inputs
+     * @param fingerprint the current fingerprint of the inputs
+     * @return true if the stored fingerprint equals the current one
+     */
+    public boolean matches(String key, String fingerprint) {
+        return fingerprint != null && fingerprint.equals(fingerprints.getProperty(key));
+    }
+
+    public String get(String key) {
+        return fingerprints.getProperty(key);
+    }
+
+    /**
+     * Store a fingerprint and save the store if the fingerprint changed.
+     *
+     * @param key the name of the inputs
+     * @param fingerprint the fingerprint of the inputs
+     */
+    public void put(String key, String fingerprint) {
+        if (!fingerprint.equals(fingerprints.setProperty(key, fingerprint))) {
+            save();
+        }
+    }
+
+    /**
+     * @return a copy of the names of the stored fingerprints
+     */
+    public Set<String> getKeys() {
+        return fingerprints.stringPropertyNames();
+    }
+
+    /**
+     * Remove a fingerprint and save the store.
+     *
+     * @param key the name of the inputs
+     */
+    public void remove(String key) {
+        if (fingerprints.remove(key) != null) {
+            save();
+        }
+    }
+
+    /**
+     * Remove all fingerprints and save the store.
+     */
+    public void clear() {
+        fingerprints.clear();
+        save();
+    }
+
+    private void save() {
+        try {
+            File parent = file.getParentFile();
+            if (parent != null && !parent.exists()) {
+                parent.mkdirs();
+            }
+            OutputStream out = new FileOutputStream(file);
+            try {
+                fingerprints.store(out, null);
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            log.debug("Unable to write fingerprints to " + file + ": " + e.getMessage());
+        }
+    }
+
+}
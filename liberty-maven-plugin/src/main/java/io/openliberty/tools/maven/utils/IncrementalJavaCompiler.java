@@ -0,0 +1,527 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Compiles a source directory in-process, recompiling only the sources that
+ * changed since the last compilation, the sources of their subclasses, and the
+ * sources of classes that reference any of them. Subclasses are recompiled
+ * because a member they inherit may have changed or disappeared. The compiler,
+ * file manager and the class dependency graph are kept between invocations.
+ * Compile-time constants are inlined into the classes that use them, so all
+ * sources are recompiled when a class that declares constants changes.
+ * Classes of another compiler, such as the main classes for the test
+ * compiler, are reported with {@link #classesChanged(Set, boolean)}.
+ */
+public class IncrementalJavaCompiler {
+
+    private final File sourceDirectory;
+    private final File outputDirectory;
+    private final Log log;
+    private final JavaCompiler compiler;
+
+    private StandardJavaFileManager fileManager;
+    private List<String> fileManagerClasspath;
+
+    // source path -> binary names of the classes generated from that source
+    private final Map<String, Set<String>> sourceClasses = new HashMap<String, Set<String>>();
+
+    // binary class name -> binary names of the classes it references
+    private final Map<String, Set<String>> classReferences = new HashMap<String, Set<String>>();
+
+    // binary class name -> binary names of its super class and interfaces
+    private final Map<String, Set<String>> classSupertypes = new HashMap<String, Set<String>>();
+
+    // binary names of the classes that declare compile-time constants
+    private final Set<String> constantClasses = new HashSet<String>();
+
+    // classes of the classpath that changed since the last compilation
+    private final Set<String> changedClasspathClasses = new HashSet<String>();
+    private boolean changedClasspathConstants = false;
+
+    // classes compiled or deleted by the last compilation, and whether they declare constants
+    private Set<String> lastChangedClasses = new HashSet<String>();
+    private boolean lastChangedConstants = false;
+
+    // source path -> last modified time of the source when it was last compiled
+    private final Map<String, Long> compiledSources = new HashMap<String, Long>();
+
+    private boolean initialized = false;
+
+    public IncrementalJavaCompiler(File sourceDirectory, File outputDirectory, Log log) {
+        this.sourceDirectory = sourceDirectory.getAbsoluteFile();
+        this.outputDirectory = outputDirectory.getAbsoluteFile();
+        this.log = log;
+        this.compiler = ToolProvider.getSystemJavaCompiler();
+    }
+
+    /**
+     * @return true if a system Java compiler is available, false if running on a JRE
+     */
+    public boolean isAvailable() {
+        return compiler != null;
+    }
+
+    /**
+     * Record classes of the classpath that changed, e.g. main classes compiled by
+     * another compiler, so that the sources that depend on them are compiled by
+     * the next compilation.
+     *
+     * @param classNames the binary names of the changed classes
+     * @param constants true if a changed class declares compile-time constants
+     */
+    public synchronized void classesChanged(Set<String> classNames, boolean constants) {
+        changedClasspathClasses.addAll(classNames);
+        changedClasspathConstants |= constants;
+    }
+
+    /**
+     * @return true if classes of the classpath changed since the last compilation
+     */
+    public synchronized boolean hasChangedClasspathClasses() {
+        return !changedClasspathClasses.isEmpty() || changedClasspathConstants;
+    }
+
+    /**
+     * @return the binary names of the classes compiled or deleted by the last compilation
+     */
+    public synchronized Set<String> getChangedClasses() {
+        return new HashSet<String>(lastChangedClasses);
+    }
+
+    /**
+     * @return true if a class compiled or deleted by the last compilation declares compile-time constants
+     */
+    public synchronized boolean hasChangedConstants() {
+        return lastChangedConstants;
+    }
+
+    /**
+     * Compile the sources that changed since the last invocation, together with
+     * the sources that depend on them.
+     *
+     * @param classpath the compile classpath elements
+     * @param options the javac options, e.g. from JavaCompilerOptions.getOptions()
+     * @return true if the compilation succeeded or nothing had to be compiled
+     * @throws IOException if the output directory cannot be read or written
+     */
+    public synchronized boolean compile(List<String> classpath, List<String> options) throws IOException {
+        long start = System.currentTimeMillis();
+        lastChangedClasses = new HashSet<String>();
+        lastChangedConstants = false;
+
+        List<File> sources = new ArrayList<File>();
+        listSourceFiles(sourceDirectory, sources);
+
+        if (!initialized) {
+            initialize(sources);
+        }
+
+        Set<String> currentSources = new HashSet<String>();
+        Set<String> changedSources = new HashSet<String>();
+        for (File source : sources) {
+            String path = source.getPath();
+            currentSources.add(path);
+            Long compiled = compiledSources.get(path);
+            if (compiled == null || compiled.longValue() != source.lastModified()) {
+                changedSources.add(path);
+            }
+        }
+
+        Set<String> deletedSources = new HashSet<String>(compiledSources.keySet());
+        deletedSources.removeAll(currentSources);
+
+        // classes whose definition changed or disappeared
+        Set<String> affectedClasses = new HashSet<String>();
+        for (String path : changedSources) {
+            addAll(affectedClasses, sourceClasses.get(path));
+        }
+        Set<String> deletedClasses = new HashSet<String>();
+        for (String path : deletedSources) {
+            addAll(deletedClasses, sourceClasses.get(path));
+        }
+        affectedClasses.addAll(deletedClasses);
+        String constantClass = getConstantClass(affectedClasses);
+        affectedClasses.addAll(changedClasspathClasses);
+
+        Set<String> dependentSources;
+        if (constantClass != null || changedClasspathConstants) {
+            log.debug("Recompiling all sources in " + sourceDirectory + " because "
+                    + (constantClass != null ? constantClass : "a class of the classpath") + " declares compile-time constants");
+            dependentSources = new HashSet<String>(currentSources);
+        } else {
+            dependentSources = getDependentSources(affectedClasses);
+        }
+        dependentSources.removeAll(changedSources);
+        dependentSources.removeAll(deletedSources);
+
+        for (String path : deletedSources) {
+            log.debug("Source file deleted: " + path);
+            deleteClasses(sourceClasses.remove(path));
+            compiledSources.remove(path);
+        }
+        lastChangedClasses.addAll(deletedClasses);
+        lastChangedConstants = constantClass != null;
+
+        List<File> compileSources = new ArrayList<File>();
+        for (String path : changedSources) {
+            compileSources.add(new File(path));
+        }
+        for (String path : dependentSources) {
+            compileSources.add(new File(path));
+        }
+        if (compileSources.isEmpty()) {
+            log.debug("No source files in " + sourceDirectory + " need to be compiled");
+            changedClasspathClasses.clear();
+            changedClasspathConstants = false;
+            return true;
+        }
+
+        boolean success = compileSources(compileSources, classpath, options);
+        if (success) {
+            changedClasspathClasses.clear();
+            changedClasspathConstants = false;
+            for (File source : compileSources) {
+                Set<String> classes = sourceClasses.get(source.getPath());
+                addAll(lastChangedClasses, classes);
+                lastChangedConstants |= getConstantClass(classes == null ? Collections.<String>emptySet() : classes) != null;
+            }
+            log.info("Compiled " + compileSources.size() + " source file(s) from " + sourceDirectory + " ("
+                    + changedSources.size() + " changed, " + dependentSources.size() + " dependent) in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        }
+        return success;
+    }
+
+    private boolean compileSources(List<File> sources, List<String> classpath, List<String> options)
+            throws IOException {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        final Map<String, Set<String>> generatedClasses = new HashMap<String, Set<String>>();
+
+        StandardJavaFileManager standardFileManager = getFileManager(classpath);
+        if (!outputDirectory.exists()) {
+            outputDirectory.mkdirs();
+        }
+        standardFileManager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singletonList(outputDirectory));
+
+        // record which classes are generated from which source file
+        JavaFileManager recordingFileManager = new ForwardingJavaFileManager<StandardJavaFileManager>(standardFileManager) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                    FileObject sibling) throws IOException {
+                if (kind == JavaFileObject.Kind.CLASS && sibling != null) {
+                    String path = new File(sibling.toUri()).getPath();
+                    Set<String> classes = generatedClasses.get(path);
+                    if (classes == null) {
+                        classes = new HashSet<String>();
+                        generatedClasses.put(path, classes);
+                    }
+                    classes.add(className);
+                }
+                return super.getJavaFileForOutput(location, className, kind, sibling);
+            }
+        };
+
+        log.debug("Compiling " + sources.size() + " source file(s) with options " + options + ": " + sources);
+        Iterable<? extends JavaFileObject> compilationUnits = standardFileManager.getJavaFileObjectsFromFiles(sources);
+        JavaCompiler.CompilationTask task = compiler.getTask(null, recordingFileManager, diagnostics, options, null,
+                compilationUnits);
+        boolean success = task.call();
+
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            String source = diagnostic.getSource() == null ? "" : diagnostic.getSource().getName() + ":["
+                    + diagnostic.getLineNumber() + "," + diagnostic.getColumnNumber() + "] ";
+            String message = source + diagnostic.getMessage(null);
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                log.error(message);
+            } else if (diagnostic.getKind() == Diagnostic.Kind.WARNING
+                    || diagnostic.getKind() == Diagnostic.Kind.MANDATORY_WARNING) {
+                log.warn(message);
+            } else {
+                log.debug(message);
+            }
+        }
+
+        if (!success) {
+            // leave the sources marked as changed so they are retried on the next compilation
+            return false;
+        }
+
+        for (File source : sources) {
+            String path = source.getPath();
+            Set<String> classes = generatedClasses.get(path);
+            if (classes == null) {
+                classes = new HashSet<String>();
+            }
+            Set<String> removedClasses = sourceClasses.get(path);
+            if (removedClasses != null) {
+                removedClasses = new HashSet<String>(removedClasses);
+                removedClasses.removeAll(classes);
+                deleteClasses(removedClasses);
+            }
+            sourceClasses.put(path, classes);
+            for (String className : classes) {
+                readClassReferences(className);
+            }
+            compiledSources.put(path, source.lastModified());
+        }
+        return true;
+    }
+
+    /**
+     * Build the dependency graph from the classes already in the output
+     * directory and mark every source that is older than its class file as
+     * compiled.
+     */
+    private void initialize(List<File> sources) {
+        long start = System.currentTimeMillis();
+        List<File> classFiles = new ArrayList<File>();
+        ClassDependencyUtil.listClassFiles(outputDirectory, classFiles);
+
+        Map<String, File> sourcesByTopLevelClass = new HashMap<String, File>();
+        for (File source : sources) {
+            sourcesByTopLevelClass.put(getTopLevelClassName(source), source);
+        }
+
+        for (File classFile : classFiles) {
+            String className = ClassDependencyUtil.getClassName(outputDirectory, classFile);
+            String sourceFile = readClassReferences(className);
+            // a source can declare several top level classes, which the SourceFile attribute maps to it
+            File source = null;
+            if (sourceFile != null && sourceFile.endsWith(".java")) {
+                int packageEnd = className.lastIndexOf('.');
+                String packagePrefix = packageEnd < 0 ? "" : className.substring(0, packageEnd + 1);
+                source = sourcesByTopLevelClass.get(packagePrefix + sourceFile.substring(0, sourceFile.length() - ".java".length()));
+            }
+            if (source == null) {
+                source = sourcesByTopLevelClass.get(ClassDependencyUtil.getTopLevelClassName(className));
+            }
+            if (source != null) {
+                Set<String> classes = sourceClasses.get(source.getPath());
+                if (classes == null) {
+                    classes = new HashSet<String>();
+                    sourceClasses.put(source.getPath(), classes);
+                }
+                classes.add(className);
+            }
+        }
+
+        for (File source : sources) {
+            if (isCompiled(source)) {
+                compiledSources.put(source.getPath(), source.lastModified());
+            }
+        }
+        initialized = true;
+        log.debug("Built class dependency graph for " + classFiles.size() + " classes in " + outputDirectory + " in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    // a source is compiled if all classes generated from it are newer than the source
+    private boolean isCompiled(File source) {
+        Set<String> classes = sourceClasses.get(source.getPath());
+        if (classes == null || classes.isEmpty()) {
+            return false;
+        }
+        for (String className : classes) {
+            if (new File(outputDirectory, className.replace('.', '/') + ".class").lastModified() < source.lastModified()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the sources of the subclasses of the affected classes, transitively, and
+     * the sources of the classes that reference the affected classes or their subclasses.
+     */
+    private Set<String> getDependentSources(Set<String> affectedClasses) {
+        Set<String> dependentSources = new HashSet<String>();
+        if (affectedClasses.isEmpty()) {
+            return dependentSources;
+        }
+        Map<String, String> classSources = new HashMap<String, String>();
+        for (Map.Entry<String, Set<String>> entry : sourceClasses.entrySet()) {
+            for (String className : entry.getValue()) {
+                classSources.put(className, entry.getKey());
+            }
+        }
+
+        Set<String> closure = getSubtypeClosure(affectedClasses);
+        for (String className : closure) {
+            String source = classSources.get(className);
+            if (source != null && !affectedClasses.contains(className) && new File(source).exists()) {
+                dependentSources.add(source);
+            }
+        }
+        for (Map.Entry<String, Set<String>> entry : classReferences.entrySet()) {
+            if (closure.contains(entry.getKey())) {
+                continue;
+            }
+            for (String reference : entry.getValue()) {
+                if (closure.contains(reference)) {
+                    String source = classSources.get(entry.getKey());
+                    if (source != null && new File(source).exists()) {
+                        dependentSources.add(source);
+                    }
+                    break;
+                }
+            }
+        }
+        return dependentSources;
+    }
+
+    // the classes and their subclasses, transitively
+    private Set<String> getSubtypeClosure(Set<String> classes) {
+        Map<String, Set<String>> subtypes = new HashMap<String, Set<String>>();
+        for (Map.Entry<String, Set<String>> entry : classSupertypes.entrySet()) {
+            for (String supertype : entry.getValue()) {
+                Set<String> names = subtypes.get(supertype);
+                if (names == null) {
+                    names = new HashSet<String>();
+                    subtypes.put(supertype, names);
+                }
+                names.add(entry.getKey());
+            }
+        }
+        Set<String> closure = new HashSet<String>(classes);
+        List<String> pending = new ArrayList<String>(classes);
+        while (!pending.isEmpty()) {
+            Set<String> names = subtypes.get(pending.remove(pending.size() - 1));
+            if (names != null) {
+                for (String name : names) {
+                    if (closure.add(name)) {
+                        pending.add(name);
+                    }
+                }
+            }
+        }
+        return closure;
+    }
+
+    private String getConstantClass(Set<String> affectedClasses) {
+        for (String className : affectedClasses) {
+            if (constantClasses.contains(className)) {
+                return className;
+            }
+        }
+        return null;
+    }
+
+    // reads the references and supertypes of a class and returns its source file name
+    private String readClassReferences(String className) {
+        File classFile = new File(outputDirectory, className.replace('.', '/') + ".class");
+        try {
+            ClassDependencyUtil.ClassFileInfo info = ClassDependencyUtil.readClassFile(classFile);
+            Set<String> references = info.getReferences();
+            references.remove(className);
+            classReferences.put(className, references);
+            classSupertypes.put(className, info.getSupertypes());
+            if (info.declaresConstants()) {
+                constantClasses.add(className);
+            } else {
+                constantClasses.remove(className);
+            }
+            return info.getSourceFile();
+        } catch (IOException e) {
+            log.debug("Unable to read class dependencies from " + classFile + ": " + e.getMessage());
+            classReferences.remove(className);
+            classSupertypes.remove(className);
+            // the class may declare constants
+            constantClasses.add(className);
+            return null;
+        }
+    }
+
+    private void deleteClasses(Set<String> classes) {
+        if (classes == null) {
+            return;
+        }
+        for (String className : classes) {
+            File classFile = new File(outputDirectory, className.replace('.', '/') + ".class");
+            if (classFile.exists() && classFile.delete()) {
+                log.debug("Deleted class file " + classFile);
+            }
+            classReferences.remove(className);
+            classSupertypes.remove(className);
+            constantClasses.remove(className);
+        }
+    }
+
+    private StandardJavaFileManager getFileManager(List<String> classpath) throws IOException {
+        // recreate the file manager when the classpath changes so no stale jar indexes are kept
+        if (fileManager == null || !classpath.equals(fileManagerClasspath)) {
+            if (fileManager != null) {
+                fileManager.close();
+            }
+            fileManager = compiler.getStandardFileManager(null, null, null);
+            List<File> classpathFiles = new ArrayList<File>();
+            for (String element : classpath) {
+                classpathFiles.add(new File(element));
+            }
+            fileManager.setLocation(StandardLocation.CLASS_PATH, classpathFiles);
+            fileManagerClasspath = new ArrayList<String>(classpath);
+        }
+        return fileManager;
+    }
+
+    private String getTopLevelClassName(File source) {
+        String relative = sourceDirectory.toURI().relativize(source.toURI()).getPath();
+        return relative.substring(0, relative.length() - ".java".length()).replace('/', '.');
+    }
+
+    private static void listSourceFiles(File directory, List<File> sources) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    listSourceFiles(file, sources);
+                } else if (file.getName().endsWith(".java")) {
+                    sources.add(file.getAbsoluteFile());
+                }
+            }
+        }
+    }
+
+    private static void addAll(Set<String> target, Set<String> values) {
+        if (values != null) {
+            target.addAll(values);
+        }
+    }
+
+}
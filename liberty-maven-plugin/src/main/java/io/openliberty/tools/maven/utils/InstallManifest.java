@@ -0,0 +1,162 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * The files of an installed assembly archive, with the CRC and size of their
+ * archive entries and their last modified time after the installation, so that
+ * a delta install only extracts the entries that changed in a new archive.
+ */
+public class InstallManifest {
+
+    private final File file;
+
+    /**
+     * @param file the manifest file
+     */
+    public InstallManifest(File file) {
+        this.file = file;
+    }
+
+    /**
+     * @param archive an assembly archive
+     * @return file entry name -> crc:size of the archive entries
+     * @throws IOException if the archive cannot be read
+     */
+    public static Map<String, String> getArchiveFileEntries(File archive) throws IOException {
+        Map<String, String> entries = new HashMap<String, String>();
+        ZipFile zipFile = new ZipFile(archive);
+        try {
+            Enumeration<? extends ZipEntry> n = zipFile.entries();
+            while (n.hasMoreElements()) {
+                ZipEntry entry = n.nextElement();
+                if (!entry.isDirectory()) {
+                    entries.put(entry.getName(), Long.toHexString(entry.getCrc()) + ":" + entry.getSize());
+                }
+            }
+        } finally {
+            zipFile.close();
+        }
+        return entries;
+    }
+
+    public boolean exists() {
+        return file.isFile();
+    }
+
+    public void delete() {
+        file.delete();
+    }
+
+    /**
+     * @param destination the directory that the archive was extracted to
+     * @param entries the file entries of the new archive
+     * @return the names of the entries that are missing, changed in the archive or modified since the installation
+     * @throws IOException if the manifest cannot be read
+     */
+    public Set<String> getChangedEntries(File destination, Map<String, String> entries) throws IOException {
+        Properties installed = new Properties();
+        InputStream in = new FileInputStream(file);
+        try {
+            installed.load(in);
+        } finally {
+            in.close();
+        }
+
+        Set<String> changed = new HashSet<String>();
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            File installedFile = new File(destination, entry.getKey());
+            if (!installedFile.isFile() || !(entry.getValue() + ":" + installedFile.lastModified()).equals(installed.getProperty(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Writes the manifest of the installed files of the archive.
+     *
+     * @param destination the directory that the archive was extracted to
+     * @param entries the file entries of the archive
+     * @throws IOException if the manifest cannot be written
+     */
+    public void write(File destination, Map<String, String> entries) throws IOException {
+        Properties manifest = new Properties();
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            File installedFile = new File(destination, entry.getKey());
+            if (installedFile.isFile()) {
+                manifest.setProperty(entry.getKey(), entry.getValue() + ":" + installedFile.lastModified());
+            }
+        }
+        OutputStream out = new FileOutputStream(file);
+        try {
+            manifest.store(out, "Installed assembly archive entries");
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Deletes the files of a directory that are not archive entries.
+     *
+     * @param dir the directory to clean
+     * @param destination the directory that the archive was extracted to
+     * @param entryNames the file entry names of the archive
+     * @param excludedDir a directory whose files are kept, such as the user directory
+     * @return the number of deleted files
+     * @throws IOException if a file cannot be deleted
+     */
+    public static int deleteFilesNotInArchive(File dir, File destination, Set<String> entryNames, File excludedDir) throws IOException {
+        return deleteFilesNotInArchive(dir, destination.toPath(), entryNames, excludedDir.getCanonicalFile());
+    }
+
+    private static int deleteFilesNotInArchive(File dir, Path root, Set<String> entryNames, File excludedDir) throws IOException {
+        int removed = 0;
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    if (!file.getCanonicalFile().equals(excludedDir)) {
+                        removed += deleteFilesNotInArchive(file, root, entryNames, excludedDir);
+                    }
+                } else if (!entryNames.contains(root.relativize(file.toPath()).toString().replace(File.separatorChar, '/'))) {
+                    FileUtils.forceDelete(file);
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+}
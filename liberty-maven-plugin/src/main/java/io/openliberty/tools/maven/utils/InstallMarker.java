@@ -0,0 +1,133 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * The .installed marker of a runtime installed from an assembly archive. The
+ * marker records the path, size, last modified time and SHA-256 of the
+ * archive. The archive is only hashed when its path, size or time differ from
+ * the marker, so that a touched or re-downloaded identical archive is not
+ * installed again.
+ */
+public class InstallMarker {
+
+    private final File markerFile;
+    private final File archive;
+    private final Log log;
+
+    // SHA-256 of the archive, computed when first needed
+    private String archiveDigest;
+
+    /**
+     * @param markerFile the marker file in the installation directory
+     * @param archive the assembly archive
+     * @param log the logger
+     */
+    public InstallMarker(File markerFile, File archive, Log log) {
+        this.markerFile = markerFile;
+        this.archive = archive;
+        this.log = log;
+    }
+
+    /**
+     * Checks whether the marker describes the archive. A marker that matches
+     * by content but not by path or time is rewritten, so that the next check
+     * does not hash the archive.
+     *
+     * @return true if the archive is installed
+     * @throws IOException if the marker or the archive cannot be read
+     */
+    public boolean isInstalled() throws IOException {
+        if (!markerFile.isFile()) {
+            return false;
+        }
+        Properties marker = new Properties();
+        InputStream in = new FileInputStream(markerFile);
+        try {
+            marker.load(in);
+        } catch (IllegalArgumentException e) {
+            // a marker from an earlier version of the plugin with a Windows path that is not a valid properties file
+            marker.clear();
+        } finally {
+            in.close();
+        }
+
+        String installedDigest = marker.getProperty("sha256");
+        if (installedDigest == null) {
+            // marker from an earlier version of the plugin that only contains the archive path
+            if (archive.lastModified() > markerFile.lastModified()
+                    || !archive.getCanonicalPath().equals(FileUtils.fileRead(markerFile))) {
+                return false;
+            }
+        } else if (!archive.getCanonicalPath().equals(marker.getProperty("path"))
+                || !String.valueOf(archive.length()).equals(marker.getProperty("size"))
+                || !String.valueOf(archive.lastModified()).equals(marker.getProperty("lastModified"))) {
+            if (!installedDigest.equals(getArchiveDigest())) {
+                return false;
+            }
+            log.debug("The assembly archive " + archive + " changed location or time but has the same content");
+        } else {
+            return true;
+        }
+        // record the current archive details so that the next check does not hash the archive
+        write();
+        return true;
+    }
+
+    /**
+     * Writes the marker for the archive.
+     *
+     * @throws IOException if the marker cannot be written
+     */
+    public void write() throws IOException {
+        Properties marker = new Properties();
+        marker.setProperty("path", archive.getCanonicalPath());
+        marker.setProperty("size", String.valueOf(archive.length()));
+        marker.setProperty("lastModified", String.valueOf(archive.lastModified()));
+        marker.setProperty("sha256", getArchiveDigest());
+        OutputStream out = new FileOutputStream(markerFile);
+        try {
+            marker.store(out, "Installed assembly archive");
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * @return the SHA-256 of the archive, computed once
+     * @throws IOException if the archive cannot be read
+     */
+    public String getArchiveDigest() throws IOException {
+        if (archiveDigest == null) {
+            long start = System.currentTimeMillis();
+            archiveDigest = DigestUtil.sha256(archive);
+            log.debug("Computed the SHA-256 of " + archive + " in " + (System.currentTimeMillis() - start) + " ms");
+        }
+        return archiveDigest;
+    }
+
+}
@@ -0,0 +1,198 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Builds the archive of a loose application from its loose configuration
+ * file, such as apps/app.war.xml, the way the server package command does,
+ * so that a package contains the application instead of a file that refers
+ * to directories of the build machine. The dir, file and nested archive
+ * elements are supported. If several elements map to the same path, the
+ * first one wins.
+ */
+public class LooseApplicationArchiver {
+
+    /**
+     * Writes an archive from its entries.
+     */
+    public interface ArchiveWriter {
+        void write(File archive, List<ParallelZipWriter.Entry> entries) throws IOException;
+    }
+
+    private final ArchiveWriter writer;
+
+    /**
+     * @param writer writes the application archive and its nested archives
+     */
+    public LooseApplicationArchiver(ArchiveWriter writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * @param file a file of the apps or dropins directory of a server
+     * @return true if the file is a loose application configuration file
+     */
+    public static boolean isLooseApplication(File file) {
+        if (!file.isFile() || !file.getName().endsWith(".xml")) {
+            return false;
+        }
+        try {
+            return "archive".equals(parse(file).getDocumentElement().getNodeName());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param looseApplication the loose application configuration file
+     * @return the name of the application archive, the file name without .xml
+     */
+    public static String getArchiveName(File looseApplication) {
+        String name = looseApplication.getName();
+        return name.substring(0, name.length() - ".xml".length());
+    }
+
+    /**
+     * Write the application archive of a loose application. Nested archives
+     * are written next to the archive, in the archive name with a .modules suffix.
+     *
+     * @param looseApplication the loose application configuration file
+     * @param archive the application archive to write
+     * @throws IOException if the configuration cannot be read, uses unsupported
+     *             options, or the archive cannot be written
+     */
+    public void build(File looseApplication, File archive) throws IOException {
+        build(parse(looseApplication).getDocumentElement(), archive, looseApplication);
+    }
+
+    private void build(Element archiveElement, File archive, File looseApplication) throws IOException {
+        // entry name -> file, sorted so that the archive only depends on the content
+        Map<String, File> files = new TreeMap<String, File>();
+        File modulesDir = new File(archive.getParentFile(), archive.getName() + ".modules");
+        for (Node node = archiveElement.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node.getNodeType() != Node.ELEMENT_NODE) {
+                continue;
+            }
+            Element element = (Element) node;
+            String target = getTarget(element);
+            if ("archive".equals(element.getNodeName())) {
+                File module = new File(modulesDir, target);
+                build(element, module, looseApplication);
+                put(files, target, module);
+                continue;
+            }
+            File source = new File(element.getAttribute("sourceOnDisk"));
+            if ("dir".equals(element.getNodeName())) {
+                if (!element.getAttribute("excludes").isEmpty()) {
+                    throw new IOException("The loose application " + looseApplication + " excludes files from the directory " + source
+                            + ", which is only supported by the server package command");
+                }
+                addDirectory(files, source, target.isEmpty() ? "" : target + "/");
+            } else if ("file".equals(element.getNodeName())) {
+                if (source.isFile()) {
+                    put(files, target, source);
+                }
+            } else {
+                throw new IOException("The loose application " + looseApplication + " has an unsupported element " + element.getNodeName());
+            }
+        }
+
+        List<ParallelZipWriter.Entry> entries = new ArrayList<ParallelZipWriter.Entry>();
+        Set<String> dirs = new HashSet<String>();
+        for (Map.Entry<String, File> file : files.entrySet()) {
+            String name = file.getKey();
+            int separator = -1;
+            while ((separator = name.indexOf('/', separator + 1)) != -1) {
+                String parent = name.substring(0, separator + 1);
+                if (dirs.add(parent)) {
+                    entries.add(new ParallelZipWriter.Entry(parent, null));
+                }
+            }
+            entries.add(new ParallelZipWriter.Entry(name, file.getValue()));
+        }
+        File dir = archive.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Unable to create the directory " + dir);
+        }
+        writer.write(archive, entries);
+    }
+
+    private static void addDirectory(Map<String, File> files, File dir, String prefix) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        Arrays.sort(children);
+        for (File child : children) {
+            if (child.isDirectory()) {
+                addDirectory(files, child, prefix + child.getName() + "/");
+            } else {
+                put(files, prefix + child.getName(), child);
+            }
+        }
+    }
+
+    private static void put(Map<String, File> files, String name, File file) {
+        if (!files.containsKey(name)) {
+            files.put(name, file);
+        }
+    }
+
+    private static String getTarget(Element element) {
+        String target = element.getAttribute("targetInArchive").replace('\\', '/');
+        while (target.startsWith("/")) {
+            target = target.substring(1);
+        }
+        while (target.endsWith("/")) {
+            target = target.substring(0, target.length() - 1);
+        }
+        return target;
+    }
+
+    private static Document parse(File file) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setExpandEntityReferences(false);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            // report errors with the exception only
+            builder.setErrorHandler(new DefaultHandler());
+            return builder.parse(file);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Unable to read the loose application " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+}
@@ -0,0 +1,172 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.plugin.BuildPluginManager;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.configuration.PlexusConfiguration;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+/**
+ * Executes plugin goals with cached mojo descriptors and goal configurations,
+ * and records the execution time of each goal in the dev mode metrics. Maven
+ * creates a new mojo instance for every execution, but the plugin descriptor
+ * lookup, the default mojo configuration and the project goal configuration
+ * are reused.
+ */
+public class MojoExecutionCache {
+
+    private static class CachedMojo {
+        private final MojoDescriptor mojoDescriptor;
+        private final Xpp3Dom defaultConfiguration;
+
+        private CachedMojo(MojoDescriptor mojoDescriptor, Xpp3Dom defaultConfiguration) {
+            this.mojoDescriptor = mojoDescriptor;
+            this.defaultConfiguration = defaultConfiguration;
+        }
+    }
+
+    private final BuildPluginManager pluginManager;
+    private final Log log;
+
+    // keyed by groupId:artifactId:version:goal
+    private final Map<String, CachedMojo> mojos = new HashMap<String, CachedMojo>();
+    private final Map<String, Xpp3Dom> goalConfigurations = new HashMap<String, Xpp3Dom>();
+
+    private volatile DevModeMetrics metrics;
+
+    public MojoExecutionCache(BuildPluginManager pluginManager, Log log) {
+        this.pluginManager = pluginManager;
+        this.log = log;
+    }
+
+    /**
+     * @param metrics metrics to record goal execution times in, or null
+     */
+    public void setMetrics(DevModeMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Get the configuration of a goal from the project, see
+     * ExecuteMojoUtil.getPluginGoalConfig. The result is cached until the
+     * cache is invalidated, and a copy is returned that the caller can modify.
+     *
+     * @param plugin the plugin from the project
+     * @param goal the goal
+     * @return a copy of the goal configuration
+     */
+    public synchronized Xpp3Dom getGoalConfiguration(Plugin plugin, String goal) {
+        String key = getKey(plugin, goal);
+        Xpp3Dom config = goalConfigurations.get(key);
+        if (config == null) {
+            config = ExecuteMojoUtil.getPluginGoalConfig(plugin, goal, log);
+            goalConfigurations.put(key, config);
+        }
+        return new Xpp3Dom(config);
+    }
+
+    /**
+     * Execute a plugin goal.
+     *
+     * @param plugin the plugin
+     * @param goal the goal to execute
+     * @param config the goal configuration, merged with the mojo defaults
+     * @param project the current project
+     * @param session the session to execute in
+     * @throws MojoExecutionException if the goal cannot be loaded or fails
+     */
+    public void execute(Plugin plugin, String goal, Xpp3Dom config, MavenProject project, MavenSession session)
+            throws MojoExecutionException {
+        long start = System.currentTimeMillis();
+        CachedMojo mojo = getMojo(plugin, goal, project, session);
+        Xpp3Dom mergedConfiguration = Xpp3Dom.mergeXpp3Dom(new Xpp3Dom(config), new Xpp3Dom(mojo.defaultConfiguration));
+        MojoExecution execution = new MojoExecution(mojo.mojoDescriptor, mergedConfiguration);
+        try {
+            pluginManager.executeMojo(session, execution);
+        } catch (MojoExecutionException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new MojoExecutionException("Unable to execute mojo", e);
+        } finally {
+            long elapsed = System.currentTimeMillis() - start;
+            DevModeMetrics currentMetrics = metrics;
+            if (currentMetrics != null) {
+                currentMetrics.record(plugin.getArtifactId() + ":" + goal, elapsed);
+            } else {
+                log.debug(plugin.getArtifactId() + ":" + goal + " took " + elapsed + " ms");
+            }
+        }
+    }
+
+    /**
+     * Clear the cached goal configurations and mojo descriptors, e.g. when the
+     * pom.xml changed.
+     */
+    public synchronized void invalidate() {
+        goalConfigurations.clear();
+        mojos.clear();
+    }
+
+    private synchronized CachedMojo getMojo(Plugin plugin, String goal, MavenProject project, MavenSession session)
+            throws MojoExecutionException {
+        String key = getKey(plugin, goal);
+        CachedMojo mojo = mojos.get(key);
+        if (mojo == null) {
+            PluginDescriptor pluginDescriptor;
+            try {
+                pluginDescriptor = pluginManager.loadPlugin(plugin, project.getRemotePluginRepositories(),
+                        session.getRepositorySession());
+            } catch (Exception e) {
+                throw new MojoExecutionException("Unable to load the plugin " + plugin.getKey(), e);
+            }
+            MojoDescriptor mojoDescriptor = pluginDescriptor.getMojo(goal);
+            if (mojoDescriptor == null) {
+                throw new MojoExecutionException("Could not find goal '" + goal + "' in plugin " + plugin.getKey());
+            }
+            mojo = new CachedMojo(mojoDescriptor, toXpp3Dom(mojoDescriptor.getMojoConfiguration()));
+            mojos.put(key, mojo);
+        }
+        return mojo;
+    }
+
+    private static String getKey(Plugin plugin, String goal) {
+        return plugin.getGroupId() + ":" + plugin.getArtifactId() + ":" + plugin.getVersion() + ":" + goal;
+    }
+
+    private static Xpp3Dom toXpp3Dom(PlexusConfiguration config) {
+        Xpp3Dom result = new Xpp3Dom(config.getName());
+        result.setValue(config.getValue(null));
+        for (String name : config.getAttributeNames()) {
+            result.setAttribute(name, config.getAttribute(name));
+        }
+        for (PlexusConfiguration child : config.getChildren()) {
+            result.addChild(toXpp3Dom(child));
+        }
+        return result;
+    }
+
+}
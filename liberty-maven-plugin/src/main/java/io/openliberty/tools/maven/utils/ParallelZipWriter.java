@@ -0,0 +1,468 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayDeque;
+import java.util.Calendar;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Writes a zip archive from files on disk, deflating the entries on several
+ * threads while a single thread writes the archive in entry order. Entries
+ * that are already compressed archives, such as jar, war and esa files, are
+ * stored without compressing them again. The compressed data of an entry is
+ * written to a temporary file next to the archive until the entry is written,
+ * so that memory use does not depend on the size of the files. The unix
+ * permissions of the files
+ * are recorded in the entry attributes. With a fixed entry time, the same
+ * entries always produce the same archive.
+ * <p>
+ * Archives that would need the zip64 format, with more than 65535 entries or
+ * more than 4 GB of data, are not supported and fail with an IOException.
+ */
+public class ParallelZipWriter {
+
+    /**
+     * A file or directory to add to the archive.
+     */
+    public static class Entry {
+        private final String name;
+        private final File file;
+
+        /**
+         * @param name the entry name, ending with / for directories
+         * @param file the file to add, or null for a directory
+         */
+        public Entry(String name, File file) {
+            this.name = name;
+            this.file = file;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public File getFile() {
+            return file;
+        }
+    }
+
+    private static class PreparedEntry {
+        private Entry entry;
+        private int method;
+        private long crc;
+        private long size;
+        private long compressedSize;
+        private long time;
+        private int mode;
+        // temporary file with the compressed data of deflated entries, stored entries are copied from the file
+        private File data;
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long MAX_SIZE = 0xffffffffL;
+    private static final int MAX_ENTRIES = 0xffff;
+
+    private static final int LOCAL_FILE_HEADER = 0x04034b50;
+    private static final int CENTRAL_DIRECTORY_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int VERSION = 20;
+    private static final int HOST_UNIX = 3;
+    private static final int FLAG_UTF8 = 0x800;
+
+    private static final PosixFilePermission[] PERMISSIONS = { PosixFilePermission.OTHERS_EXECUTE,
+            PosixFilePermission.OTHERS_WRITE, PosixFilePermission.OTHERS_READ, PosixFilePermission.GROUP_EXECUTE,
+            PosixFilePermission.GROUP_WRITE, PosixFilePermission.GROUP_READ, PosixFilePermission.OWNER_EXECUTE,
+            PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_READ };
+
+    private final int threads;
+    private final Log log;
+    private final boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+    private long fixedTime = -1;
+
+    /**
+     * @param threads the number of threads that compress entries
+     * @param log the logger
+     */
+    public ParallelZipWriter(int threads, Log log) {
+        this.threads = Math.max(1, threads);
+        this.log = log;
+    }
+
+    /**
+     * Use the same time for all entries and record the permissions as 755 or 644, so that
+     * the archive only depends on the entry names and file contents. The time is converted
+     * to the MS-DOS format in UTC rather than the local time zone.
+     *
+     * @param fixedTime the entry time in milliseconds since the epoch, or -1 to use the file modification times
+     */
+    public void setFixedTime(long fixedTime) {
+        this.fixedTime = fixedTime;
+    }
+
+    /**
+     * @param name an entry name
+     * @return true if the entry is an archive that is stored without compression
+     */
+    public static boolean isCompressed(String name) {
+        String lowerCaseName = name.toLowerCase();
+        return lowerCaseName.endsWith(".jar") || lowerCaseName.endsWith(".war") || lowerCaseName.endsWith(".ear")
+                || lowerCaseName.endsWith(".rar") || lowerCaseName.endsWith(".esa") || lowerCaseName.endsWith(".zip");
+    }
+
+    /**
+     * Write the entries to an archive in the given order. The archive is
+     * written to a temporary file that replaces the archive when it is complete.
+     *
+     * @param archive the archive to write
+     * @param entries the entries
+     * @throws IOException if a file cannot be read, the archive cannot be
+     *             written, or the archive would need the zip64 format
+     */
+    public void write(File archive, List<Entry> entries) throws IOException {
+        if (entries.size() > MAX_ENTRIES) {
+            throw new IOException("The archive " + archive + " would have " + entries.size()
+                    + " entries, which requires the zip64 format");
+        }
+        long start = System.currentTimeMillis();
+        final File temp = new File(archive.getParentFile(), archive.getName() + ".tmp");
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        // keep a bounded number of entries in flight so that the temporary files do not depend on the archive size
+        Deque<Future<PreparedEntry>> pending = new ArrayDeque<Future<PreparedEntry>>();
+        try {
+            CountingOutputStream out = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(temp), BUFFER_SIZE));
+            ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+            try {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                for (final Entry entry : entries) {
+                    pending.add(executor.submit(new Callable<PreparedEntry>() {
+                        @Override
+                        public PreparedEntry call() throws IOException {
+                            return prepare(entry, temp);
+                        }
+                    }));
+                    if (pending.size() >= threads * 2) {
+                        writeEntry(out, centralDirectory, get(pending.poll()), buffer);
+                    }
+                }
+                while (!pending.isEmpty()) {
+                    writeEntry(out, centralDirectory, get(pending.poll()), buffer);
+                }
+
+                long centralDirectoryOffset = out.getCount();
+                centralDirectory.writeTo(out);
+                if (out.getCount() > MAX_SIZE) {
+                    throw new IOException("The archive " + archive + " is larger than 4 GB, which requires the zip64 format");
+                }
+                writeInt(out, END_OF_CENTRAL_DIRECTORY);
+                writeShort(out, 0);
+                writeShort(out, 0);
+                writeShort(out, entries.size());
+                writeShort(out, entries.size());
+                writeInt(out, centralDirectory.size());
+                writeInt(out, centralDirectoryOffset);
+                writeShort(out, 0);
+            } finally {
+                out.close();
+            }
+            Files.move(temp.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            executor.shutdownNow();
+            deleteData(executor, pending);
+            temp.delete();
+        }
+        log.debug("Wrote " + entries.size() + " entries to " + archive + " with " + threads + " threads in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private static PreparedEntry get(Future<PreparedEntry> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing the archive", e);
+        }
+    }
+
+    /**
+     * Deletes the temporary files of the entries that were not written after a failure.
+     */
+    private void deleteData(ExecutorService executor, Deque<Future<PreparedEntry>> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Future<PreparedEntry> future : pending) {
+            try {
+                if (future.isDone() && future.get().data != null) {
+                    future.get().data.delete();
+                }
+            } catch (ExecutionException | InterruptedException | CancellationException e) {
+                log.debug("The entry was not prepared: " + e.getMessage());
+            }
+        }
+    }
+
+    private PreparedEntry prepare(Entry entry, File archive) throws IOException {
+        PreparedEntry prepared = new PreparedEntry();
+        prepared.entry = entry;
+        if (entry.getFile() == null) {
+            prepared.method = Deflater.NO_COMPRESSION;
+            prepared.time = fixedTime >= 0 ? fixedTime : System.currentTimeMillis();
+            prepared.mode = 040755;
+            return prepared;
+        }
+
+        File file = entry.getFile();
+        if (fixedTime >= 0) {
+            prepared.time = fixedTime;
+            prepared.mode = 0100000 | ((getPermissions(file) & 0100) != 0 ? 0755 : 0644);
+        } else {
+            prepared.time = file.lastModified();
+            prepared.mode = 0100000 | getPermissions(file);
+        }
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long size = 0;
+        InputStream in = new FileInputStream(file);
+        try {
+            if (isCompressed(entry.getName())) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    crc.update(buffer, 0, read);
+                    size += read;
+                }
+            } else {
+                File compressed = File.createTempFile("." + archive.getName(), ".entry", archive.getParentFile());
+                Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+                try {
+                    DeflaterOutputStream deflaterOut = new DeflaterOutputStream(new FileOutputStream(compressed), deflater, BUFFER_SIZE);
+                    try {
+                        int read;
+                        while ((read = in.read(buffer)) != -1) {
+                            crc.update(buffer, 0, read);
+                            deflaterOut.write(buffer, 0, read);
+                            size += read;
+                        }
+                    } finally {
+                        deflaterOut.close();
+                    }
+                    // store entries that do not get smaller
+                    if (compressed.length() < size) {
+                        prepared.data = compressed;
+                    }
+                } finally {
+                    deflater.end();
+                    if (prepared.data == null) {
+                        compressed.delete();
+                    }
+                }
+            }
+        } finally {
+            in.close();
+        }
+        if (size > MAX_SIZE) {
+            throw new IOException("The file " + file + " is larger than 4 GB, which requires the zip64 format");
+        }
+        prepared.crc = crc.getValue();
+        prepared.size = size;
+        prepared.method = prepared.data != null ? Deflater.DEFLATED : Deflater.NO_COMPRESSION;
+        prepared.compressedSize = prepared.data != null ? prepared.data.length() : size;
+        return prepared;
+    }
+
+    private void writeEntry(CountingOutputStream out, ByteArrayOutputStream centralDirectory, PreparedEntry prepared,
+            byte[] buffer) throws IOException {
+        try {
+            writeEntryData(out, centralDirectory, prepared, buffer);
+        } finally {
+            if (prepared.data != null) {
+                prepared.data.delete();
+            }
+        }
+    }
+
+    private void writeEntryData(CountingOutputStream out, ByteArrayOutputStream centralDirectory, PreparedEntry prepared,
+            byte[] buffer) throws IOException {
+        long offset = out.getCount();
+        if (offset > MAX_SIZE) {
+            throw new IOException("The archive is larger than 4 GB, which requires the zip64 format");
+        }
+        byte[] name = prepared.entry.getName().getBytes(StandardCharsets.UTF_8);
+        long dosTime = toDosTime(prepared.time);
+
+        writeInt(out, LOCAL_FILE_HEADER);
+        writeShort(out, VERSION);
+        writeShort(out, FLAG_UTF8);
+        writeShort(out, prepared.method);
+        writeInt(out, dosTime);
+        writeInt(out, prepared.crc);
+        writeInt(out, prepared.compressedSize);
+        writeInt(out, prepared.size);
+        writeShort(out, name.length);
+        writeShort(out, 0);
+        out.write(name);
+
+        if (prepared.entry.getFile() != null) {
+            File source = prepared.data != null ? prepared.data : prepared.entry.getFile();
+            long copied = 0;
+            InputStream in = new FileInputStream(source);
+            try {
+                int read;
+                while (copied < prepared.compressedSize
+                        && (read = in.read(buffer, 0, (int) Math.min(buffer.length, prepared.compressedSize - copied))) != -1) {
+                    out.write(buffer, 0, read);
+                    copied += read;
+                }
+            } finally {
+                in.close();
+            }
+            if (copied != prepared.compressedSize) {
+                throw new IOException("The file " + prepared.entry.getFile() + " changed while it was added to the archive");
+            }
+        }
+
+        writeInt(centralDirectory, CENTRAL_DIRECTORY_HEADER);
+        writeShort(centralDirectory, (HOST_UNIX << 8) | VERSION);
+        writeShort(centralDirectory, VERSION);
+        writeShort(centralDirectory, FLAG_UTF8);
+        writeShort(centralDirectory, prepared.method);
+        writeInt(centralDirectory, dosTime);
+        writeInt(centralDirectory, prepared.crc);
+        writeInt(centralDirectory, prepared.compressedSize);
+        writeInt(centralDirectory, prepared.size);
+        writeShort(centralDirectory, name.length);
+        writeShort(centralDirectory, 0);
+        writeShort(centralDirectory, 0);
+        writeShort(centralDirectory, 0);
+        writeShort(centralDirectory, 0);
+        // unix mode in the high bytes, and the MS-DOS directory flag
+        writeInt(centralDirectory, ((long) prepared.mode << 16) | (prepared.entry.getFile() == null ? 0x10 : 0));
+        writeInt(centralDirectory, offset);
+        centralDirectory.write(name);
+    }
+
+    private int getPermissions(File file) throws IOException {
+        if (!posix) {
+            return file.canExecute() ? 0755 : 0644;
+        }
+        Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(file.toPath());
+        int mode = 0;
+        for (int i = 0; i < PERMISSIONS.length; i++) {
+            if (permissions.contains(PERMISSIONS[i])) {
+                mode |= 1 << i;
+            }
+        }
+        return mode;
+    }
+
+    private long toDosTime(long time) {
+        Calendar calendar = fixedTime >= 0 ? Calendar.getInstance(TimeZone.getTimeZone("UTC")) : Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return ((year - 1980) << 25) | ((calendar.get(Calendar.MONTH) + 1) << 21) | (calendar.get(Calendar.DAY_OF_MONTH) << 16)
+                | (calendar.get(Calendar.HOUR_OF_DAY) << 11) | (calendar.get(Calendar.MINUTE) << 5)
+                | (calendar.get(Calendar.SECOND) >> 1);
+    }
+
+    private static void writeShort(OutputStream out, int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >>> 8) & 0xff);
+    }
+
+    private static void writeInt(OutputStream out, long value) throws IOException {
+        out.write((int) (value & 0xff));
+        out.write((int) ((value >>> 8) & 0xff));
+        out.write((int) ((value >>> 16) & 0xff));
+        out.write((int) ((value >>> 24) & 0xff));
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private final OutputStream out;
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private long getCount() {
+            return count;
+        }
+    }
+
+}
@@ -0,0 +1,263 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * A cache of extracted runtime archives that is shared by all projects, e.g.
+ * under ~/.m2/liberty-runtimes. Each archive is extracted once into a
+ * directory named after the SHA-256 of the archive, and projects are populated
+ * from it. Only the jars directly in the lib directory, which the runtime never
+ * rewrites, are hard linked; all other files are copied. The size and time of
+ * every cached file are recorded in an index next to the extraction, and an
+ * extraction whose files no longer match the index is extracted again.
+ */
+public class RuntimeCache {
+
+    // relative to the wlp directory: the runtime jars, which are only ever replaced as a whole
+    private static final String[] LINKED_DIRECTORIES = { "lib" };
+
+    private static final String LINKED_EXTENSION = ".jar";
+
+    private static final String INDEX_EXTENSION = ".index";
+
+    private final File cacheDirectory;
+    private final Log log;
+
+    /**
+     * @param cacheDirectory the root directory of the cache
+     * @param log the logger
+     */
+    public RuntimeCache(File cacheDirectory, Log log) {
+        this.cacheDirectory = cacheDirectory;
+        this.log = log;
+    }
+
+    /**
+     * Get the cached extraction of an archive, extracting it first if it is
+     * not in the cache. The archive is extracted into a temporary directory
+     * that is then renamed, so concurrent builds never see a partial
+     * extraction.
+     *
+     * @param archive the runtime archive
+     * @param sha256 the SHA-256 of the archive
+     * @param extractor the extractor to use
+     * @param scriptDirectory the entry name prefix of the scripts directory, see ArchiveExtractor
+     * @return the directory with the extracted archive
+     * @throws IOException if the archive cannot be extracted
+     */
+    public File getExtracted(File archive, String sha256, ArchiveExtractor extractor, String scriptDirectory)
+            throws IOException {
+        File extracted = new File(cacheDirectory, sha256);
+        File index = new File(cacheDirectory, sha256 + INDEX_EXTENSION);
+        if (extracted.isDirectory()) {
+            if (isIntact(extracted, index)) {
+                log.debug("Using the cached runtime " + extracted + " for " + archive);
+                return extracted;
+            }
+            log.warn("The cached runtime " + extracted + " was modified and is extracted again from " + archive);
+            discard(extracted, sha256);
+        }
+
+        FileUtils.forceMkdir(cacheDirectory);
+        File temp = Files.createTempDirectory(cacheDirectory.toPath(), "." + sha256 + "-").toFile();
+        File tempIndex = new File(temp.getPath() + INDEX_EXTENSION);
+        try {
+            extractor.extract(archive, temp, scriptDirectory);
+            // the index is in place before the extraction, so a cached extraction always has one
+            writeIndex(temp, tempIndex);
+            Files.move(tempIndex.toPath(), index.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            try {
+                try {
+                    Files.move(temp.toPath(), extracted.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp.toPath(), extracted.toPath());
+                }
+                log.debug("Added the runtime " + archive + " to the cache " + extracted);
+            } catch (FileSystemException e) {
+                // another build added the same runtime first, which is reported as
+                // FileAlreadyExistsException or DirectoryNotEmptyException depending on the platform
+                if (!extracted.isDirectory()) {
+                    throw e;
+                }
+                // the index of this extraction replaced the index of the other build
+                writeIndex(extracted, tempIndex);
+                Files.move(tempIndex.toPath(), index.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                log.debug("Using the runtime " + extracted + " that was added by another build");
+            }
+        } finally {
+            if (temp.exists()) {
+                FileUtils.deleteDirectory(temp);
+            }
+            Files.deleteIfExists(tempIndex.toPath());
+        }
+        return extracted;
+    }
+
+    // move a modified extraction out of the way, then delete it
+    private void discard(File extracted, String sha256) throws IOException {
+        File discarded = new File(cacheDirectory, "." + sha256 + "-discarded-" + System.nanoTime());
+        try {
+            Files.move(extracted.toPath(), discarded.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileSystemException e) {
+            // another build discarded it first
+            log.debug("Unable to move the cached runtime " + extracted + ": " + e.getMessage());
+            return;
+        }
+        FileUtils.deleteDirectory(discarded);
+    }
+
+    // the relative path, size and time of every file of an extraction
+    private static Properties getFileStates(final File extracted) throws IOException {
+        final Path root = extracted.toPath();
+        final Properties states = new Properties();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                states.setProperty(root.relativize(file).toString().replace(File.separatorChar, '/'),
+                        attrs.size() + ":" + attrs.lastModifiedTime().toMillis());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return states;
+    }
+
+    private static void writeIndex(File extracted, File index) throws IOException {
+        Properties states = getFileStates(extracted);
+        OutputStream out = new FileOutputStream(index);
+        try {
+            states.store(out, "Cached runtime files");
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * @param extracted the cached extraction
+     * @param index the index that was written when the archive was extracted
+     * @return whether the files of the extraction still have the size and time in the index
+     * @throws IOException if the extraction cannot be read
+     */
+    static boolean isIntact(File extracted, File index) throws IOException {
+        if (!index.isFile()) {
+            return false;
+        }
+        Properties expected = new Properties();
+        InputStream in = new FileInputStream(index);
+        try {
+            expected.load(in);
+        } finally {
+            in.close();
+        }
+        return expected.equals(getFileStates(extracted));
+    }
+
+    /**
+     * Get the directories of a runtime installation whose jars are never
+     * modified in place and can be linked to the cache.
+     *
+     * @param installDirectory the wlp directory of the installation
+     * @return the linked directories of the installation
+     */
+    public static List<File> getLinkedDirectories(File installDirectory) {
+        List<File> directories = new ArrayList<File>();
+        for (String path : LINKED_DIRECTORIES) {
+            directories.add(new File(installDirectory, path));
+        }
+        return directories;
+    }
+
+    /**
+     * Populate a directory from a cached extraction. The jars directly in the
+     * linked directories are hard linked into the destination, and all other
+     * files are copied so that project changes never reach the cache. Files
+     * are copied if hard links are not supported, e.g. across file systems.
+     *
+     * @param extracted the cached extraction
+     * @param destination the directory to populate
+     * @param linkedDirectories directories under the destination whose jars are linked
+     * @return the number of files that were linked
+     * @throws IOException if the directory cannot be populated
+     */
+    public int populate(File extracted, File destination, List<File> linkedDirectories) throws IOException {
+        long start = System.currentTimeMillis();
+        final Path source = extracted.toPath();
+        final Path target = destination.getCanonicalFile().toPath();
+        final List<Path> linked = new ArrayList<Path>();
+        for (File linkedDirectory : linkedDirectories) {
+            linked.add(linkedDirectory.getCanonicalFile().toPath());
+        }
+        final int[] counts = new int[2];
+
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            private boolean linksSupported = true;
+
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Path targetFile = target.resolve(source.relativize(file).toString());
+                Files.deleteIfExists(targetFile);
+                if (linksSupported && isLinked(targetFile)) {
+                    try {
+                        Files.createLink(targetFile, file);
+                        counts[0]++;
+                        return FileVisitResult.CONTINUE;
+                    } catch (UnsupportedOperationException | FileSystemException e) {
+                        log.debug("Unable to link " + targetFile + ", copying the cached runtime instead: " + e.getMessage());
+                        linksSupported = false;
+                    }
+                }
+                Files.copy(file, targetFile, StandardCopyOption.COPY_ATTRIBUTES);
+                counts[1]++;
+                return FileVisitResult.CONTINUE;
+            }
+
+            private boolean isLinked(Path targetFile) {
+                return targetFile.getFileName().toString().endsWith(LINKED_EXTENSION) && linked.contains(targetFile.getParent());
+            }
+        });
+
+        log.debug("Populated " + destination + " from the cached runtime " + extracted + ": " + counts[0] + " linked and "
+                + counts[1] + " copied files in " + (System.currentTimeMillis() - start) + " ms");
+        return counts[0];
+    }
+
+}
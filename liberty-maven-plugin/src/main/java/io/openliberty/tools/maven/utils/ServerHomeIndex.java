@@ -0,0 +1,79 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * The server home directories of runtime archives, indexed by the archive
+ * path, size and last modified time so that goals do not open an archive
+ * again to find its server home.
+ */
+public class ServerHomeIndex {
+
+    private static final String LAUNCH_JAR = "lib/ws-launch.jar";
+
+    private final FingerprintStore index;
+    private final Log log;
+
+    /**
+     * @param indexFile the file that stores the index
+     * @param log the logger
+     */
+    public ServerHomeIndex(File indexFile, Log log) {
+        this.index = new FingerprintStore(indexFile, log);
+        this.log = log;
+    }
+
+    /**
+     * @param archive a runtime archive
+     * @return the path of the server home in the archive, ending with / unless
+     *         the server home is the archive root, or null if the archive does
+     *         not contain a server
+     * @throws IOException if the archive cannot be read
+     */
+    public String getServerHome(File archive) throws IOException {
+        String archiveKey = DigestUtil.sha256(archive.getCanonicalPath() + ":" + archive.length() + ":" + archive.lastModified());
+        String indexedPrefix = index.get(archiveKey);
+        if (indexedPrefix != null) {
+            log.debug("Found the server home " + indexedPrefix + " of " + archive + " in the index");
+            return indexedPrefix;
+        }
+
+        ZipFile zipFile = new ZipFile(archive);
+        try {
+            Enumeration<? extends ZipEntry> n = zipFile.entries();
+            while (n.hasMoreElements()) {
+                String name = n.nextElement().getName();
+                if (name.endsWith(LAUNCH_JAR)) {
+                    String prefix = name.substring(0, name.length() - LAUNCH_JAR.length());
+                    index.put(archiveKey, prefix);
+                    return prefix;
+                }
+            }
+        } finally {
+            zipFile.close();
+        }
+        return null;
+    }
+
+}
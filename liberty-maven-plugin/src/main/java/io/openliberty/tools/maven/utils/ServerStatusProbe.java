@@ -0,0 +1,174 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Determines whether a server is running from the files that the server
+ * maintains, without running the server status command in a new JVM. The
+ * server holds a lock on workarea/.sLock while it runs, which is checked the
+ * same way as the status command does. If the lock cannot be checked, the
+ * process from the .pid/serverName.pid file and the workarea/.sRunning marker
+ * are checked, and finally an optional server URL.
+ */
+public class ServerStatusProbe {
+
+    public static enum Status {
+        RUNNING, STOPPED, UNKNOWN
+    }
+
+    private final File outputDirectory;
+    private final String serverName;
+    private final Log log;
+
+    /**
+     * @param outputDirectory the output directory that contains the server output directory
+     * @param serverName the server name
+     * @param log the logger
+     */
+    public ServerStatusProbe(File outputDirectory, String serverName, Log log) {
+        this.outputDirectory = outputDirectory;
+        this.serverName = serverName;
+        this.log = log;
+    }
+
+    /**
+     * @return the server status, or UNKNOWN if the server files do not show whether it is running
+     */
+    public Status getStatus() {
+        File workarea = new File(new File(outputDirectory, serverName), "workarea");
+        if (!workarea.isDirectory()) {
+            log.debug("The server " + serverName + " has no workarea and is not running.");
+            return Status.STOPPED;
+        }
+        Status status = checkLock(new File(workarea, ".sLock"));
+        if (status == Status.UNKNOWN) {
+            status = checkProcess(new File(workarea, ".sRunning"));
+        }
+        return status;
+    }
+
+    /**
+     * @param url a server URL that is requested if the server files do not show whether it is running, or null
+     * @param timeoutMillis the connect and read timeout of the request
+     * @return the server status, or UNKNOWN if neither the server files nor the URL show whether it is running
+     */
+    public Status getStatus(URL url, int timeoutMillis) {
+        Status status = getStatus();
+        if (status == Status.UNKNOWN && url != null) {
+            status = checkEndpoint(url, timeoutMillis);
+        }
+        return status;
+    }
+
+    private Status checkLock(File lockFile) {
+        if (!lockFile.isFile()) {
+            return Status.UNKNOWN;
+        }
+        try {
+            RandomAccessFile file = new RandomAccessFile(lockFile, "rw");
+            try {
+                FileLock lock = file.getChannel().tryLock();
+                if (lock == null) {
+                    log.debug("The server lock " + lockFile + " is held by another process.");
+                    return Status.RUNNING;
+                }
+                lock.release();
+                log.debug("The server lock " + lockFile + " is not held.");
+                return Status.STOPPED;
+            } finally {
+                file.close();
+            }
+        } catch (OverlappingFileLockException e) {
+            // the server is embedded in this JVM
+            return Status.RUNNING;
+        } catch (IOException e) {
+            log.debug("Unable to check the server lock " + lockFile + ": " + e.getMessage());
+            return Status.UNKNOWN;
+        }
+    }
+
+    private Status checkProcess(File runningMarker) {
+        File pidFile = new File(new File(outputDirectory, ".pid"), serverName + ".pid");
+        if (!pidFile.isFile()) {
+            return runningMarker.exists() ? Status.UNKNOWN : Status.STOPPED;
+        }
+        long pid;
+        try {
+            pid = Long.parseLong(FileUtils.fileRead(pidFile).trim());
+        } catch (IOException | NumberFormatException e) {
+            log.debug("Unable to read the server process ID from " + pidFile + ": " + e.getMessage());
+            return Status.UNKNOWN;
+        }
+        Boolean alive = isProcessAlive(pid);
+        if (alive == null) {
+            return Status.UNKNOWN;
+        }
+        log.debug("The server process " + pid + (alive ? " is" : " is not") + " running.");
+        if (!alive) {
+            return Status.STOPPED;
+        }
+        // the process ID may have been reused after the server ended without removing its files
+        return runningMarker.exists() ? Status.RUNNING : Status.UNKNOWN;
+    }
+
+    private Status checkEndpoint(URL url, int timeoutMillis) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            try {
+                connection.setConnectTimeout(timeoutMillis);
+                connection.setReadTimeout(timeoutMillis);
+                connection.setRequestMethod("HEAD");
+                log.debug("The server URL " + url + " returned " + connection.getResponseCode() + ".");
+                return Status.RUNNING;
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException e) {
+            log.debug("Unable to connect to the server URL " + url + ": " + e.getMessage());
+            return Status.UNKNOWN;
+        }
+    }
+
+    /**
+     * @return whether the process is alive, or null if it cannot be checked
+     */
+    private static Boolean isProcessAlive(long pid) {
+        try {
+            // ProcessHandle is only available on Java 9 and later
+            Class<?> handleClass = Class.forName("java.lang.ProcessHandle");
+            Object optionalHandle = handleClass.getMethod("of", long.class).invoke(null, pid);
+            Object handle = optionalHandle.getClass().getMethod("orElse", Object.class).invoke(optionalHandle, (Object) null);
+            return handle != null && (Boolean) handleClass.getMethod("isAlive").invoke(handle);
+        } catch (ClassNotFoundException e) {
+            File proc = new File("/proc");
+            return proc.isDirectory() ? new File(proc, Long.toString(pid)).exists() : null;
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+}
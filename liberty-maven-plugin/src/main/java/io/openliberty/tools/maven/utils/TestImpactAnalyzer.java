@@ -0,0 +1,284 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Selects the tests affected by the class changes since the previous test run,
+ * using the class references in the compiled main and test classes. Since the
+ * compiler inlines compile-time constants without a reference to the class
+ * that declares them, all tests run when such a class changed.
+ */
+public class TestImpactAnalyzer {
+
+    /**
+     * Tests selected for a test run. A null list means that all tests should run.
+     */
+    public static class TestSelection {
+        private final List<String> unitTests;
+        private final List<String> integrationTests;
+
+        public TestSelection(List<String> unitTests, List<String> integrationTests) {
+            this.unitTests = unitTests;
+            this.integrationTests = integrationTests;
+        }
+
+        /**
+         * @return the unit test classes to run, or null to run all unit tests
+         */
+        public List<String> getUnitTests() {
+            return unitTests;
+        }
+
+        /**
+         * @return the integration test classes to run, or null to run all integration tests
+         */
+        public List<String> getIntegrationTests() {
+            return integrationTests;
+        }
+    }
+
+    private final File outputDirectory;
+    private final File testOutputDirectory;
+    private final Log log;
+
+    // class name -> last modified time of the class file at the previous test run
+    private Map<String, Long> mainClasses;
+    private Map<String, Long> testClasses;
+
+    // class name -> classes it references
+    private final Map<String, Set<String>> references = new HashMap<String, Set<String>>();
+
+    // classes that declare compile-time constants, or whose class file could not be read
+    private final Set<String> constantClasses = new HashSet<String>();
+
+    public TestImpactAnalyzer(File outputDirectory, File testOutputDirectory, Log log) {
+        this.outputDirectory = outputDirectory;
+        this.testOutputDirectory = testOutputDirectory;
+        this.log = log;
+    }
+
+    /**
+     * Select the tests for a test run. All tests are selected on the first run,
+     * when no class changed since the previous run and when a changed class
+     * declares compile-time constants. Integration tests are all selected when
+     * any main class changed, since they test the deployed application.
+     *
+     * @return the selected tests
+     */
+    public synchronized TestSelection select() {
+        return select(false);
+    }
+
+    /**
+     * Select all tests, e.g. for a test run requested from the keyboard, and
+     * record the current classes for the selection of the next test run.
+     *
+     * @return the selection of all tests
+     */
+    public synchronized TestSelection selectAll() {
+        return select(true);
+    }
+
+    private TestSelection select(boolean all) {
+        long start = System.currentTimeMillis();
+        Map<String, Long> currentMainClasses = scan(outputDirectory);
+        Map<String, Long> currentTestClasses = scan(testOutputDirectory);
+
+        if (mainClasses == null) {
+            updateReferences(currentMainClasses.keySet(), outputDirectory);
+            updateReferences(currentTestClasses.keySet(), testOutputDirectory);
+            mainClasses = currentMainClasses;
+            testClasses = currentTestClasses;
+            return new TestSelection(null, null);
+        }
+
+        Set<String> changedMainClasses = getChangedClasses(mainClasses, currentMainClasses);
+        Set<String> changedTestClasses = getChangedClasses(testClasses, currentTestClasses);
+        mainClasses = currentMainClasses;
+        testClasses = currentTestClasses;
+
+        if (changedMainClasses.isEmpty() && changedTestClasses.isEmpty()) {
+            log.debug("No classes changed since the last test run, running all tests");
+            return new TestSelection(null, null);
+        }
+
+        Set<String> changedClasses = new HashSet<String>(changedMainClasses);
+        changedClasses.addAll(changedTestClasses);
+        // classes that declared constants before the change may have been inlined with the old values
+        boolean constantsChanged = !Collections.disjoint(changedClasses, constantClasses);
+        updateReferences(changedMainClasses, outputDirectory);
+        updateReferences(changedTestClasses, testOutputDirectory);
+        constantsChanged |= !Collections.disjoint(changedClasses, constantClasses);
+
+        if (all) {
+            return new TestSelection(null, null);
+        }
+        if (constantsChanged) {
+            log.debug("Classes that declare constants changed since the last test run, running all tests");
+            return new TestSelection(null, null);
+        }
+
+        Set<String> impactedClasses = getImpactedClasses(changedClasses);
+
+        List<String> unitTests = new ArrayList<String>();
+        List<String> integrationTests = new ArrayList<String>();
+        for (String testClass : getTopLevelClasses(currentTestClasses.keySet(), impactedClasses)) {
+            String simpleName = testClass.substring(testClass.lastIndexOf('.') + 1);
+            if (isIntegrationTest(simpleName)) {
+                integrationTests.add(testClass);
+            } else if (isUnitTest(simpleName)) {
+                unitTests.add(testClass);
+            }
+        }
+
+        log.debug("Changed classes: " + changedClasses);
+        log.debug("Selected " + unitTests.size() + " unit test(s) and "
+                + (changedMainClasses.isEmpty() ? integrationTests.size() : "all") + " integration test(s) in "
+                + (System.currentTimeMillis() - start) + " ms");
+        return new TestSelection(unitTests, changedMainClasses.isEmpty() ? integrationTests : null);
+    }
+
+    /**
+     * Format test classes for the test parameter of the surefire and failsafe plugins.
+     *
+     * @param testClasses the test class names
+     * @return comma separated test file patterns
+     */
+    public static String toTestParameter(List<String> testClasses) {
+        StringBuilder parameter = new StringBuilder();
+        for (String testClass : testClasses) {
+            if (parameter.length() > 0) {
+                parameter.append(',');
+            }
+            parameter.append(testClass.replace('.', '/')).append(".java");
+        }
+        return parameter.toString();
+    }
+
+    // default includes of the surefire plugin
+    private static boolean isUnitTest(String simpleName) {
+        return simpleName.startsWith("Test") || simpleName.endsWith("Test") || simpleName.endsWith("Tests")
+                || simpleName.endsWith("TestCase");
+    }
+
+    // default includes of the failsafe plugin
+    private static boolean isIntegrationTest(String simpleName) {
+        return simpleName.startsWith("IT") || simpleName.endsWith("IT") || simpleName.endsWith("ITCase");
+    }
+
+    private Set<String> getImpactedClasses(Set<String> changedClasses) {
+        Map<String, Set<String>> referencedBy = new HashMap<String, Set<String>>();
+        for (Map.Entry<String, Set<String>> entry : references.entrySet()) {
+            for (String reference : entry.getValue()) {
+                Set<String> classes = referencedBy.get(reference);
+                if (classes == null) {
+                    classes = new HashSet<String>();
+                    referencedBy.put(reference, classes);
+                }
+                classes.add(entry.getKey());
+            }
+        }
+
+        Set<String> impacted = new HashSet<String>(changedClasses);
+        Deque<String> queue = new ArrayDeque<String>(changedClasses);
+        while (!queue.isEmpty()) {
+            Set<String> classes = referencedBy.get(queue.poll());
+            if (classes != null) {
+                for (String className : classes) {
+                    if (impacted.add(className)) {
+                        queue.add(className);
+                    }
+                }
+            }
+        }
+        return impacted;
+    }
+
+    private static Set<String> getTopLevelClasses(Set<String> classes, Set<String> impactedClasses) {
+        Set<String> topLevelClasses = new TreeSet<String>();
+        for (String className : classes) {
+            if (impactedClasses.contains(className)) {
+                topLevelClasses.add(ClassDependencyUtil.getTopLevelClassName(className));
+            }
+        }
+        return topLevelClasses;
+    }
+
+    private Set<String> getChangedClasses(Map<String, Long> previous, Map<String, Long> current) {
+        Set<String> changed = new HashSet<String>();
+        for (Map.Entry<String, Long> entry : current.entrySet()) {
+            if (!entry.getValue().equals(previous.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (String className : previous.keySet()) {
+            if (!current.containsKey(className)) {
+                changed.add(className);
+            }
+        }
+        return changed;
+    }
+
+    private void updateReferences(Set<String> classes, File directory) {
+        for (String className : classes) {
+            File classFile = new File(directory, className.replace('.', '/') + ".class");
+            if (!classFile.exists()) {
+                references.remove(className);
+                constantClasses.remove(className);
+                continue;
+            }
+            try {
+                ClassDependencyUtil.ClassFileInfo info = ClassDependencyUtil.readClassFile(classFile);
+                references.put(className, info.getReferences());
+                if (info.declaresConstants()) {
+                    constantClasses.add(className);
+                } else {
+                    constantClasses.remove(className);
+                }
+            } catch (IOException e) {
+                log.debug("Unable to read class dependencies from " + classFile + ": " + e.getMessage());
+                references.put(className, Collections.<String> emptySet());
+                constantClasses.add(className);
+            }
+        }
+    }
+
+    private static Map<String, Long> scan(File directory) {
+        Map<String, Long> classes = new HashMap<String, Long>();
+        List<File> classFiles = new ArrayList<File>();
+        ClassDependencyUtil.listClassFiles(directory, classFiles);
+        for (File classFile : classFiles) {
+            classes.put(ClassDependencyUtil.getClassName(directory, classFile), classFile.lastModified());
+        }
+        return classes;
+    }
+
+}
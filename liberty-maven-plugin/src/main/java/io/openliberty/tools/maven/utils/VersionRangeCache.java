@@ -0,0 +1,162 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * The highest versions of resolved version ranges, kept for a limited time so
+ * that the goals of a build do not each read the remote metadata. Entries can
+ * be persisted to a properties file to share them between builds.
+ */
+public class VersionRangeCache {
+
+    private static class CachedVersion {
+        private final String version;
+        private final long resolvedAt;
+
+        private CachedVersion(String version, long resolvedAt) {
+            this.version = version;
+            this.resolvedAt = resolvedAt;
+        }
+    }
+
+    private final Map<String, CachedVersion> versions = new HashMap<String, CachedVersion>();
+
+    // persistent files that were already read into the cache
+    private final Set<File> loadedFiles = new HashSet<File>();
+
+    /**
+     * @param key the version range key, see getKey
+     * @param ttlMillis the maximum age of the entry
+     * @return the cached highest version, or null if there is no entry or it is too old
+     */
+    public synchronized String get(String key, long ttlMillis) {
+        CachedVersion cached = versions.get(key);
+        if (cached == null || System.currentTimeMillis() - cached.resolvedAt > ttlMillis) {
+            return null;
+        }
+        return cached.version;
+    }
+
+    public synchronized void put(String key, String version) {
+        versions.put(key, new CachedVersion(version, System.currentTimeMillis()));
+    }
+
+    /**
+     * Read the entries of a persistent file into the cache, once per file.
+     * Entries in memory that are newer than the persisted entries are kept.
+     *
+     * @param file the persistent file
+     * @param log the logger
+     */
+    public synchronized void load(File file, Log log) {
+        if (!loadedFiles.add(file) || !file.isFile()) {
+            return;
+        }
+        for (Map.Entry<String, CachedVersion> entry : read(file, log).entrySet()) {
+            CachedVersion cached = versions.get(entry.getKey());
+            if (cached == null || cached.resolvedAt < entry.getValue().resolvedAt) {
+                versions.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Write an entry to a persistent file, keeping the other entries of the file.
+     *
+     * @param file the persistent file
+     * @param key the version range key
+     * @param log the logger
+     */
+    public synchronized void store(File file, String key, Log log) {
+        CachedVersion cached = versions.get(key);
+        if (cached == null) {
+            return;
+        }
+        Map<String, CachedVersion> persisted = read(file, log);
+        persisted.put(key, cached);
+        Properties properties = new Properties();
+        for (Map.Entry<String, CachedVersion> entry : persisted.entrySet()) {
+            properties.setProperty(entry.getKey(), entry.getValue().resolvedAt + ":" + entry.getValue().version);
+        }
+        try {
+            File parent = file.getParentFile();
+            if (parent != null && !parent.exists()) {
+                parent.mkdirs();
+            }
+            OutputStream out = new FileOutputStream(file);
+            try {
+                properties.store(out, "Resolved version ranges");
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            log.debug("Unable to write resolved version ranges to " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return the key of a version range of an artifact in the given repositories
+     */
+    public static String getKey(String groupId, String artifactId, String extension, String versionRange, String repositories) {
+        return groupId + ":" + artifactId + ":" + extension + ":" + versionRange + "@" + repositories;
+    }
+
+    private static Map<String, CachedVersion> read(File file, Log log) {
+        Map<String, CachedVersion> entries = new HashMap<String, CachedVersion>();
+        if (!file.isFile()) {
+            return entries;
+        }
+        Properties properties = new Properties();
+        try {
+            InputStream in = new FileInputStream(file);
+            try {
+                properties.load(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            log.debug("Unable to read resolved version ranges from " + file + ": " + e.getMessage());
+            return entries;
+        }
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key);
+            int separator = value.indexOf(':');
+            if (separator > 0) {
+                try {
+                    entries.put(key, new CachedVersion(value.substring(separator + 1), Long.parseLong(value.substring(0, separator))));
+                } catch (NumberFormatException e) {
+                    // ignore the damaged entry
+                }
+            }
+        }
+        return entries;
+    }
+
+}
@@ -0,0 +1,49 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.openliberty.tools.maven.applications.DeployMojo;
+import io.openliberty.tools.maven.server.CreateServerMojo;
+import io.openliberty.tools.maven.server.InstallFeatureMojo;
+import io.openliberty.tools.maven.server.InstallServerMojo;
+import io.openliberty.tools.maven.server.PackageServerMojo;
+import io.openliberty.tools.maven.server.StartServerMojo;
+import io.openliberty.tools.maven.server.StopServerMojo;
+
+public class BasicSupportTest {
+
+    // the goals override the method in another package
+    private static boolean isInstallGoal(BasicSupport mojo) {
+        return mojo.isInstallGoal();
+    }
+
+    @Test
+    public void testInstallGoals() {
+        // only the goals that install the runtime or features prefetch the runtime, license and feature artifacts
+        Assert.assertTrue(isInstallGoal(new CreateServerMojo()));
+        Assert.assertTrue(isInstallGoal(new InstallServerMojo()));
+        Assert.assertTrue(isInstallGoal(new InstallFeatureMojo()));
+
+        Assert.assertFalse(isInstallGoal(new StartServerMojo()));
+        Assert.assertFalse(isInstallGoal(new StopServerMojo()));
+        Assert.assertFalse(isInstallGoal(new DeployMojo()));
+        Assert.assertFalse(isInstallGoal(new PackageServerMojo()));
+    }
+
+}
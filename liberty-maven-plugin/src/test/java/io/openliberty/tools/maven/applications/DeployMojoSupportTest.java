@@ -0,0 +1,76 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.applications;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DeployMojoSupportTest {
+
+    private static boolean matches(String line, String... appNames) {
+        String regexp = DeployMojoSupport.getStartedAppsRegexp(new LinkedHashSet<String>(Arrays.asList(appNames)));
+        return Pattern.compile(regexp).matcher(line).find();
+    }
+
+    private static String started(String appName) {
+        return "[10/17/26 10:00:00:000 UTC] 00000030 com.ibm.ws.app.manager.AppMessageHelper A CWWKZ0001I: Application "
+                + appName + " started in 0.512 seconds.";
+    }
+
+    @Test
+    public void testMatchesAnyApplication() {
+        Assert.assertTrue(matches(started("app"), "app", "other"));
+        Assert.assertTrue(matches(started("other"), "app", "other"));
+        Assert.assertFalse(matches(started("third"), "app", "other"));
+    }
+
+    @Test
+    public void testPrefixNames() {
+        // the start of app-admin is not the start of app, and the other way around
+        Assert.assertFalse(matches(started("app-admin"), "app"));
+        Assert.assertFalse(matches(started("app"), "app-admin"));
+        Assert.assertFalse(matches(started("app.v2"), "app"));
+        Assert.assertFalse(matches(started("app_2"), "app"));
+        Assert.assertFalse(matches(started("myapp"), "app"));
+        Assert.assertTrue(matches(started("app-admin"), "app", "app-admin"));
+        Assert.assertTrue(matches(started("app-admin"), "app-admin"));
+    }
+
+    @Test
+    public void testNamesAreQuoted() {
+        Assert.assertTrue(matches(started("app(1)"), "app(1)"));
+        Assert.assertFalse(matches(started("appx1"), "app.1"));
+        Assert.assertFalse(matches(started("a"), "a|b"));
+    }
+
+    @Test
+    public void testStartedApp() {
+        Pattern startedApps = Pattern.compile(DeployMojoSupport.getStartedAppsRegexp(new LinkedHashSet<String>(Arrays.asList("app", "app-admin"))));
+        Assert.assertEquals("app", DeployMojoSupport.getStartedApp(startedApps, started("app")));
+        Assert.assertEquals("app-admin", DeployMojoSupport.getStartedApp(startedApps, started("app-admin")));
+        Assert.assertNull(DeployMojoSupport.getStartedApp(startedApps, started("other")));
+    }
+
+    @Test
+    public void testOtherMessages() {
+        Assert.assertFalse(matches("CWWKZ0002E: An exception occurred while starting the application app.", "app"));
+    }
+
+}
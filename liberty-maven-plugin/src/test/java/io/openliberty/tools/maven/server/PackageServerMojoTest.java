@@ -0,0 +1,126 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipFile;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.openliberty.tools.maven.utils.LooseApplicationArchiver;
+import io.openliberty.tools.maven.utils.ParallelZipWriter;
+
+public class PackageServerMojoTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private static File write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static List<String> names(List<ParallelZipWriter.Entry> entries) {
+        List<String> names = new ArrayList<String>();
+        for (ParallelZipWriter.Entry entry : entries) {
+            names.add(entry.getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void testParseOutputTime() throws Exception {
+        Assert.assertEquals(1577836800000L, PackageServerMojo.parseOutputTime("2020-01-01T00:00:00Z"));
+        Assert.assertEquals(1577836800000L, PackageServerMojo.parseOutputTime("2020-01-01T02:00:00+02:00"));
+        Assert.assertEquals(1577836800000L, PackageServerMojo.parseOutputTime("1577836800"));
+        // no timestamp, or a single character that disables it, uses 1980-01-01T00:00:00Z
+        Assert.assertEquals(315532800000L, PackageServerMojo.parseOutputTime(""));
+        Assert.assertEquals(315532800000L, PackageServerMojo.parseOutputTime("a"));
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void testParseInvalidOutputTime() throws Exception {
+        PackageServerMojo.parseOutputTime("yesterday");
+    }
+
+    @Test
+    public void testAddWithParentDirectories() {
+        List<ParallelZipWriter.Entry> layer = new ArrayList<ParallelZipWriter.Entry>();
+        PackageServerMojo.addWithParentDirectories(layer, new ParallelZipWriter.Entry("wlp/lib/a.jar", new File("a.jar")));
+        PackageServerMojo.addWithParentDirectories(layer, new ParallelZipWriter.Entry("wlp/lib/b.jar", new File("b.jar")));
+        PackageServerMojo.addWithParentDirectories(layer, new ParallelZipWriter.Entry("wlp/lib/features/f.mf", new File("f.mf")));
+        PackageServerMojo.addWithParentDirectories(layer, new ParallelZipWriter.Entry("wlp/usr/c.txt", new File("c.txt")));
+
+        // each directory is added once, before its first file
+        Assert.assertEquals(Arrays.asList("wlp/", "wlp/lib/", "wlp/lib/a.jar", "wlp/lib/b.jar", "wlp/lib/features/",
+                "wlp/lib/features/f.mf", "wlp/usr/", "wlp/usr/c.txt"), names(layer));
+        Assert.assertNull(layer.get(0).getFile());
+    }
+
+    @Test
+    public void testAppLayerOfLooseApplication() throws Exception {
+        File classes = temp.newFolder("classes");
+        write(new File(classes, "a/A.class"), "A");
+        File serverDir = temp.newFolder("servers", "defaultServer");
+        write(new File(serverDir, "server.xml"), "<server/>");
+        write(new File(serverDir, "apps/app.war.xml"), "<archive><dir sourceOnDisk=\"" + classes
+                + "\" targetInArchive=\"/WEB-INF/classes\"/></archive>");
+        // only the apps and dropins directories contain loose applications
+        write(new File(serverDir, "configDropins/overrides/app.war.xml"), "<archive/>");
+
+        final ParallelZipWriter writer = new ParallelZipWriter(2, new SystemStreamLog());
+        LooseApplicationArchiver archiver = new LooseApplicationArchiver(new LooseApplicationArchiver.ArchiveWriter() {
+            @Override
+            public void write(File archive, List<ParallelZipWriter.Entry> entries) throws IOException {
+                writer.write(archive, entries);
+            }
+        });
+        String prefix = "wlp/usr/servers/defaultServer/";
+        List<ParallelZipWriter.Entry> entries = new ArrayList<ParallelZipWriter.Entry>();
+        PackageServerMojo.addPackageEntries(serverDir, prefix, Collections.<File>emptySet(), entries, archiver,
+                new File(temp.getRoot(), "loose-applications"));
+        Map<String, List<ParallelZipWriter.Entry>> layers = PackageServerMojo.getLayers(entries, "wlp/", null, null);
+
+        List<ParallelZipWriter.Entry> app = layers.get("app");
+        Assert.assertEquals(Arrays.asList("wlp/", "wlp/usr/", "wlp/usr/servers/", prefix, prefix + "apps/", prefix + "apps/app.war",
+                prefix + "configDropins/", prefix + "configDropins/overrides/", prefix + "configDropins/overrides/app.war.xml",
+                prefix + "server.xml"), names(app));
+        Assert.assertTrue(layers.get("runtime").isEmpty());
+
+        // the layer contains the application archive instead of the loose configuration
+        ZipFile war = new ZipFile(app.get(5).getFile());
+        try {
+            Assert.assertNotNull(war.getEntry("WEB-INF/classes/a/A.class"));
+        } finally {
+            war.close();
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.taskdefs.Chmod;
+import org.apache.tools.ant.taskdefs.Expand;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Compares the extraction time of the ArchiveExtractor with the Ant unzip and
+ * chmod tasks that install the runtime when parallelExtract is false. The
+ * benchmark only runs when an archive is given, e.g. an Open Liberty runtime zip:
+ *
+ * <pre>
+ * mvn test -Dtest=ArchiveExtractorBenchmarkTest -DarchiveExtractorBenchmark=/path/to/openliberty-runtime.zip
+ * </pre>
+ *
+ * The optional archiveExtractorBenchmarkRuns property sets the number of runs
+ * of each method, 5 by default. The median time of each method is logged.
+ */
+public class ArchiveExtractorBenchmarkTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private final Log log = new SystemStreamLog();
+
+    private static long median(List<Long> times) {
+        List<Long> sorted = new ArrayList<Long>(times);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+
+    // deletes the directory and returns the total size of its files
+    private static long delete(File file) {
+        long size = 0;
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                size += delete(child);
+            }
+        } else {
+            size = file.length();
+        }
+        file.delete();
+        return size;
+    }
+
+    private static void extractWithAnt(File archive, File destination, String scriptDirectory) {
+        Project project = new Project();
+        project.init();
+        Expand unzip = new Expand();
+        unzip.setProject(project);
+        unzip.setSrc(archive);
+        unzip.setDest(destination);
+        unzip.execute();
+
+        File scripts = new File(destination, scriptDirectory);
+        if (scripts.isDirectory()) {
+            Chmod chmod = new Chmod();
+            chmod.setProject(project);
+            chmod.setPerm("ugo+rx");
+            chmod.setDir(scripts);
+            chmod.setIncludes("*");
+            chmod.setExcludes("*.bat");
+            chmod.execute();
+        }
+    }
+
+    @Test
+    public void testCompareWithAntUnzip() throws Exception {
+        String archiveName = System.getProperty("archiveExtractorBenchmark");
+        if (archiveName == null || archiveName.isEmpty()) {
+            return;
+        }
+        File archive = new File(archiveName);
+        Assert.assertTrue("The benchmark archive " + archive + " does not exist", archive.isFile());
+        int runs = Integer.getInteger("archiveExtractorBenchmarkRuns", 5);
+        // the same number of threads as the install goals
+        int threads = Math.min(Runtime.getRuntime().availableProcessors(), 8);
+        ArchiveExtractor parallel = new ArchiveExtractor(threads, log);
+        ArchiveExtractor single = new ArchiveExtractor(1, log);
+
+        List<Long> antTimes = new ArrayList<Long>();
+        List<Long> singleTimes = new ArrayList<Long>();
+        List<Long> parallelTimes = new ArrayList<Long>();
+        long antSize = 0;
+        long parallelSize = 0;
+        // alternate the methods so that they see the same file system cache state
+        for (int run = 0; run < runs; run++) {
+            File antDir = temp.newFolder("ant" + run);
+            long start = System.nanoTime();
+            extractWithAnt(archive, antDir, "wlp/bin/");
+            antTimes.add((System.nanoTime() - start) / 1000000);
+            antSize = delete(antDir);
+
+            File singleDir = temp.newFolder("single" + run);
+            start = System.nanoTime();
+            single.extract(archive, singleDir, "wlp/bin/");
+            singleTimes.add((System.nanoTime() - start) / 1000000);
+            delete(singleDir);
+
+            File parallelDir = temp.newFolder("parallel" + run);
+            start = System.nanoTime();
+            parallel.extract(archive, parallelDir, "wlp/bin/");
+            parallelTimes.add((System.nanoTime() - start) / 1000000);
+            parallelSize = delete(parallelDir);
+        }
+
+        Assert.assertEquals("The extracted sizes differ", antSize, parallelSize);
+        log.info("Extracted " + archive + " (" + archive.length() / 1024 + " KB) " + runs + " times on "
+                + Runtime.getRuntime().availableProcessors() + " processors, median times: Ant unzip and chmod "
+                + median(antTimes) + " ms, ArchiveExtractor with 1 thread " + median(singleTimes) + " ms, ArchiveExtractor with "
+                + threads + " threads " + median(parallelTimes) + " ms");
+    }
+
+}
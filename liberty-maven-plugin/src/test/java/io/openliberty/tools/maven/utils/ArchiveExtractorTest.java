@@ -0,0 +1,180 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ArchiveExtractorTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private final ArchiveExtractor extractor = new ArchiveExtractor(4, new SystemStreamLog());
+
+    private static boolean isPosix() {
+        return FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+    }
+
+    /**
+     * Write a zip archive. Entries with a mode are marked as created on unix
+     * with the mode in the external attributes of the central directory.
+     */
+    private File createArchive(Map<String, String> entries, Map<String, Integer> modes) throws IOException {
+        File archive = temp.newFile("archive.zip");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        try {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                out.putNextEntry(new ZipEntry(entry.getKey()));
+                if (entry.getValue() != null) {
+                    out.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                }
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+
+        ByteBuffer zip = ByteBuffer.wrap(Files.readAllBytes(archive.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        int eocd = zip.limit() - 22;
+        int position = zip.getInt(eocd + 16);
+        int count = zip.getShort(eocd + 10);
+        for (int i = 0; i < count; i++) {
+            int nameLength = zip.getShort(position + 28);
+            byte[] name = new byte[nameLength];
+            zip.position(position + 46);
+            zip.get(name);
+            Integer mode = modes.get(new String(name, StandardCharsets.UTF_8));
+            if (mode != null) {
+                zip.put(position + 5, (byte) 3);
+                zip.putInt(position + 38, (0100000 | mode) << 16);
+            }
+            position += 46 + nameLength + zip.getShort(position + 30) + zip.getShort(position + 32);
+        }
+        Files.write(archive.toPath(), zip.array());
+        return archive;
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private Map<String, String> runtimeEntries() {
+        Map<String, String> entries = new LinkedHashMap<String, String>();
+        entries.put("wlp/", null);
+        entries.put("wlp/bin/", null);
+        entries.put("wlp/bin/server", "#!/bin/sh");
+        entries.put("wlp/bin/server.bat", "@echo off");
+        entries.put("wlp/bin/tools/ws-server.jar", "jar");
+        entries.put("wlp/lib/versions/openliberty.properties", "version=20.0.0.5");
+        entries.put("wlp/etc/", null);
+        return entries;
+    }
+
+    @Test
+    public void testExtract() throws Exception {
+        File archive = createArchive(runtimeEntries(), Collections.<String, Integer>emptyMap());
+        File destination = temp.newFolder("install");
+        Assert.assertEquals(4, extractor.extract(archive, destination, "wlp/bin/"));
+        Assert.assertEquals("#!/bin/sh", read(new File(destination, "wlp/bin/server")));
+        Assert.assertEquals("version=20.0.0.5", read(new File(destination, "wlp/lib/versions/openliberty.properties")));
+        Assert.assertTrue(new File(destination, "wlp/etc").isDirectory());
+
+        if (isPosix()) {
+            Assert.assertTrue(Files.getPosixFilePermissions(new File(destination, "wlp/bin/server").toPath())
+                    .contains(PosixFilePermission.OTHERS_EXECUTE));
+            Assert.assertFalse(Files.getPosixFilePermissions(new File(destination, "wlp/bin/server.bat").toPath())
+                    .contains(PosixFilePermission.OTHERS_EXECUTE));
+            Assert.assertFalse(Files.getPosixFilePermissions(new File(destination, "wlp/bin/tools/ws-server.jar").toPath())
+                    .contains(PosixFilePermission.OTHERS_EXECUTE));
+        }
+    }
+
+    @Test
+    public void testUnixModesAreRestored() throws Exception {
+        if (!isPosix()) {
+            return;
+        }
+        Map<String, Integer> modes = new LinkedHashMap<String, Integer>();
+        modes.put("wlp/lib/versions/openliberty.properties", 0600);
+        modes.put("wlp/bin/tools/ws-server.jar", 0755);
+        File archive = createArchive(runtimeEntries(), modes);
+        File destination = temp.newFolder("install");
+        extractor.extract(archive, destination, "wlp/bin/");
+        Assert.assertEquals(PosixFilePermissions.fromString("rw-------"),
+                Files.getPosixFilePermissions(new File(destination, "wlp/lib/versions/openliberty.properties").toPath()));
+        Assert.assertEquals(PosixFilePermissions.fromString("rwxr-xr-x"),
+                Files.getPosixFilePermissions(new File(destination, "wlp/bin/tools/ws-server.jar").toPath()));
+    }
+
+    @Test
+    public void testExtractSelectedFiles() throws Exception {
+        File archive = createArchive(runtimeEntries(), Collections.<String, Integer>emptyMap());
+        File destination = temp.newFolder("install");
+        Set<String> names = Collections.singleton("wlp/bin/server");
+        Assert.assertEquals(1, extractor.extract(archive, destination, "wlp/bin/", names));
+        Assert.assertTrue(new File(destination, "wlp/bin/server").isFile());
+        Assert.assertFalse(new File(destination, "wlp/bin/server.bat").exists());
+        Assert.assertTrue(new File(destination, "wlp/etc").isDirectory());
+    }
+
+    @Test
+    public void testLinkedFileIsReplaced() throws Exception {
+        File archive = createArchive(runtimeEntries(), Collections.<String, Integer>emptyMap());
+        File shared = temp.newFile("shared.properties");
+        Files.write(shared.toPath(), "shared".getBytes(StandardCharsets.UTF_8));
+        File destination = temp.newFolder("install");
+        File target = new File(destination, "wlp/lib/versions/openliberty.properties");
+        target.getParentFile().mkdirs();
+        try {
+            Files.createLink(target.toPath(), shared.toPath());
+        } catch (UnsupportedOperationException | IOException e) {
+            return;
+        }
+        extractor.extract(archive, destination, "wlp/bin/");
+        Assert.assertEquals("version=20.0.0.5", read(target));
+        Assert.assertEquals("shared", read(shared));
+    }
+
+    @Test(expected = IOException.class)
+    public void testEntryOutsideDestination() throws Exception {
+        Map<String, String> entries = new LinkedHashMap<String, String>();
+        entries.put("../evil.sh", "rm");
+        File archive = createArchive(entries, Collections.<String, Integer>emptyMap());
+        extractor.extract(archive, temp.newFolder("install"), "wlp/bin/");
+    }
+
+}
@@ -0,0 +1,168 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ChangeBatcherTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File dir;
+    private List<File> inputs;
+    private ChangeBatcher batcher;
+    private final AtomicInteger runs = new AtomicInteger();
+
+    private final ChangeBatcher.Action<Integer, RuntimeException> action = new ChangeBatcher.Action<Integer, RuntimeException>() {
+        @Override
+        public Integer run() {
+            return runs.incrementAndGet();
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        dir = temp.newFolder("src");
+        inputs = Collections.singletonList(dir);
+        // the test files are not modified recently, so the window does not delay the batches
+        batcher = new ChangeBatcher(50, 1000, new SystemStreamLog());
+    }
+
+    private void write(String name, String content, long lastModified) throws Exception {
+        File file = new File(dir, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        file.setLastModified(lastModified);
+    }
+
+    @Test
+    public void testUnchangedFilesAreSkipped() throws Exception {
+        write("A.java", "class A {}", 1000000L);
+        batcher.seed(ChangeBatcher.Kind.JAVA, inputs, 0);
+        Assert.assertEquals(Integer.valueOf(0), batcher.process(ChangeBatcher.Kind.JAVA, inputs, action));
+        Assert.assertEquals(0, runs.get());
+    }
+
+    @Test
+    public void testEditIsProcessedOnce() throws Exception {
+        write("A.java", "class A {}", 1000000L);
+        batcher.seed(ChangeBatcher.Kind.JAVA, inputs, 0);
+        write("A.java", "class B {}", 2000000L);
+        Assert.assertEquals(Integer.valueOf(1), batcher.process(ChangeBatcher.Kind.JAVA, inputs, action));
+        // a second request for the same content is skipped and returns the last result
+        Assert.assertEquals(Integer.valueOf(1), batcher.process(ChangeBatcher.Kind.JAVA, inputs, action));
+        Assert.assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testTouchedFileWithSameContentIsSkipped() throws Exception {
+        write("A.java", "class A {}", 1000000L);
+        batcher.seed(ChangeBatcher.Kind.JAVA, inputs, 0);
+        write("A.java", "class B {}", 2000000L);
+        batcher.process(ChangeBatcher.Kind.JAVA, inputs, action);
+        // the time changed, so the file is compared by digest
+        write("A.java", "class B {}", 3000000L);
+        batcher.process(ChangeBatcher.Kind.JAVA, inputs, action);
+        Assert.assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testFilesWithUnchangedSizeAndTimeAreNotRead() throws Exception {
+        write("A.java", "class A {}", 1000000L);
+        batcher.seed(ChangeBatcher.Kind.JAVA, inputs, 0);
+        // the same size and an old time look unchanged without reading the file
+        write("A.java", "class B {}", 1000000L);
+        batcher.process(ChangeBatcher.Kind.JAVA, inputs, action);
+        Assert.assertEquals(0, runs.get());
+    }
+
+    @Test
+    public void testDisabledBatchingAlwaysRuns() throws Exception {
+        batcher = new ChangeBatcher(0, 0, new SystemStreamLog());
+        write("A.java", "class A {}", 1000000L);
+        batcher.seed(ChangeBatcher.Kind.JAVA, inputs, 0);
+        Assert.assertEquals(Integer.valueOf(1), batcher.process(ChangeBatcher.Kind.JAVA, inputs, action));
+        Assert.assertEquals(Integer.valueOf(2), batcher.process(ChangeBatcher.Kind.JAVA, inputs, action));
+    }
+
+    @Test
+    public void testRecentEditWithSameTimestampIsProcessed() throws Exception {
+        long now = System.currentTimeMillis();
+        write("A.java", "class A {}", now);
+        batcher.seed(ChangeBatcher.Kind.JAVA, inputs, 0);
+        write("A.java", "class B {}", now);
+        batcher.process(ChangeBatcher.Kind.JAVA, inputs, action);
+        write("A.java", "class C {}", now);
+        batcher.process(ChangeBatcher.Kind.JAVA, inputs, action);
+        Assert.assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void testAddedAndDeletedFilesAreProcessed() throws Exception {
+        write("A.java", "class A {}", 1000000L);
+        batcher.seed(ChangeBatcher.Kind.JAVA, inputs, 0);
+        write("B.java", "class B {}", 1000000L);
+        batcher.process(ChangeBatcher.Kind.JAVA, inputs, action);
+        Files.delete(new File(dir, "A.java").toPath());
+        batcher.process(ChangeBatcher.Kind.JAVA, inputs, action);
+        Assert.assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void testKindsAreIndependent() throws Exception {
+        write("A.java", "class A {}", 1000000L);
+        batcher.seed(ChangeBatcher.Kind.JAVA, inputs, 0);
+        batcher.process(ChangeBatcher.Kind.TEST_JAVA, inputs, action);
+        Assert.assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testSettleAlwaysRuns() throws Exception {
+        write("A.class", "class", 1000000L);
+        batcher.settle(ChangeBatcher.Kind.RESOURCE, inputs, action);
+        batcher.settle(ChangeBatcher.Kind.RESOURCE, inputs, action);
+        Assert.assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void testWaitsForRecentChangesToSettle() throws Exception {
+        batcher = new ChangeBatcher(100, 5000, new SystemStreamLog());
+        write("A.java", "class A {}", System.currentTimeMillis());
+        long start = System.currentTimeMillis();
+        batcher.process(ChangeBatcher.Kind.JAVA, inputs, action);
+        Assert.assertTrue(System.currentTimeMillis() - start >= 100);
+
+        // files that were not modified recently are processed without waiting
+        write("A.java", "class B {}", 1000000L);
+        start = System.currentTimeMillis();
+        batcher.process(ChangeBatcher.Kind.JAVA, inputs, action);
+        Assert.assertTrue(System.currentTimeMillis() - start < 100);
+        Assert.assertEquals(2, runs.get());
+    }
+
+}
@@ -0,0 +1,104 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ClassDependencyUtilTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    static class Constants {
+        static final int INT_VALUE = 1;
+        static final long LONG_VALUE = 2L;
+        static final double DOUBLE_VALUE = 3.0;
+        static final String STRING_VALUE = "value";
+    }
+
+    static abstract class References implements Callable<String> {
+        static final List<String> NAMES = new ArrayList<String>();
+        private Set<File> files;
+
+        File[] getFiles(Constants constants) {
+            return files.toArray(new File[0]);
+        }
+    }
+
+    private static File getClassFile(Class<?> type) throws Exception {
+        return new File(type.getResource("/" + type.getName().replace('.', '/') + ".class").toURI());
+    }
+
+    @Test
+    public void testReferencedClasses() throws Exception {
+        Set<String> references = ClassDependencyUtil.getReferencedClasses(getClassFile(References.class));
+        Assert.assertTrue(references.toString(), references.contains(File.class.getName()));
+        Assert.assertTrue(references.toString(), references.contains(ArrayList.class.getName()));
+        Assert.assertTrue(references.toString(), references.contains(Callable.class.getName()));
+        // types that only appear in field and method signatures
+        Assert.assertTrue(references.toString(), references.contains(Set.class.getName()));
+        Assert.assertTrue(references.toString(), references.contains(Constants.class.getName()));
+    }
+
+    @Test
+    public void testDeclaresConstants() throws Exception {
+        ClassDependencyUtil.ClassFileInfo info = ClassDependencyUtil.readClassFile(getClassFile(Constants.class));
+        Assert.assertTrue(info.declaresConstants());
+    }
+
+    @Test
+    public void testStaticFinalObjectIsNotConstant() throws Exception {
+        ClassDependencyUtil.ClassFileInfo info = ClassDependencyUtil.readClassFile(getClassFile(References.class));
+        Assert.assertFalse(info.declaresConstants());
+    }
+
+    @Test
+    public void testSupertypesAndSourceFile() throws Exception {
+        ClassDependencyUtil.ClassFileInfo info = ClassDependencyUtil.readClassFile(getClassFile(References.class));
+        Assert.assertEquals(new HashSet<String>(Arrays.asList(Object.class.getName(), Callable.class.getName())), info.getSupertypes());
+        Assert.assertEquals("ClassDependencyUtilTest.java", info.getSourceFile());
+    }
+
+    @Test
+    public void testClassNames() {
+        File outputDirectory = new File("target/classes");
+        Assert.assertEquals("com.example.Outer$Inner", ClassDependencyUtil.getClassName(outputDirectory,
+                new File(outputDirectory, "com/example/Outer$Inner.class")));
+        Assert.assertEquals("com.example.Outer", ClassDependencyUtil.getTopLevelClassName("com.example.Outer$Inner"));
+        Assert.assertEquals("com.example.Outer", ClassDependencyUtil.getTopLevelClassName("com.example.Outer"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidClassFile() throws Exception {
+        File file = temp.newFile("Invalid.class");
+        Files.write(file.toPath(), new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+        ClassDependencyUtil.getReferencedClasses(file);
+    }
+
+}
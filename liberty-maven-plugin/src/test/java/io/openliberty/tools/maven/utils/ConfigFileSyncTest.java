@@ -0,0 +1,188 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ConfigFileSyncTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File createFile(File dir, String name, String content) throws IOException {
+        File file = new File(dir, name);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        File source = createFile(temp.newFolder("target"), "app.war", "new");
+        File dropins = temp.newFolder("dropins");
+        File target = createFile(dropins, "app.war", "old");
+
+        ConfigFileSync.copy(source, target);
+
+        Assert.assertEquals("new", read(target));
+        Assert.assertEquals("new", read(source));
+        // the temporary file is moved over the target
+        Assert.assertArrayEquals(new String[] { "app.war" }, dropins.list());
+    }
+
+    @Test
+    public void testCopyMissingSource() throws Exception {
+        File dropins = temp.newFolder("dropins");
+        File target = createFile(dropins, "app.war", "old");
+        try {
+            ConfigFileSync.copy(new File(temp.getRoot(), "missing.war"), target);
+            Assert.fail("The missing file cannot be copied");
+        } catch (IOException e) {
+            // expected
+        }
+        // the target is unchanged and no temporary file is left behind
+        Assert.assertEquals("old", read(target));
+        Assert.assertArrayEquals(new String[] { "app.war" }, dropins.list());
+    }
+
+
+    @Test
+    public void testSyncDirectory() throws Exception {
+        File configDir = temp.newFolder("config");
+        File serverDir = temp.newFolder("server");
+        File manifest = new File(temp.getRoot(), "sync/defaultServer.properties");
+        createFile(configDir, "server.xml", "<server/>");
+        createFile(configDir, "configDropins/overrides/a.xml", "<server>a</server>");
+        createFile(configDir, ".svn/entries", "version control");
+
+        ConfigFileSync sync = new ConfigFileSync(manifest, new SystemStreamLog());
+        sync.syncDirectory(configDir, serverDir);
+        Assert.assertEquals("<server/>", read(new File(serverDir, "server.xml")));
+        Assert.assertEquals("<server>a</server>", read(new File(serverDir, "configDropins/overrides/a.xml")));
+        // default excludes such as version control files are not copied
+        Assert.assertFalse(new File(serverDir, ".svn").exists());
+
+        // unchanged files are not written again
+        File serverXml = new File(serverDir, "server.xml");
+        serverXml.setLastModified(1000000000000L);
+        sync = new ConfigFileSync(manifest, new SystemStreamLog());
+        sync.syncDirectory(configDir, serverDir);
+        Assert.assertEquals(1000000000000L, serverXml.lastModified());
+
+        // changed files are copied
+        createFile(configDir, "server.xml", "<server description=\"changed\"/>");
+        sync = new ConfigFileSync(manifest, new SystemStreamLog());
+        sync.syncDirectory(configDir, serverDir);
+        Assert.assertEquals("<server description=\"changed\"/>", read(serverXml));
+        sync.logSummary(serverDir);
+    }
+
+    @Test
+    public void testSyncDirectoryDeletesRemovedFiles() throws Exception {
+        File configDir = temp.newFolder("config");
+        File serverDir = temp.newFolder("server");
+        File manifest = new File(temp.getRoot(), "defaultServer.properties");
+        File removed = createFile(configDir, "configDropins/overrides/removed.xml", "<server/>");
+        File modified = createFile(configDir, "configDropins/overrides/modified.xml", "<server/>");
+        createFile(serverDir, "configDropins/overrides/server-only.xml", "<server/>");
+        new ConfigFileSync(manifest, new SystemStreamLog()).syncDirectory(configDir, serverDir);
+
+        removed.delete();
+        modified.delete();
+        createFile(serverDir, "configDropins/overrides/modified.xml", "<server>modified</server>");
+        new ConfigFileSync(manifest, new SystemStreamLog()).syncDirectory(configDir, serverDir);
+
+        // files copied before are deleted unless they were modified in the server directory
+        Assert.assertFalse(new File(serverDir, "configDropins/overrides/removed.xml").exists());
+        Assert.assertTrue(new File(serverDir, "configDropins/overrides/modified.xml").exists());
+        // files that were not copied from the configuration directory are kept
+        Assert.assertTrue(new File(serverDir, "configDropins/overrides/server-only.xml").exists());
+    }
+
+    @Test
+    public void testSyncDirectoryExcludes() throws Exception {
+        File configDir = temp.newFolder("config");
+        File serverDir = temp.newFolder("server");
+        File manifest = new File(temp.getRoot(), "defaultServer.properties");
+        createFile(configDir, "server.env", "A=1");
+        new ConfigFileSync(manifest, new SystemStreamLog()).syncDirectory(configDir, serverDir);
+        Assert.assertTrue(new File(serverDir, "server.env").exists());
+
+        // an excluded file, e.g. one that is generated instead, is neither copied nor deleted
+        createFile(configDir, "server.env", "A=2");
+        new ConfigFileSync(manifest, new SystemStreamLog()).syncDirectory(configDir, serverDir, "server.env");
+        Assert.assertEquals("A=1", read(new File(serverDir, "server.env")));
+    }
+
+    @Test
+    public void testSyncFile() throws Exception {
+        File source = createFile(temp.newFolder("config"), "bootstrap.properties", "a=1");
+        File target = new File(temp.getRoot(), "server/bootstrap.properties");
+        ConfigFileSync sync = new ConfigFileSync(new File(temp.getRoot(), "defaultServer.properties"), new SystemStreamLog());
+        sync.syncFile(source, target);
+        Assert.assertEquals("a=1", read(target));
+    }
+
+
+    @Test
+    public void testWriteIfChanged() throws Exception {
+        File serverDir = temp.newFolder("server");
+        File target = new File(serverDir, "bootstrap.properties");
+        Assert.assertTrue(ConfigFileSync.writeIfChanged(target, "a=1".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertEquals("a=1", read(target));
+
+        target.setLastModified(1000000000000L);
+        Assert.assertFalse(ConfigFileSync.writeIfChanged(target, "a=1".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertEquals(1000000000000L, target.lastModified());
+
+        // same size, different content
+        Assert.assertTrue(ConfigFileSync.writeIfChanged(target, "a=2".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertEquals("a=2", read(target));
+        Assert.assertArrayEquals(new String[] { "bootstrap.properties" }, serverDir.list());
+    }
+
+    @Test
+    public void testReplaceIfChanged() throws Exception {
+        File serverDir = temp.newFolder("server");
+        File target = createFile(serverDir, "jvm.options", "-Xmx1g");
+        target.setLastModified(1000000000000L);
+
+        File generated = createFile(serverDir, ".jvm.options.tmp", "-Xmx1g");
+        Assert.assertFalse(ConfigFileSync.replaceIfChanged(generated, target));
+        Assert.assertEquals(1000000000000L, target.lastModified());
+        // the generated file is deleted in both cases
+        Assert.assertFalse(generated.exists());
+
+        generated = createFile(serverDir, ".jvm.options.tmp", "-Xmx2g");
+        Assert.assertTrue(ConfigFileSync.replaceIfChanged(generated, target));
+        Assert.assertEquals("-Xmx2g", read(target));
+        Assert.assertFalse(generated.exists());
+    }
+
+}
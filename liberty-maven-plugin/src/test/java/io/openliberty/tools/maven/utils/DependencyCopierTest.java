@@ -0,0 +1,130 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DependencyCopierTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File createFile(File dir, String name, String content) throws IOException {
+        File file = new File(dir, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        File repository = temp.newFolder("repository");
+        File target = temp.newFolder("lib");
+        File source = createFile(repository, "a-1.0.jar", "a");
+        File copy = new File(target, "a.jar");
+
+        DependencyCopier copier = new DependencyCopier(2, false, new SystemStreamLog());
+        copier.add(source, copy);
+        copier.copy();
+
+        Assert.assertEquals("a", read(copy));
+        Assert.assertFalse(Files.isSameFile(source.toPath(), copy.toPath()));
+        // changing the copy does not change the local repository
+        Files.write(copy.toPath(), "changed".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals("a", read(source));
+        // no temporary files are left in the target directory
+        Assert.assertArrayEquals(new String[] { "a.jar" }, target.list());
+    }
+
+    @Test
+    public void testUnchangedFilesAreKept() throws Exception {
+        File repository = temp.newFolder("repository");
+        File target = temp.newFolder("lib");
+        File source = createFile(repository, "a-1.0.jar", "a");
+        File copy = createFile(target, "a.jar", "a");
+        copy.setLastModified(1000000000000L);
+
+        DependencyCopier copier = new DependencyCopier(2, false, new SystemStreamLog());
+        copier.add(source, copy);
+        copier.copy();
+
+        Assert.assertEquals(1000000000000L, copy.lastModified());
+    }
+
+    @Test
+    public void testChangedFilesAreReplaced() throws Exception {
+        File repository = temp.newFolder("repository");
+        File target = temp.newFolder("lib");
+        File source = createFile(repository, "a-1.1.jar", "b");
+        File copy = createFile(target, "a.jar", "a");
+
+        DependencyCopier copier = new DependencyCopier(2, false, new SystemStreamLog());
+        copier.add(source, copy);
+        copier.copy();
+
+        Assert.assertEquals("b", read(copy));
+        Assert.assertArrayEquals(new String[] { "a.jar" }, target.list());
+    }
+
+    @Test
+    public void testLastSourceWins() throws Exception {
+        File repository = temp.newFolder("repository");
+        File target = temp.newFolder("lib");
+        File copy = new File(target, "a.jar");
+
+        DependencyCopier copier = new DependencyCopier(2, false, new SystemStreamLog());
+        copier.add(createFile(repository, "a-1.0.jar", "1.0"), copy);
+        copier.add(createFile(repository, "a-1.1.jar", "1.1"), copy);
+        copier.copy();
+
+        Assert.assertEquals("1.1", read(copy));
+    }
+
+    @Test
+    public void testLink() throws Exception {
+        File repository = temp.newFolder("repository");
+        File target = temp.newFolder("lib");
+        File source = createFile(repository, "a-1.0.jar", "a");
+        File copy = createFile(target, "a.jar", "old");
+
+        DependencyCopier copier = new DependencyCopier(2, true, new SystemStreamLog());
+        copier.add(source, copy);
+        copier.copy();
+
+        Assert.assertEquals("a", read(copy));
+        // the file is linked where the file system supports hard links, and copied otherwise
+        try {
+            Files.createLink(new File(temp.getRoot(), "probe").toPath(), source.toPath());
+        } catch (UnsupportedOperationException | IOException e) {
+            return;
+        }
+        Assert.assertTrue(Files.isSameFile(source.toPath(), copy.toPath()));
+        Assert.assertArrayEquals(new String[] { "a.jar" }, target.list());
+    }
+
+}
@@ -0,0 +1,143 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Exclusion;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DependencyDiffTest {
+
+    private static Dependency dependency(String artifactId, String version, String scope) {
+        Dependency dependency = new Dependency();
+        dependency.setGroupId("com.example");
+        dependency.setArtifactId(artifactId);
+        dependency.setVersion(version);
+        dependency.setScope(scope);
+        return dependency;
+    }
+
+    private static List<String> keys(List<Dependency> dependencies) {
+        List<String> keys = new ArrayList<String>();
+        for (Dependency dependency : dependencies) {
+            keys.add(DependencyDiff.getKey(dependency));
+        }
+        return keys;
+    }
+
+    @Test
+    public void testUnchanged() {
+        DependencyDiff diff = new DependencyDiff(Arrays.asList(dependency("a", "1.0", null), dependency("b", "1.0", "test")),
+                Arrays.asList(dependency("b", "1.0", "test"), dependency("a", "1.0", "compile")));
+        // the order of the dependencies and the default compile scope do not matter
+        Assert.assertTrue(diff.isEmpty());
+        Assert.assertTrue(diff.getAddedOrChanged().isEmpty());
+    }
+
+    @Test
+    public void testAddedRemovedAndChanged() {
+        DependencyDiff diff = new DependencyDiff(
+                Arrays.asList(dependency("a", "1.0", null), dependency("b", "1.0", null), dependency("c", "1.0", null)),
+                Arrays.asList(dependency("a", "1.0", null), dependency("c", "2.0", null), dependency("d", "1.0", null)));
+        Assert.assertFalse(diff.isEmpty());
+        Assert.assertEquals(Arrays.asList("com.example:d:jar::1.0"), keys(diff.getAdded()));
+        Assert.assertEquals(Arrays.asList("com.example:b:jar::1.0"), keys(diff.getRemoved()));
+        Assert.assertEquals(Arrays.asList("com.example:c:jar::2.0"), keys(diff.getChanged()));
+        Assert.assertEquals(Arrays.asList("com.example:d:jar::1.0", "com.example:c:jar::2.0"), keys(diff.getAddedOrChanged()));
+    }
+
+    @Test
+    public void testOptionalChange() {
+        Dependency optional = dependency("a", "1.0", null);
+        optional.setOptional(true);
+        DependencyDiff diff = new DependencyDiff(Arrays.asList(dependency("a", "1.0", null)), Arrays.asList(optional));
+        Assert.assertEquals(Arrays.asList(optional), diff.getChanged());
+    }
+
+    private static Dependency exclude(Dependency dependency, String artifactId) {
+        Exclusion exclusion = new Exclusion();
+        exclusion.setGroupId("com.example");
+        exclusion.setArtifactId(artifactId);
+        dependency.addExclusion(exclusion);
+        return dependency;
+    }
+
+    @Test
+    public void testExclusionsChange() {
+        Dependency excluded = exclude(dependency("a", "1.0", null), "x");
+        DependencyDiff diff = new DependencyDiff(Arrays.asList(dependency("a", "1.0", null)), Arrays.asList(excluded));
+        Assert.assertEquals(Arrays.asList(excluded), diff.getChanged());
+
+        // the order of the exclusions does not matter
+        diff = new DependencyDiff(Arrays.asList(exclude(exclude(dependency("a", "1.0", null), "x"), "y")),
+                Arrays.asList(exclude(exclude(dependency("a", "1.0", null), "y"), "x")));
+        Assert.assertTrue(diff.isEmpty());
+    }
+
+    @Test
+    public void testSystemPathChange() {
+        Dependency system = dependency("a", "1.0", "system");
+        system.setSystemPath("/lib/a-1.0.jar");
+        Dependency moved = dependency("a", "1.0", "system");
+        moved.setSystemPath("/opt/lib/a-1.0.jar");
+        DependencyDiff diff = new DependencyDiff(Arrays.asList(system), Arrays.asList(moved));
+        Assert.assertEquals(Arrays.asList(moved), diff.getChanged());
+        Assert.assertTrue(diff.hasChangesInScope("system"));
+    }
+
+    @Test
+    public void testClassifierAndType() {
+        Dependency tests = dependency("a", "1.0", null);
+        tests.setClassifier("tests");
+        Dependency feature = dependency("f", "1.0", "provided");
+        feature.setType("esa");
+        DependencyDiff diff = new DependencyDiff(Arrays.asList(dependency("a", "1.0", null)),
+                Arrays.asList(dependency("a", "1.0", null), tests, feature));
+        // a classifier is a different dependency
+        Assert.assertEquals(Arrays.asList("com.example:a:jar:tests:1.0", "com.example:f:esa::1.0"), keys(diff.getAdded()));
+        Assert.assertTrue(diff.hasChangesOfType("esa"));
+        Assert.assertFalse(diff.hasChangesOfType("war"));
+    }
+
+    @Test
+    public void testScopeChanges() {
+        DependencyDiff diff = new DependencyDiff(Arrays.asList(dependency("a", "1.0", "test")),
+                Arrays.asList(dependency("a", "1.0", null)));
+        // a dependency that moved from test to compile scope is a change in both scopes
+        Assert.assertTrue(diff.hasChangesInScope("compile"));
+        Assert.assertTrue(diff.hasChangesInScope("test"));
+        Assert.assertFalse(diff.hasChangesInScope("provided"));
+
+        diff = new DependencyDiff(Collections.<Dependency>emptyList(), Arrays.asList(dependency("b", "1.0", "provided")));
+        Assert.assertTrue(diff.hasChangesInScope("provided"));
+        Assert.assertFalse(diff.hasChangesInScope("compile"));
+    }
+
+    @Test
+    public void testNullLists() {
+        DependencyDiff diff = new DependencyDiff(null, Arrays.asList(dependency("a", "1.0", null)));
+        Assert.assertEquals(1, diff.getAdded().size());
+        diff = new DependencyDiff(Arrays.asList(dependency("a", "1.0", null)), null);
+        Assert.assertEquals(1, diff.getRemoved().size());
+    }
+
+}
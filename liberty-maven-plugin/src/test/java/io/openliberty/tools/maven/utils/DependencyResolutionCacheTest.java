@@ -0,0 +1,298 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.CollectResult;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.util.artifact.DefaultArtifactTypeRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DependencyResolutionCacheTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File cacheDirectory;
+    private DefaultRepositorySystemSession session;
+
+    // the dependencies of the collect requests sent to the repository system
+    private final List<List<String>> collected = new ArrayList<List<String>>();
+
+    // the artifacts resolved by the repository system
+    private final List<String> resolvedArtifacts = Collections.synchronizedList(new ArrayList<String>());
+
+    @Before
+    public void setUp() throws Exception {
+        cacheDirectory = temp.newFolder("cache");
+        session = new DefaultRepositorySystemSession();
+        session.setArtifactTypeRegistry(new DefaultArtifactTypeRegistry());
+    }
+
+    private static DependencyNode newNode(org.eclipse.aether.artifact.Artifact artifact, DependencyNode... children) {
+        DefaultDependencyNode node = new DefaultDependencyNode(new org.eclipse.aether.graph.Dependency(artifact.setFile(null), "compile"));
+        node.setChildren(new ArrayList<DependencyNode>(Arrays.asList(children)));
+        return node;
+    }
+
+    private RepositorySystem newRepositorySystem(final org.eclipse.aether.artifact.Artifact... resolved) {
+        DependencyNode[] nodes = new DependencyNode[resolved.length];
+        for (int i = 0; i < resolved.length; i++) {
+            nodes[i] = newNode(resolved[i]);
+        }
+        return newRepositorySystem(Arrays.asList(resolved), nodes);
+    }
+
+    /**
+     * @param resolved the artifacts with their files
+     * @param nodes the collected dependency graph
+     */
+    private RepositorySystem newRepositorySystem(final List<org.eclipse.aether.artifact.Artifact> resolved, final DependencyNode... nodes) {
+        return (RepositorySystem) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { RepositorySystem.class },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("collectDependencies")) {
+                            CollectRequest request = (CollectRequest) args[1];
+                            List<String> dependencies = new ArrayList<String>();
+                            for (org.eclipse.aether.graph.Dependency dependency : request.getDependencies()) {
+                                dependencies.add(dependency.getArtifact().getArtifactId() + ":" + dependency.getArtifact().getVersion());
+                            }
+                            collected.add(dependencies);
+                            DefaultDependencyNode root = new DefaultDependencyNode(request.getRootArtifact());
+                            root.setChildren(new ArrayList<DependencyNode>(Arrays.asList(nodes)));
+                            CollectResult result = new CollectResult(request);
+                            result.setRoot(root);
+                            return result;
+                        }
+                        if (method.getName().equals("resolveArtifact")) {
+                            ArtifactRequest request = (ArtifactRequest) args[1];
+                            for (org.eclipse.aether.artifact.Artifact artifact : resolved) {
+                                if (artifact.getArtifactId().equals(request.getArtifact().getArtifactId())
+                                        && artifact.getVersion().equals(request.getArtifact().getVersion())) {
+                                    resolvedArtifacts.add(artifact.getArtifactId() + ":" + artifact.getVersion());
+                                    ArtifactResult result = new ArtifactResult(request);
+                                    result.setArtifact(artifact);
+                                    return result;
+                                }
+                            }
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static MavenProject newProject(Dependency... dependencies) {
+        MavenProject project = new MavenProject();
+        project.setGroupId("test");
+        project.setArtifactId("app");
+        project.setVersion("1.0");
+        project.setArtifact(new DefaultArtifact("test", "app", "1.0", null, "war", null, new DefaultArtifactHandler("war")));
+        project.setDependencies(new ArrayList<Dependency>(Arrays.asList(dependencies)));
+        return project;
+    }
+
+    private static Dependency newDependency(String artifactId, String version) {
+        Dependency dependency = new Dependency();
+        dependency.setGroupId("test");
+        dependency.setArtifactId(artifactId);
+        dependency.setVersion(version);
+        return dependency;
+    }
+
+    private Artifact newArtifact(String artifactId, String version) throws Exception {
+        Artifact artifact = new DefaultArtifact("test", artifactId, version, "compile", "jar", null, new DefaultArtifactHandler("jar"));
+        File file = new File(temp.getRoot(), artifactId + "-" + version + ".jar");
+        file.createNewFile();
+        artifact.setFile(file);
+        artifact.setDependencyTrail(Arrays.asList("test:app:war:1.0", artifact.getId()));
+        return artifact;
+    }
+
+    private static org.eclipse.aether.artifact.Artifact newResolvedArtifact(String artifactId, String version, File directory)
+            throws Exception {
+        File file = new File(directory, artifactId + "-" + version + ".jar");
+        file.createNewFile();
+        return new org.eclipse.aether.artifact.DefaultArtifact("test", artifactId, "jar", version).setFile(file);
+    }
+
+    private static List<String> getIds(Set<Artifact> artifacts) {
+        List<String> ids = new ArrayList<String>();
+        for (Artifact artifact : artifacts) {
+            ids.add(artifact.getArtifactId() + ":" + artifact.getVersion());
+        }
+        return ids;
+    }
+
+    @Test
+    public void testKey() {
+        String key = DependencyResolutionCache.getKey(newProject(newDependency("a", "1.0")));
+        Assert.assertEquals(key, DependencyResolutionCache.getKey(newProject(newDependency("a", "1.0"))));
+        Assert.assertNotEquals(key, DependencyResolutionCache.getKey(newProject(newDependency("a", "2.0"))));
+        Assert.assertNotEquals(key, DependencyResolutionCache.getKey(newProject(newDependency("a", "1.0"), newDependency("b", "1.0"))));
+
+        Dependency excluded = newDependency("a", "1.0");
+        Exclusion exclusion = new Exclusion();
+        exclusion.setGroupId("test");
+        exclusion.setArtifactId("c");
+        excluded.addExclusion(exclusion);
+        Assert.assertNotEquals(key, DependencyResolutionCache.getKey(newProject(excluded)));
+    }
+
+    @Test
+    public void testUnchangedDependenciesReuseArtifacts() throws Exception {
+        MavenProject previous = newProject(newDependency("a", "1.0"));
+        Set<Artifact> artifacts = new LinkedHashSet<Artifact>(Arrays.asList(newArtifact("a", "1.0")));
+        previous.setArtifacts(artifacts);
+
+        MavenProject project = newProject(newDependency("a", "1.0"));
+        new DependencyResolutionCache(newRepositorySystem(), session, cacheDirectory, new SystemStreamLog()).resolve(project, previous);
+        Assert.assertEquals(Arrays.asList("a:1.0"), getIds(project.getArtifacts()));
+        Assert.assertTrue(collected.isEmpty());
+    }
+
+    @Test
+    public void testChangedDependenciesResolveAllDependencies() throws Exception {
+        MavenProject previous = newProject(newDependency("a", "1.0"));
+        Set<Artifact> artifacts = new LinkedHashSet<Artifact>(Arrays.asList(newArtifact("a", "1.0"), newArtifact("x", "1.0")));
+        previous.setArtifacts(artifacts);
+
+        // x:2.0 is declared directly and wins over x:1.0 that a depends on
+        File repository = temp.newFolder("repository");
+        RepositorySystem repositorySystem = newRepositorySystem(newResolvedArtifact("a", "1.0", repository),
+                newResolvedArtifact("x", "2.0", repository));
+        MavenProject project = newProject(newDependency("a", "1.0"), newDependency("x", "2.0"));
+        new DependencyResolutionCache(repositorySystem, session, cacheDirectory, new SystemStreamLog()).resolve(project, previous);
+
+        Assert.assertEquals(1, collected.size());
+        Assert.assertEquals(Arrays.asList("a:1.0", "x:2.0"), collected.get(0));
+        Assert.assertEquals(Arrays.asList("a:1.0", "x:2.0"), getIds(project.getArtifacts()));
+    }
+
+    @Test
+    public void testAddedDependenciesAreResolvedInOneRequest() throws Exception {
+        MavenProject previous = newProject(newDependency("a", "1.0"));
+        previous.setArtifacts(new LinkedHashSet<Artifact>(Arrays.asList(newArtifact("a", "1.0"))));
+
+        File repository = temp.newFolder("repository");
+        RepositorySystem repositorySystem = newRepositorySystem(newResolvedArtifact("a", "1.0", repository),
+                newResolvedArtifact("b", "1.0", repository), newResolvedArtifact("c", "1.0", repository),
+                newResolvedArtifact("d", "1.0", repository));
+        MavenProject project = newProject(newDependency("a", "1.0"), newDependency("b", "1.0"), newDependency("c", "1.0"),
+                newDependency("d", "1.0"));
+        new DependencyResolutionCache(repositorySystem, session, cacheDirectory, new SystemStreamLog()).resolve(project, previous);
+
+        // all added dependencies are collected together instead of one request each
+        Assert.assertEquals(1, collected.size());
+        Assert.assertEquals(Arrays.asList("a:1.0", "b:1.0", "c:1.0", "d:1.0"), collected.get(0));
+        Assert.assertEquals(Arrays.asList("a:1.0", "b:1.0", "c:1.0", "d:1.0"), getIds(project.getArtifacts()));
+        // only the added artifacts are resolved, the file of a is reused
+        Assert.assertEquals(new LinkedHashSet<String>(Arrays.asList("b:1.0", "c:1.0", "d:1.0")), new LinkedHashSet<String>(resolvedArtifacts));
+        Assert.assertEquals(previous.getArtifacts().iterator().next().getFile(), project.getArtifacts().iterator().next().getFile());
+        for (Artifact artifact : project.getArtifacts()) {
+            Assert.assertTrue(artifact.getFile().isFile());
+        }
+    }
+
+    @Test
+    public void testSharedArtifactsAreResolvedOnce() throws Exception {
+        MavenProject previous = newProject();
+        previous.setArtifacts(new LinkedHashSet<Artifact>());
+
+        // b and c both depend on x
+        File repository = temp.newFolder("repository");
+        org.eclipse.aether.artifact.Artifact b = newResolvedArtifact("b", "1.0", repository);
+        org.eclipse.aether.artifact.Artifact c = newResolvedArtifact("c", "1.0", repository);
+        org.eclipse.aether.artifact.Artifact x = newResolvedArtifact("x", "1.0", repository);
+        DependencyNode sharedX = newNode(x);
+        RepositorySystem repositorySystem = newRepositorySystem(Arrays.asList(b, c, x), newNode(b, sharedX), newNode(c, newNode(x)));
+        MavenProject project = newProject(newDependency("b", "1.0"), newDependency("c", "1.0"));
+        new DependencyResolutionCache(repositorySystem, session, cacheDirectory, new SystemStreamLog()).resolve(project, previous);
+
+        Assert.assertEquals(3, resolvedArtifacts.size());
+        Assert.assertEquals(new LinkedHashSet<String>(Arrays.asList("b:1.0", "c:1.0", "x:1.0")), new LinkedHashSet<String>(resolvedArtifacts));
+        Assert.assertEquals(Arrays.asList("b:1.0", "x:1.0", "c:1.0"), getIds(project.getArtifacts()));
+        for (Artifact artifact : project.getArtifacts()) {
+            Assert.assertTrue(artifact.getFile().isFile());
+        }
+    }
+
+    @Test
+    public void testStoredArtifactsAreReused() throws Exception {
+        MavenProject resolved = newProject(newDependency("a", "1.0"));
+        resolved.setArtifacts(new LinkedHashSet<Artifact>(Arrays.asList(newArtifact("a", "1.0"), newArtifact("b", "1.1"))));
+        new DependencyResolutionCache(newRepositorySystem(), session, cacheDirectory, new SystemStreamLog()).store(resolved);
+
+        // reverting to a stored dependency section loads the artifacts without resolving them
+        MavenProject previous = newProject(newDependency("a", "2.0"));
+        previous.setArtifacts(new LinkedHashSet<Artifact>());
+        MavenProject project = newProject(newDependency("a", "1.0"));
+        new DependencyResolutionCache(newRepositorySystem(), session, cacheDirectory, new SystemStreamLog()).resolve(project, previous);
+
+        Assert.assertTrue(collected.isEmpty());
+        Assert.assertEquals(Arrays.asList("a:1.0", "b:1.1"), getIds(project.getArtifacts()));
+        Artifact b = project.getArtifacts().toArray(new Artifact[0])[1];
+        Assert.assertEquals(Arrays.asList("test:app:war:1.0", "test:b:jar:1.1"), b.getDependencyTrail());
+        Assert.assertEquals("compile", b.getScope());
+        Assert.assertTrue(b.getFile().isFile());
+    }
+
+    @Test
+    public void testStoredArtifactsWithMissingFilesAreResolved() throws Exception {
+        MavenProject resolved = newProject(newDependency("a", "1.0"));
+        Artifact a = newArtifact("a", "1.0");
+        resolved.setArtifacts(new LinkedHashSet<Artifact>(Arrays.asList(a)));
+        new DependencyResolutionCache(newRepositorySystem(), session, cacheDirectory, new SystemStreamLog()).store(resolved);
+        a.getFile().delete();
+
+        MavenProject previous = newProject();
+        previous.setArtifacts(new LinkedHashSet<Artifact>());
+        MavenProject project = newProject(newDependency("a", "1.0"));
+        RepositorySystem repositorySystem = newRepositorySystem(newResolvedArtifact("a", "1.0", temp.newFolder("repository")));
+        new DependencyResolutionCache(repositorySystem, session, cacheDirectory, new SystemStreamLog()).resolve(project, previous);
+
+        Assert.assertEquals(1, collected.size());
+        Assert.assertEquals(Arrays.asList("a:1.0"), getIds(project.getArtifacts()));
+    }
+
+}
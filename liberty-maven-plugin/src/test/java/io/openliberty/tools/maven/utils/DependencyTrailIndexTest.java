@@ -0,0 +1,98 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DependencyTrailIndexTest {
+
+    private static final String PROJECT = "com.example:project:war:1.0";
+
+    private static Artifact artifact(String groupId, String artifactId, String version, String... trail) {
+        Artifact artifact = new DefaultArtifact(groupId, artifactId, version, "compile", "jar", null, new DefaultArtifactHandler("jar"));
+        List<String> dependencyTrail = new ArrayList<String>();
+        dependencyTrail.add(PROJECT);
+        dependencyTrail.addAll(Arrays.asList(trail));
+        dependencyTrail.add(artifact.getId());
+        artifact.setDependencyTrail(dependencyTrail);
+        return artifact;
+    }
+
+    private static List<String> ids(List<Artifact> artifacts) {
+        List<String> ids = new ArrayList<String>();
+        for (Artifact artifact : artifacts) {
+            ids.add(artifact.getId());
+        }
+        return ids;
+    }
+
+    private final Artifact api = artifact("org.example", "api", "1.0");
+    private final Artifact impl = artifact("org.example", "impl", "1.0", "org.example:api:jar:1.0");
+    private final Artifact util = artifact("org.example", "util", "2.0", "org.example:api:jar:1.0", "org.example:impl:jar:1.0");
+    private final Artifact other = artifact("org.other", "api-client", "3.0");
+    private final Set<Artifact> artifacts = new LinkedHashSet<Artifact>(Arrays.asList(api, impl, util, other));
+
+    @Test
+    public void testGetArtifacts() {
+        DependencyTrailIndex index = new DependencyTrailIndex(artifacts);
+        Assert.assertEquals(Arrays.asList(impl), index.getArtifacts("org.example", "impl"));
+        Assert.assertTrue(index.getArtifacts("org.example", "missing").isEmpty());
+        Assert.assertTrue(index.getArtifacts("org.other", "api").isEmpty());
+    }
+
+    @Test
+    public void testGetArtifactsByPrefix() {
+        DependencyTrailIndex index = new DependencyTrailIndex(artifacts);
+        Assert.assertEquals(Arrays.asList("org.example:api:jar:1.0", "org.example:impl:jar:1.0", "org.example:util:jar:2.0"),
+                ids(index.getArtifactsByPrefix("org.example", "")));
+        Assert.assertEquals(Arrays.asList("org.example:api:jar:1.0"), ids(index.getArtifactsByPrefix("org.example", "ap")));
+        // the prefix does not match artifacts of other groups whose groupId starts with the group
+        Assert.assertTrue(index.getArtifactsByPrefix("org.ex", "").isEmpty());
+        Assert.assertTrue(index.getArtifactsByPrefix("org.example", "z").isEmpty());
+    }
+
+    @Test
+    public void testGetArtifactsWithTrailThrough() {
+        DependencyTrailIndex index = new DependencyTrailIndex(artifacts);
+        Assert.assertEquals(Arrays.asList(api, impl, util), index.getArtifactsWithTrailThrough("org.example", "api", null));
+        Assert.assertEquals(Arrays.asList(api, impl, util), index.getArtifactsWithTrailThrough("org.example", "api", "1.0"));
+        Assert.assertEquals(Arrays.asList(impl, util), index.getArtifactsWithTrailThrough("org.example", "impl", "1.0"));
+        Assert.assertTrue(index.getArtifactsWithTrailThrough("org.example", "impl", "2.0").isEmpty());
+        Assert.assertTrue(index.getArtifactsWithTrailThrough("org.example", "missing", null).isEmpty());
+        // every artifact has the project in its trail
+        Assert.assertEquals(4, index.getArtifactsWithTrailThrough("com.example", "project", "1.0").size());
+    }
+
+    @Test
+    public void testIsIndexOf() {
+        DependencyTrailIndex index = new DependencyTrailIndex(artifacts);
+        Assert.assertTrue(index.isIndexOf(artifacts));
+        Assert.assertFalse(index.isIndexOf(new LinkedHashSet<Artifact>(artifacts)));
+        artifacts.remove(other);
+        Assert.assertFalse(index.isIndexOf(artifacts));
+    }
+
+}
@@ -0,0 +1,97 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DevModeMetricsTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private static List<String> readLines(File file) throws Exception {
+        return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testCycleIsWritten() throws Exception {
+        File dir = new File(temp.getRoot(), "metrics");
+        DevModeMetrics metrics = new DevModeMetrics(dir, false, new SystemStreamLog());
+        metrics.beginCycle("source change");
+        metrics.record("compile", 12);
+        metrics.record("maven-resources-plugin:resources", 3);
+        metrics.endCycle();
+
+        List<String> csv = readLines(new File(dir, "phases.csv"));
+        Assert.assertEquals(4, csv.size());
+        Assert.assertEquals("cycle,timestamp,trigger,phase,millis", csv.get(0));
+        Assert.assertTrue(csv.get(1), csv.get(1).startsWith("1,") && csv.get(1).contains(",source change,total,"));
+        Assert.assertTrue(csv.get(2), csv.get(2).endsWith(",source change,compile,12"));
+        Assert.assertTrue(csv.get(3), csv.get(3).endsWith(",source change,maven-resources-plugin:resources,3"));
+
+        List<String> json = readLines(new File(dir, "cycles.jsonl"));
+        Assert.assertEquals(1, json.size());
+        Assert.assertTrue(json.get(0), json.get(0).startsWith("{\"cycle\":1,\"timestamp\":\""));
+        Assert.assertTrue(json.get(0), json.get(0).endsWith(
+                "\"phases\":[{\"name\":\"compile\",\"millis\":12},{\"name\":\"maven-resources-plugin:resources\",\"millis\":3}]}"));
+    }
+
+    @Test
+    public void testNestedCycleEndsWithOuterCycle() throws Exception {
+        File dir = new File(temp.getRoot(), "metrics");
+        DevModeMetrics metrics = new DevModeMetrics(dir, true, new SystemStreamLog());
+        metrics.beginCycle("build file change");
+        metrics.beginCycle("source change");
+        metrics.record("compile", 5);
+        metrics.endCycle();
+        Assert.assertFalse(new File(dir, "cycles.jsonl").exists());
+        metrics.endCycle();
+
+        List<String> json = readLines(new File(dir, "cycles.jsonl"));
+        Assert.assertEquals(1, json.size());
+        Assert.assertTrue(json.get(0), json.get(0).contains("\"trigger\":\"build file change\""));
+        Assert.assertTrue(json.get(0), json.get(0).contains("{\"name\":\"compile\",\"millis\":5}"));
+    }
+
+    @Test
+    public void testValuesAreEscaped() throws Exception {
+        File dir = new File(temp.getRoot(), "metrics");
+        DevModeMetrics metrics = new DevModeMetrics(dir, false, new SystemStreamLog());
+        metrics.beginCycle("a, \"b\"");
+        metrics.endCycle();
+        Assert.assertTrue(readLines(new File(dir, "phases.csv")).get(1).contains(",\"a, \"\"b\"\"\",total,"));
+        Assert.assertTrue(readLines(new File(dir, "cycles.jsonl")).get(0).contains("\"trigger\":\"a, \\\"b\\\"\""));
+    }
+
+    @Test
+    public void testPhaseOutsideCycleIsNotWritten() throws Exception {
+        File dir = new File(temp.getRoot(), "metrics");
+        DevModeMetrics metrics = new DevModeMetrics(dir, false, new SystemStreamLog());
+        metrics.record("compile", 5);
+        metrics.endCycle();
+        Assert.assertFalse(dir.exists());
+    }
+
+}
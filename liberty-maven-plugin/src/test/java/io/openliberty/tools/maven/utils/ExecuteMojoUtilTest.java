@@ -0,0 +1,72 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import static org.twdata.maven.mojoexecutor.MojoExecutor.configuration;
+import static org.twdata.maven.mojoexecutor.MojoExecutor.element;
+import static org.twdata.maven.mojoexecutor.MojoExecutor.name;
+
+import java.util.Properties;
+
+import org.apache.maven.model.Plugin;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ExecuteMojoUtilTest {
+
+    @Test
+    public void testDefaultForkSettings() {
+        Xpp3Dom config = configuration();
+        ExecuteMojoUtil.setDefaultForkSettings(config, 4, new Properties());
+        Assert.assertEquals("4", config.getChild("forkCount").getValue());
+        Assert.assertEquals("true", config.getChild("reuseForks").getValue());
+    }
+
+    @Test
+    public void testConfiguredForkSettingsAreKept() {
+        Xpp3Dom config = configuration(element(name("forkCount"), "1C"), element(name("reuseForks"), "false"));
+        ExecuteMojoUtil.setDefaultForkSettings(config, 4, new Properties());
+        Assert.assertEquals(1, config.getChildren("forkCount").length);
+        Assert.assertEquals("1C", config.getChild("forkCount").getValue());
+        Assert.assertEquals("false", config.getChild("reuseForks").getValue());
+    }
+
+    @Test
+    public void testForkSettingsFromPropertiesAreKept() {
+        Properties userProperties = new Properties();
+        userProperties.setProperty("forkCount", "2");
+        Properties projectProperties = new Properties();
+        projectProperties.setProperty("reuseForks", "false");
+        Xpp3Dom config = configuration();
+        ExecuteMojoUtil.setDefaultForkSettings(config, 4, userProperties, null, projectProperties);
+        Assert.assertNull(config.getChild("forkCount"));
+        Assert.assertNull(config.getChild("reuseForks"));
+    }
+
+    @Test
+    public void testSurefireConfigurationIsStripped() {
+        Plugin plugin = new Plugin();
+        plugin.setGroupId("org.apache.maven.plugins");
+        plugin.setArtifactId("maven-surefire-plugin");
+        plugin.setConfiguration(configuration(element(name("forkCount"), "3"), element(name("notAParameter"), "x")));
+        Xpp3Dom config = ExecuteMojoUtil.getPluginGoalConfig(plugin, "test", new SystemStreamLog());
+        Assert.assertEquals("3", config.getChild("forkCount").getValue());
+        Assert.assertNull(config.getChild("notAParameter"));
+    }
+
+}
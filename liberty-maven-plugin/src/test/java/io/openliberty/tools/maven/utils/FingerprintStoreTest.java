@@ -0,0 +1,71 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FingerprintStoreTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testFingerprintsArePersisted() throws Exception {
+        File file = new File(temp.getRoot(), "liberty-dev/fingerprints.properties");
+        FingerprintStore store = new FingerprintStore(file, new SystemStreamLog());
+        Assert.assertFalse(store.matches("create", "abc"));
+        store.put("create", "abc");
+        store.put("deploy", "def");
+        Assert.assertTrue(file.isFile());
+
+        FingerprintStore reloaded = new FingerprintStore(file, new SystemStreamLog());
+        Assert.assertTrue(reloaded.matches("create", "abc"));
+        Assert.assertFalse(reloaded.matches("create", "abd"));
+        Assert.assertFalse(reloaded.matches("create", null));
+        Assert.assertEquals("def", reloaded.get("deploy"));
+
+        reloaded.remove("deploy");
+        Assert.assertNull(new FingerprintStore(file, new SystemStreamLog()).get("deploy"));
+        reloaded.clear();
+        Assert.assertTrue(new FingerprintStore(file, new SystemStreamLog()).getKeys().isEmpty());
+    }
+
+    @Test
+    public void testUnchangedFingerprintIsNotWritten() throws Exception {
+        File file = temp.newFile("fingerprints.properties");
+        FingerprintStore store = new FingerprintStore(file, new SystemStreamLog());
+        store.put("create", "abc");
+        file.setLastModified(1000);
+        store.put("create", "abc");
+        Assert.assertEquals(1000, file.lastModified());
+    }
+
+    @Test
+    public void testUnreadableStoreIsEmpty() throws Exception {
+        File file = temp.newFile("fingerprints.properties");
+        Files.write(file.toPath(), "create=\\u00zz".getBytes(StandardCharsets.ISO_8859_1));
+        Assert.assertNull(new FingerprintStore(file, new SystemStreamLog()).get("create"));
+    }
+
+}
@@ -0,0 +1,102 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FingerprintTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private static void write(File file, String content) throws Exception {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testValuesAreSeparated() {
+        Assert.assertNotEquals(new Fingerprint().add("ab").add("c").getValue(), new Fingerprint().add("a").add("bc").getValue());
+        Assert.assertNotEquals(new Fingerprint().add(null).getValue(), new Fingerprint().add("").add("").getValue());
+    }
+
+    @Test
+    public void testMapOrderDoesNotMatter() {
+        Map<String, String> first = new LinkedHashMap<String, String>();
+        first.put("a", "1");
+        first.put("b", "2");
+        Map<String, String> second = new LinkedHashMap<String, String>();
+        second.put("b", "2");
+        second.put("a", "1");
+        Assert.assertEquals(new Fingerprint().add(first).getValue(), new Fingerprint().add(second).getValue());
+        second.put("a", "3");
+        Assert.assertNotEquals(new Fingerprint().add(first).getValue(), new Fingerprint().add(second).getValue());
+    }
+
+    @Test
+    public void testLaterPropertiesOverrideEarlierProperties() {
+        Properties project = new Properties();
+        project.setProperty("liberty.var.port", "9080");
+        project.setProperty("other", "ignored");
+        Properties user = new Properties();
+        user.setProperty("liberty.var.port", "9081");
+
+        Map<String, String> expected = new HashMap<String, String>();
+        expected.put("liberty.var.port", "9081");
+        Assert.assertEquals(new Fingerprint().add(expected).getValue(),
+                new Fingerprint().addProperties("liberty.", project, null, user).getValue());
+        Assert.assertNotEquals(new Fingerprint().addProperties("liberty.", project).getValue(),
+                new Fingerprint().addProperties("liberty.", project, user).getValue());
+    }
+
+    @Test
+    public void testDirectoryContents() throws Exception {
+        File dir = temp.newFolder("config");
+        write(new File(dir, "server.xml"), "<server/>");
+        write(new File(dir, "sub/server.env"), "A=1");
+        String original = new Fingerprint().addFile(dir).getValue();
+        Assert.assertEquals(original, new Fingerprint().addFile(dir).getValue());
+
+        write(new File(dir, "sub/server.env"), "A=2");
+        Assert.assertNotEquals(original, new Fingerprint().addFile(dir).getValue());
+
+        // moving a file to another directory changes the fingerprint
+        write(new File(dir, "sub/server.env"), "A=1");
+        Files.move(new File(dir, "sub/server.env").toPath(), new File(dir, "server.env").toPath());
+        Assert.assertNotEquals(original, new Fingerprint().addFile(dir).getValue());
+    }
+
+    @Test
+    public void testMissingFile() throws Exception {
+        File file = new File(temp.getRoot(), "missing.xml");
+        String missing = new Fingerprint().addFile(file).getValue();
+        Assert.assertEquals(missing, new Fingerprint().addFile(null).getValue());
+        write(file, "");
+        Assert.assertNotEquals(missing, new Fingerprint().addFile(file).getValue());
+    }
+
+}
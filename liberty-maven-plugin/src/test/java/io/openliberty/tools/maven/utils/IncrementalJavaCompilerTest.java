@@ -0,0 +1,185 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.ToolProvider;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IncrementalJavaCompilerTest {
+
+    private static final List<String> OPTIONS = Arrays.asList("-encoding", "UTF-8");
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File sourceDirectory;
+    private File outputDirectory;
+    private IncrementalJavaCompiler compiler;
+
+    @Before
+    public void setUp() throws Exception {
+        sourceDirectory = temp.newFolder("src");
+        outputDirectory = temp.newFolder("classes");
+        compiler = new IncrementalJavaCompiler(sourceDirectory, outputDirectory, new SystemStreamLog());
+    }
+
+    private File writeSource(String className, String content) throws Exception {
+        File source = new File(sourceDirectory, className.replace('.', '/') + ".java");
+        source.getParentFile().mkdirs();
+        long lastModified = source.exists() ? source.lastModified() : 0;
+        Files.write(source.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        // make the change visible on file systems with a coarse modification time
+        source.setLastModified(Math.max(System.currentTimeMillis(), lastModified + 2000));
+        return source;
+    }
+
+    private byte[] readClass(String className) throws Exception {
+        return Files.readAllBytes(new File(outputDirectory, className.replace('.', '/') + ".class").toPath());
+    }
+
+    private boolean compile() throws Exception {
+        return compiler.compile(Collections.<String>emptyList(), OPTIONS);
+    }
+
+    @Test
+    public void testCompileChangedSourceAndDependents() throws Exception {
+        if (ToolProvider.getSystemJavaCompiler() == null) {
+            return;
+        }
+        writeSource("p.Service", "package p; public class Service { public String name() { return \"a\"; } }");
+        writeSource("p.Client", "package p; public class Client { String call() { return new Service().name(); } }");
+        writeSource("p.Unrelated", "package p; public class Unrelated { }");
+        Assert.assertTrue(compile());
+        File unrelated = new File(outputDirectory, "p/Unrelated.class");
+        unrelated.setLastModified(1000);
+
+        writeSource("p.Service", "package p; public class Service { public String name() { return \"b\"; } public int size() { return 1; } }");
+        Assert.assertTrue(compile());
+        Assert.assertEquals("unrelated class was recompiled", 1000, unrelated.lastModified());
+
+        // a change that breaks a dependent source is reported
+        writeSource("p.Service", "package p; public class Service { }");
+        Assert.assertFalse(compile());
+    }
+
+    @Test
+    public void testDeletedSourceRemovesClasses() throws Exception {
+        if (ToolProvider.getSystemJavaCompiler() == null) {
+            return;
+        }
+        File source = writeSource("p.Gone", "package p; public class Gone { class Inner { } }");
+        Assert.assertTrue(compile());
+        Assert.assertTrue(new File(outputDirectory, "p/Gone$Inner.class").exists());
+
+        Files.delete(source.toPath());
+        Assert.assertTrue(compile());
+        Assert.assertFalse(new File(outputDirectory, "p/Gone.class").exists());
+        Assert.assertFalse(new File(outputDirectory, "p/Gone$Inner.class").exists());
+    }
+
+    @Test
+    public void testChangedConstantRecompilesAllSources() throws Exception {
+        if (ToolProvider.getSystemJavaCompiler() == null) {
+            return;
+        }
+        writeSource("p.Limits", "package p; public class Limits { public static final int MAX = 1; }");
+        // the constant is inlined, and Java 8 compilers do not add a reference to Limits to the constant pool
+        writeSource("p.User", "package p; public class User { int max() { return Limits.MAX; } }");
+        writeSource("p.Unrelated", "package p; public class Unrelated { }");
+        Assert.assertTrue(compile());
+        byte[] before = readClass("p.User");
+        File unrelated = new File(outputDirectory, "p/Unrelated.class");
+        unrelated.setLastModified(1000);
+
+        writeSource("p.Limits", "package p; public class Limits { public static final int MAX = 12345; }");
+        Assert.assertTrue(compile());
+        Assert.assertFalse("class using the changed constant was not recompiled", Arrays.equals(before, readClass("p.User")));
+        Assert.assertNotEquals("all sources were not recompiled", 1000L, unrelated.lastModified());
+    }
+
+    @Test
+    public void testRemovedInheritedMethodRecompilesSubclassesAndTheirUsers() throws Exception {
+        if (ToolProvider.getSystemJavaCompiler() == null) {
+            return;
+        }
+        writeSource("p.A", "package p; public class A { public String m() { return \"a\"; } }");
+        writeSource("p.B", "package p; public class B extends A { }");
+        writeSource("p.C", "package p; public class C extends B { }");
+        // only references C, and inherits m through B from A
+        writeSource("p.D", "package p; public class D { String call() { return new C().m(); } }");
+        Assert.assertTrue(compile());
+
+        // D fails to compile instead of failing with a NoSuchMethodError at runtime
+        writeSource("p.A", "package p; public class A { }");
+        Assert.assertFalse(compile());
+    }
+
+    @Test
+    public void testSecondaryTopLevelClassesAreTrackedAfterRestart() throws Exception {
+        if (ToolProvider.getSystemJavaCompiler() == null) {
+            return;
+        }
+        writeSource("p.Main", "package p; public class Main { } class Helper { String name() { return \"a\"; } }");
+        writeSource("p.User", "package p; public class User { String call() { return new Helper().name(); } }");
+        Assert.assertTrue(compile());
+
+        // a new compiler builds its dependency graph from the class files
+        compiler = new IncrementalJavaCompiler(sourceDirectory, outputDirectory, new SystemStreamLog());
+        compile();
+        writeSource("p.Main", "package p; public class Main { } class Helper { }");
+        Assert.assertFalse(compile());
+    }
+
+    @Test
+    public void testChangedMainClassesRecompileTests() throws Exception {
+        if (ToolProvider.getSystemJavaCompiler() == null) {
+            return;
+        }
+        writeSource("p.Service", "package p; public class Service { public String name() { return \"a\"; } }");
+        Assert.assertTrue(compile());
+
+        File testSourceDirectory = temp.newFolder("test");
+        File testOutputDirectory = temp.newFolder("test-classes");
+        IncrementalJavaCompiler testCompiler = new IncrementalJavaCompiler(testSourceDirectory, testOutputDirectory, new SystemStreamLog());
+        File test = new File(testSourceDirectory, "p/ServiceTest.java");
+        test.getParentFile().mkdirs();
+        Files.write(test.toPath(), "package p; public class ServiceTest { String test() { return new Service().name(); } }".getBytes(StandardCharsets.UTF_8));
+        List<String> testClasspath = Collections.singletonList(outputDirectory.getPath());
+        Assert.assertTrue(testCompiler.compile(testClasspath, OPTIONS));
+        Assert.assertFalse(testCompiler.hasChangedClasspathClasses());
+
+        writeSource("p.Service", "package p; public class Service { }");
+        Assert.assertTrue(compile());
+        Assert.assertTrue(compiler.getChangedClasses().contains("p.Service"));
+        testCompiler.classesChanged(compiler.getChangedClasses(), compiler.hasChangedConstants());
+        Assert.assertTrue(testCompiler.hasChangedClasspathClasses());
+        Assert.assertFalse(testCompiler.compile(testClasspath, OPTIONS));
+    }
+
+}
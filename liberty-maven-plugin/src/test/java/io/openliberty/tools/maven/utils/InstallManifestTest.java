@@ -0,0 +1,129 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class InstallManifestTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File createArchive(String name, Map<String, String> entries) throws IOException {
+        File archive = new File(temp.getRoot(), name);
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        try {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                out.putNextEntry(new ZipEntry(entry.getKey()));
+                if (entry.getValue() != null) {
+                    out.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                }
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+        return archive;
+    }
+
+    private static Map<String, String> entries(String... namesAndContents) {
+        Map<String, String> entries = new LinkedHashMap<String, String>();
+        for (int i = 0; i < namesAndContents.length; i += 2) {
+            entries.put(namesAndContents[i], namesAndContents[i + 1]);
+        }
+        return entries;
+    }
+
+    // extracts the file entries like the installation does
+    private void install(Map<String, String> entries, File destination) throws IOException {
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            if (entry.getValue() != null) {
+                File file = new File(destination, entry.getKey());
+                file.getParentFile().mkdirs();
+                Files.write(file.toPath(), entry.getValue().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    public void testGetArchiveFileEntries() throws Exception {
+        File archive = createArchive("wlp.zip", entries("wlp/", null, "wlp/lib/a.jar", "a", "wlp/lib/b.jar", "bb"));
+        Map<String, String> fileEntries = InstallManifest.getArchiveFileEntries(archive);
+        // directories are not included
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("wlp/lib/a.jar", "wlp/lib/b.jar")), fileEntries.keySet());
+        Assert.assertTrue(fileEntries.get("wlp/lib/b.jar").endsWith(":2"));
+        Assert.assertFalse(fileEntries.get("wlp/lib/a.jar").equals(fileEntries.get("wlp/lib/b.jar")));
+    }
+
+    @Test
+    public void testChangedEntries() throws Exception {
+        File destination = temp.newFolder("install");
+        Map<String, String> oldEntries = entries("wlp/lib/a.jar", "a", "wlp/lib/b.jar", "b", "wlp/lib/c.jar", "c", "wlp/lib/d.jar", "d");
+        install(oldEntries, destination);
+        InstallManifest manifest = new InstallManifest(new File(destination, ".install-manifest.properties"));
+        Assert.assertFalse(manifest.exists());
+        manifest.write(destination, InstallManifest.getArchiveFileEntries(createArchive("old.zip", oldEntries)));
+        Assert.assertTrue(manifest.exists());
+
+        // b changes in the new archive, c is modified after the installation, d is deleted and e is new
+        File newArchive = createArchive("new.zip", entries("wlp/lib/a.jar", "a", "wlp/lib/b.jar", "b2", "wlp/lib/c.jar", "c",
+                "wlp/lib/d.jar", "d", "wlp/lib/e.jar", "e"));
+        File c = new File(destination, "wlp/lib/c.jar");
+        c.setLastModified(c.lastModified() - 10000);
+        new File(destination, "wlp/lib/d.jar").delete();
+
+        Set<String> changed = manifest.getChangedEntries(destination, InstallManifest.getArchiveFileEntries(newArchive));
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("wlp/lib/b.jar", "wlp/lib/c.jar", "wlp/lib/d.jar", "wlp/lib/e.jar")), changed);
+
+        manifest.delete();
+        Assert.assertFalse(manifest.exists());
+    }
+
+    @Test
+    public void testDeleteFilesNotInArchive() throws Exception {
+        File destination = temp.newFolder("install");
+        File installDir = new File(destination, "wlp");
+        install(entries("wlp/lib/a.jar", "a", "wlp/lib/removed.jar", "r", "wlp/usr/servers/defaultServer/server.xml", "<server/>",
+                "wlp/lib/features/removed.mf", "r"), destination);
+
+        int removed = InstallManifest.deleteFilesNotInArchive(installDir, destination,
+                new HashSet<String>(Collections.singleton("wlp/lib/a.jar")), new File(installDir, "usr"));
+        Assert.assertEquals(2, removed);
+        Assert.assertTrue(new File(installDir, "lib/a.jar").exists());
+        Assert.assertFalse(new File(installDir, "lib/removed.jar").exists());
+        Assert.assertFalse(new File(installDir, "lib/features/removed.mf").exists());
+        // the user directory is kept
+        Assert.assertTrue(new File(installDir, "usr/servers/defaultServer/server.xml").exists());
+    }
+
+}
@@ -0,0 +1,114 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class InstallMarkerTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File archive;
+    private File markerFile;
+
+    @Before
+    public void setUp() throws IOException {
+        archive = createArchive("wlp.zip", "runtime");
+        markerFile = new File(temp.newFolder("wlp"), ".installed");
+    }
+
+    private File createArchive(String name, String content) throws IOException {
+        File file = new File(temp.getRoot(), name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        file.setLastModified(1500000000000L);
+        return file;
+    }
+
+    private InstallMarker marker(File archive) {
+        return new InstallMarker(markerFile, archive, new SystemStreamLog());
+    }
+
+    @Test
+    public void testMissingMarker() throws Exception {
+        Assert.assertFalse(marker(archive).isInstalled());
+    }
+
+    @Test
+    public void testSameArchive() throws Exception {
+        marker(archive).write();
+        Assert.assertTrue(marker(archive).isInstalled());
+    }
+
+    @Test
+    public void testTouchedArchive() throws Exception {
+        marker(archive).write();
+        archive.setLastModified(1600000000000L);
+        Assert.assertTrue(marker(archive).isInstalled());
+        // the marker is updated with the new time
+        Assert.assertTrue(new String(Files.readAllBytes(markerFile.toPath()), StandardCharsets.ISO_8859_1).contains("lastModified=1600000000000"));
+    }
+
+    @Test
+    public void testCopiedArchive() throws Exception {
+        marker(archive).write();
+        Assert.assertTrue(marker(createArchive("copy.zip", "runtime")).isInstalled());
+    }
+
+    @Test
+    public void testChangedArchive() throws Exception {
+        marker(archive).write();
+        // an archive at another path with the same size and time is compared by content
+        Assert.assertFalse(marker(createArchive("other.zip", "RUNTIME")).isInstalled());
+        Files.write(archive.toPath(), "runtime 2".getBytes(StandardCharsets.UTF_8));
+        Assert.assertFalse(marker(archive).isInstalled());
+    }
+
+    @Test
+    public void testEarlierMarker() throws Exception {
+        // markers of earlier versions of the plugin only contain the archive path
+        Files.write(markerFile.toPath(), archive.getCanonicalPath().getBytes(StandardCharsets.UTF_8));
+        markerFile.setLastModified(1600000000000L);
+        Assert.assertTrue(marker(archive).isInstalled());
+        Assert.assertTrue(new String(Files.readAllBytes(markerFile.toPath()), StandardCharsets.ISO_8859_1).contains("sha256="));
+
+        // an archive that is newer than the marker is installed again
+        Files.write(markerFile.toPath(), archive.getCanonicalPath().getBytes(StandardCharsets.UTF_8));
+        markerFile.setLastModified(1400000000000L);
+        Assert.assertFalse(marker(archive).isInstalled());
+
+        // as is another archive
+        Files.write(markerFile.toPath(), "C:\\users\\me\\wlp.zip".getBytes(StandardCharsets.UTF_8));
+        markerFile.setLastModified(1600000000000L);
+        Assert.assertFalse(marker(archive).isInstalled());
+    }
+
+    @Test
+    public void testArchiveDigest() throws Exception {
+        Assert.assertEquals(DigestUtil.sha256(archive), marker(archive).getArchiveDigest());
+    }
+
+}
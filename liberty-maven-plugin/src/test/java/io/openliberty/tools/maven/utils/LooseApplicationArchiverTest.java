@@ -0,0 +1,142 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LooseApplicationArchiverTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private static File write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static LooseApplicationArchiver createArchiver() {
+        final ParallelZipWriter writer = new ParallelZipWriter(2, new SystemStreamLog());
+        return new LooseApplicationArchiver(new LooseApplicationArchiver.ArchiveWriter() {
+            @Override
+            public void write(File archive, List<ParallelZipWriter.Entry> entries) throws IOException {
+                writer.write(archive, entries);
+            }
+        });
+    }
+
+    private static List<String> names(File archive) throws IOException {
+        List<String> names = new ArrayList<String>();
+        ZipFile zip = new ZipFile(archive);
+        try {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                names.add(entries.nextElement().getName());
+            }
+        } finally {
+            zip.close();
+        }
+        return names;
+    }
+
+    @Test
+    public void testIsLooseApplication() throws Exception {
+        File loose = write(temp.newFile("app.war.xml"), "<archive><dir sourceOnDisk=\"/tmp\" targetInArchive=\"/\"/></archive>");
+        File server = write(temp.newFile("server.xml"), "<server/>");
+        File invalid = write(temp.newFile("invalid.xml"), "not xml");
+
+        Assert.assertTrue(LooseApplicationArchiver.isLooseApplication(loose));
+        Assert.assertFalse(LooseApplicationArchiver.isLooseApplication(server));
+        Assert.assertFalse(LooseApplicationArchiver.isLooseApplication(invalid));
+        Assert.assertEquals("app.war", LooseApplicationArchiver.getArchiveName(loose));
+    }
+
+    @Test
+    public void testBuildWar() throws Exception {
+        File webapp = temp.newFolder("webapp");
+        write(new File(webapp, "index.html"), "webapp");
+        write(new File(webapp, "WEB-INF/web.xml"), "<web-app/>");
+        File classes = temp.newFolder("classes");
+        write(new File(classes, "a/A.class"), "A");
+        // the webapp comes first and wins over the later directory
+        write(new File(classes, "index.html"), "classes");
+        File lib = write(new File(temp.getRoot(), "lib.jar"), "jar");
+        File loose = write(new File(temp.getRoot(), "apps/app.war.xml"), "<archive>"
+                + "<dir sourceOnDisk=\"" + webapp + "\" targetInArchive=\"/\"/>"
+                + "<dir sourceOnDisk=\"" + classes + "\" targetInArchive=\"/\"/>"
+                + "<dir sourceOnDisk=\"" + classes + "\" targetInArchive=\"/WEB-INF/classes\"/>"
+                + "<dir sourceOnDisk=\"" + new File(temp.getRoot(), "missing") + "\" targetInArchive=\"/WEB-INF/classes\"/>"
+                + "<file sourceOnDisk=\"" + lib + "\" targetInArchive=\"/WEB-INF/lib/lib.jar\"/>"
+                + "</archive>");
+
+        File war = new File(temp.getRoot(), "out/app.war");
+        createArchiver().build(loose, war);
+
+        Assert.assertEquals(Arrays.asList("WEB-INF/", "WEB-INF/classes/", "WEB-INF/classes/a/", "WEB-INF/classes/a/A.class",
+                "WEB-INF/classes/index.html", "WEB-INF/lib/", "WEB-INF/lib/lib.jar", "WEB-INF/web.xml", "a/", "a/A.class",
+                "index.html"), names(war));
+        ZipFile zip = new ZipFile(war);
+        try {
+            byte[] index = new byte[6];
+            zip.getInputStream(zip.getEntry("index.html")).read(index);
+            Assert.assertEquals("webapp", new String(index, StandardCharsets.UTF_8));
+        } finally {
+            zip.close();
+        }
+    }
+
+    @Test
+    public void testBuildEarWithNestedArchive() throws Exception {
+        File classes = temp.newFolder("classes");
+        write(new File(classes, "A.class"), "A");
+        File loose = write(new File(temp.getRoot(), "apps/app.ear.xml"), "<archive>"
+                + "<archive targetInArchive=\"/web.war\">"
+                + "<dir sourceOnDisk=\"" + classes + "\" targetInArchive=\"/WEB-INF/classes\"/>"
+                + "</archive>"
+                + "</archive>");
+
+        File ear = new File(temp.getRoot(), "out/app.ear");
+        createArchiver().build(loose, ear);
+
+        Assert.assertEquals(Arrays.asList("web.war"), names(ear));
+        Assert.assertEquals(Arrays.asList("WEB-INF/", "WEB-INF/classes/", "WEB-INF/classes/A.class"),
+                names(new File(temp.getRoot(), "out/app.ear.modules/web.war")));
+    }
+
+    @Test(expected = IOException.class)
+    public void testExcludesAreNotSupported() throws Exception {
+        File loose = write(new File(temp.getRoot(), "apps/app.war.xml"), "<archive>"
+                + "<dir sourceOnDisk=\"" + temp.newFolder("classes") + "\" targetInArchive=\"/\" excludes=\"**/*.txt\"/>"
+                + "</archive>");
+        createArchiver().build(loose, new File(temp.getRoot(), "out/app.war"));
+    }
+
+}
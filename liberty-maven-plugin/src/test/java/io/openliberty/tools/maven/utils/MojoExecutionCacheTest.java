@@ -0,0 +1,130 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import static org.twdata.maven.mojoexecutor.MojoExecutor.configuration;
+import static org.twdata.maven.mojoexecutor.MojoExecutor.element;
+import static org.twdata.maven.mojoexecutor.MojoExecutor.name;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.plugin.BuildPluginManager;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MojoExecutionCacheTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private Plugin plugin;
+    private int loads;
+    private final List<MojoExecution> executions = new ArrayList<MojoExecution>();
+    private MojoExecutionCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        plugin = new Plugin();
+        plugin.setGroupId("org.apache.maven.plugins");
+        plugin.setArtifactId("maven-surefire-plugin");
+        plugin.setVersion("2.22.2");
+        plugin.setConfiguration(configuration(element(name("forkCount"), "2")));
+
+        final PluginDescriptor pluginDescriptor = new PluginDescriptor();
+        MojoDescriptor mojoDescriptor = new MojoDescriptor();
+        mojoDescriptor.setGoal("test");
+        mojoDescriptor.setPluginDescriptor(pluginDescriptor);
+        pluginDescriptor.addMojo(mojoDescriptor);
+
+        BuildPluginManager pluginManager = (BuildPluginManager) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { BuildPluginManager.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("loadPlugin")) {
+                            loads++;
+                            return pluginDescriptor;
+                        }
+                        if (method.getName().equals("executeMojo")) {
+                            executions.add((MojoExecution) args[1]);
+                        }
+                        return null;
+                    }
+                });
+        cache = new MojoExecutionCache(pluginManager, new SystemStreamLog());
+    }
+
+    private static MavenSession newSession() {
+        return new MavenSession(null, new DefaultRepositorySystemSession(), new DefaultMavenExecutionRequest(),
+                new DefaultMavenExecutionResult());
+    }
+
+    @Test
+    public void testGoalConfigurationIsCopied() {
+        Xpp3Dom config = cache.getGoalConfiguration(plugin, "test");
+        Assert.assertEquals("2", config.getChild("forkCount").getValue());
+        config.getChild("forkCount").setValue("8");
+        Assert.assertEquals("2", cache.getGoalConfiguration(plugin, "test").getChild("forkCount").getValue());
+    }
+
+    @Test
+    public void testInvalidate() {
+        cache.getGoalConfiguration(plugin, "test");
+        plugin.setConfiguration(configuration(element(name("forkCount"), "3")));
+        Assert.assertEquals("2", cache.getGoalConfiguration(plugin, "test").getChild("forkCount").getValue());
+        cache.invalidate();
+        Assert.assertEquals("3", cache.getGoalConfiguration(plugin, "test").getChild("forkCount").getValue());
+    }
+
+    @Test
+    public void testExecuteReusesDescriptorAndRecordsMetrics() throws Exception {
+        File metricsDirectory = temp.newFolder("metrics");
+        DevModeMetrics metrics = new DevModeMetrics(metricsDirectory, false, new SystemStreamLog());
+        cache.setMetrics(metrics);
+
+        metrics.beginCycle("test");
+        cache.execute(plugin, "test", cache.getGoalConfiguration(plugin, "test"), new MavenProject(), newSession());
+        cache.execute(plugin, "test", cache.getGoalConfiguration(plugin, "test"), new MavenProject(), newSession());
+        metrics.endCycle();
+
+        Assert.assertEquals(1, loads);
+        Assert.assertEquals(2, executions.size());
+        Assert.assertEquals("2", executions.get(0).getConfiguration().getChild("forkCount").getValue());
+        String csv = new String(Files.readAllBytes(new File(metricsDirectory, "phases.csv").toPath()), StandardCharsets.UTF_8);
+        Assert.assertTrue(csv, csv.contains(",maven-surefire-plugin:test,"));
+    }
+
+}
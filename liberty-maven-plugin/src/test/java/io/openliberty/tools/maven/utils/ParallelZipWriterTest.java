@@ -0,0 +1,248 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ParallelZipWriterTest {
+
+    // 2020-06-15T10:20:30Z
+    private static final long FIXED_TIME = 1592216430000L;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File createFile(File dir, String name, byte[] content) throws IOException {
+        File file = new File(dir, name);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content);
+        return file;
+    }
+
+    private static byte[] repeat(String value, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(value);
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private List<ParallelZipWriter.Entry> createEntries(File dir) throws IOException {
+        byte[] random = new byte[4096];
+        new Random(1).nextBytes(random);
+        List<ParallelZipWriter.Entry> entries = new ArrayList<ParallelZipWriter.Entry>();
+        entries.add(new ParallelZipWriter.Entry("wlp/", null));
+        entries.add(new ParallelZipWriter.Entry("wlp/server.xml", createFile(dir, "server.xml", repeat("<server/>\n", 1000))));
+        entries.add(new ParallelZipWriter.Entry("wlp/app.jar", createFile(dir, "app.jar", repeat("jar", 1000))));
+        entries.add(new ParallelZipWriter.Entry("wlp/random.bin", createFile(dir, "random.bin", random)));
+        entries.add(new ParallelZipWriter.Entry("wlp/empty.txt", createFile(dir, "empty.txt", new byte[0])));
+        return entries;
+    }
+
+    private static byte[] read(ZipFile zip, ZipEntry entry) throws IOException {
+        InputStream in = zip.getInputStream(entry);
+        try {
+            byte[] buffer = new byte[(int) entry.getSize()];
+            int offset = 0;
+            int read;
+            while (offset < buffer.length && (read = in.read(buffer, offset, buffer.length - offset)) != -1) {
+                offset += read;
+            }
+            return buffer;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @return the central directory headers of an archive, positioned at their start
+     */
+    private static List<ByteBuffer> getCentralDirectory(File archive) throws IOException {
+        ByteBuffer zip = ByteBuffer.wrap(Files.readAllBytes(archive.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        int eocd = zip.limit() - 22;
+        Assert.assertEquals(0x06054b50, zip.getInt(eocd));
+        int position = zip.getInt(eocd + 16);
+        int count = zip.getShort(eocd + 10) & 0xffff;
+        List<ByteBuffer> headers = new ArrayList<ByteBuffer>();
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(0x02014b50, zip.getInt(position));
+            zip.position(position);
+            headers.add(zip.slice().order(ByteOrder.LITTLE_ENDIAN));
+            position += 46 + zip.getShort(position + 28) + zip.getShort(position + 30) + zip.getShort(position + 32);
+        }
+        return headers;
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        File dir = temp.newFolder("files");
+        File archive = new File(temp.getRoot(), "package.zip");
+        List<ParallelZipWriter.Entry> entries = createEntries(dir);
+        new ParallelZipWriter(4, new SystemStreamLog()).write(archive, entries);
+
+        ZipFile zip = new ZipFile(archive);
+        try {
+            List<String> names = new ArrayList<String>();
+            for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements();) {
+                names.add(e.nextElement().getName());
+            }
+            Assert.assertEquals(Arrays.asList("wlp/", "wlp/server.xml", "wlp/app.jar", "wlp/random.bin", "wlp/empty.txt"), names);
+            Assert.assertTrue(zip.getEntry("wlp/").isDirectory());
+
+            // compressible files are deflated, archives and files that do not get smaller are stored
+            Assert.assertEquals(ZipEntry.DEFLATED, zip.getEntry("wlp/server.xml").getMethod());
+            Assert.assertEquals(ZipEntry.STORED, zip.getEntry("wlp/app.jar").getMethod());
+            Assert.assertEquals(ZipEntry.STORED, zip.getEntry("wlp/random.bin").getMethod());
+            Assert.assertEquals(ZipEntry.STORED, zip.getEntry("wlp/empty.txt").getMethod());
+            for (ParallelZipWriter.Entry entry : entries.subList(1, entries.size())) {
+                Assert.assertArrayEquals(entry.getName(), Files.readAllBytes(entry.getFile().toPath()), read(zip, zip.getEntry(entry.getName())));
+            }
+        } finally {
+            zip.close();
+        }
+
+        // the temporary files of the archive and the compressed entries are removed
+        Assert.assertEquals(Arrays.asList("files", "package.zip"), Arrays.asList(sorted(temp.getRoot().list())));
+    }
+
+    private static String[] sorted(String[] values) {
+        Arrays.sort(values);
+        return values;
+    }
+
+    @Test
+    public void testEntryOrder() throws Exception {
+        File dir = temp.newFolder("files");
+        List<ParallelZipWriter.Entry> entries = new ArrayList<ParallelZipWriter.Entry>();
+        for (int i = 0; i < 50; i++) {
+            // larger files first, so that later entries are compressed before earlier ones
+            entries.add(new ParallelZipWriter.Entry("file" + i + ".txt", createFile(dir, "file" + i + ".txt", repeat("line " + i + "\n", (50 - i) * 200))));
+        }
+        File archive = new File(temp.getRoot(), "package.zip");
+        new ParallelZipWriter(4, new SystemStreamLog()).write(archive, entries);
+
+        ZipFile zip = new ZipFile(archive);
+        try {
+            Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+            for (ParallelZipWriter.Entry entry : entries) {
+                ZipEntry zipEntry = zipEntries.nextElement();
+                Assert.assertEquals(entry.getName(), zipEntry.getName());
+                Assert.assertArrayEquals(Files.readAllBytes(entry.getFile().toPath()), read(zip, zipEntry));
+            }
+            Assert.assertFalse(zipEntries.hasMoreElements());
+        } finally {
+            zip.close();
+        }
+    }
+
+    @Test
+    public void testFixedTime() throws Exception {
+        File dir = temp.newFolder("files");
+        File archive = new File(temp.getRoot(), "package.zip");
+        List<ParallelZipWriter.Entry> entries = createEntries(dir);
+        File executable = createFile(dir, "server", repeat("#!/bin/sh\n", 10));
+        executable.setExecutable(true);
+        entries.add(new ParallelZipWriter.Entry("wlp/server", executable));
+        ParallelZipWriter writer = new ParallelZipWriter(2, new SystemStreamLog());
+        writer.setFixedTime(FIXED_TIME);
+        writer.write(archive, entries);
+
+        // the MS-DOS time is in UTC, with two second precision
+        long dosTime = ((2020 - 1980) << 25) | (6 << 21) | (15 << 16) | (10 << 11) | (20 << 5) | (30 >> 1);
+        List<ByteBuffer> headers = getCentralDirectory(archive);
+        Assert.assertEquals(entries.size(), headers.size());
+        for (ByteBuffer header : headers) {
+            Assert.assertEquals(dosTime, header.getInt(12) & 0xffffffffL);
+            // created on unix
+            Assert.assertEquals(3, (header.getShort(4) >> 8) & 0xff);
+        }
+        Assert.assertEquals(040755, headers.get(0).getInt(38) >>> 16);
+        Assert.assertEquals(0100644, headers.get(1).getInt(38) >>> 16);
+        Assert.assertEquals(0100755, headers.get(headers.size() - 1).getInt(38) >>> 16);
+    }
+
+    @Test
+    public void testReproducible() throws Exception {
+        File dir = temp.newFolder("files");
+        List<ParallelZipWriter.Entry> entries = createEntries(dir);
+        ParallelZipWriter writer = new ParallelZipWriter(4, new SystemStreamLog());
+        writer.setFixedTime(FIXED_TIME);
+
+        File first = new File(temp.getRoot(), "first.zip");
+        writer.write(first, entries);
+        for (ParallelZipWriter.Entry entry : entries) {
+            if (entry.getFile() != null) {
+                entry.getFile().setLastModified(entry.getFile().lastModified() - 3600000);
+            }
+        }
+        File second = new File(temp.getRoot(), "second.zip");
+        writer.write(second, entries);
+
+        Assert.assertArrayEquals(Files.readAllBytes(first.toPath()), Files.readAllBytes(second.toPath()));
+    }
+
+    @Test
+    public void testTooManyEntries() throws Exception {
+        List<ParallelZipWriter.Entry> entries = new ArrayList<ParallelZipWriter.Entry>();
+        for (int i = 0; i < 0x10000; i++) {
+            entries.add(new ParallelZipWriter.Entry("dir" + i + "/", null));
+        }
+        File archive = new File(temp.getRoot(), "package.zip");
+        try {
+            new ParallelZipWriter(1, new SystemStreamLog()).write(archive, entries);
+            Assert.fail("The archive needs the zip64 format");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("zip64"));
+        }
+        Assert.assertFalse(archive.exists());
+    }
+
+    @Test
+    public void testMissingFile() throws Exception {
+        File dir = temp.newFolder("files");
+        File archive = new File(temp.getRoot(), "package.zip");
+        List<ParallelZipWriter.Entry> entries = createEntries(dir);
+        entries.add(2, new ParallelZipWriter.Entry("wlp/missing.txt", new File(dir, "missing.txt")));
+        try {
+            new ParallelZipWriter(4, new SystemStreamLog()).write(archive, entries);
+            Assert.fail("The missing file cannot be added");
+        } catch (IOException e) {
+            // expected
+        }
+        // no temporary files are left behind
+        Assert.assertEquals(Arrays.asList("files"), Arrays.asList(temp.getRoot().list()));
+    }
+
+}
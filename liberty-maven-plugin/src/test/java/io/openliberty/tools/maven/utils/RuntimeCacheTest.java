@@ -0,0 +1,138 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RuntimeCacheTest {
+
+    private static final String[] FILES = { "wlp/bin/server", "wlp/lib/ws-launch.jar", "wlp/lib/ws-config.jar",
+            "wlp/lib/extract/openliberty.jar", "wlp/lib/features/servlet-4.0.mf", "wlp/lib/ws-launch.properties",
+            "wlp/lib/platform/kernel.mf", "wlp/lib/versions/openliberty.properties", "wlp/etc/extensions/ext.properties",
+            "wlp/usr/servers/.gitkeep" };
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File archive;
+    private RuntimeCache cache;
+    private final ArchiveExtractor extractor = new ArchiveExtractor(2, new SystemStreamLog());
+
+    @Before
+    public void setUp() throws Exception {
+        archive = temp.newFile("runtime.zip");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        try {
+            for (String name : FILES) {
+                out.putNextEntry(new ZipEntry(name));
+                out.write(name.getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+        cache = new RuntimeCache(new File(temp.getRoot(), "cache"), new SystemStreamLog());
+    }
+
+    private static boolean isSameFile(File first, File second) throws IOException {
+        return Files.isSameFile(first.toPath(), second.toPath());
+    }
+
+    @Test
+    public void testArchiveIsExtractedOnce() throws Exception {
+        File extracted = cache.getExtracted(archive, "abc", extractor, "wlp/bin/");
+        Assert.assertEquals(new File(temp.getRoot(), "cache/abc"), extracted);
+        Assert.assertTrue(new File(extracted, "wlp/lib/ws-launch.jar").isFile());
+
+        // the cached extraction is used without reading the archive
+        Files.delete(archive.toPath());
+        Assert.assertEquals(extracted, cache.getExtracted(archive, "abc", extractor, "wlp/bin/"));
+        Assert.assertEquals(2, new File(temp.getRoot(), "cache").list().length);
+    }
+
+    @Test
+    public void testOnlyLibJarsAreLinked() throws Exception {
+        File extracted = cache.getExtracted(archive, "abc", extractor, "wlp/bin/");
+        File destination = temp.newFolder("install");
+        File installDirectory = new File(destination, "wlp");
+        int linked = cache.populate(extracted, destination, RuntimeCache.getLinkedDirectories(installDirectory));
+
+        for (String name : FILES) {
+            Assert.assertEquals(name, new String(Files.readAllBytes(new File(destination, name).toPath()), StandardCharsets.UTF_8));
+        }
+        if (linked == 0) {
+            // hard links are not supported
+            return;
+        }
+        Assert.assertEquals(2, linked);
+        Assert.assertTrue(isSameFile(new File(extracted, "wlp/lib/ws-launch.jar"), new File(destination, "wlp/lib/ws-launch.jar")));
+        Assert.assertTrue(isSameFile(new File(extracted, "wlp/lib/ws-config.jar"), new File(destination, "wlp/lib/ws-config.jar")));
+        for (String name : new String[] { "wlp/bin/server", "wlp/lib/extract/openliberty.jar", "wlp/lib/features/servlet-4.0.mf",
+                "wlp/lib/ws-launch.properties", "wlp/lib/platform/kernel.mf", "wlp/lib/versions/openliberty.properties",
+                "wlp/etc/extensions/ext.properties", "wlp/usr/servers/.gitkeep" }) {
+            Assert.assertFalse(name, isSameFile(new File(extracted, name), new File(destination, name)));
+        }
+
+        // modifying a copied file does not change the cache
+        Files.write(new File(destination, "wlp/lib/versions/openliberty.properties").toPath(), "changed".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals("wlp/lib/versions/openliberty.properties",
+                new String(Files.readAllBytes(new File(extracted, "wlp/lib/versions/openliberty.properties").toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testModifiedCacheIsExtractedAgain() throws Exception {
+        File extracted = cache.getExtracted(archive, "abc", extractor, "wlp/bin/");
+        File destination = temp.newFolder("install");
+        cache.populate(extracted, destination, RuntimeCache.getLinkedDirectories(new File(destination, "wlp")));
+
+        // an in-place rewrite of a linked jar also rewrites the cached jar
+        File cachedJar = new File(extracted, "wlp/lib/ws-launch.jar");
+        Files.write(new File(destination, "wlp/lib/ws-launch.jar").toPath(), "changed".getBytes(StandardCharsets.UTF_8));
+        Files.write(cachedJar.toPath(), "changed".getBytes(StandardCharsets.UTF_8));
+        Assert.assertFalse(RuntimeCache.isIntact(extracted, new File(temp.getRoot(), "cache/abc.index")));
+
+        Assert.assertEquals(extracted, cache.getExtracted(archive, "abc", extractor, "wlp/bin/"));
+        Assert.assertEquals("wlp/lib/ws-launch.jar", new String(Files.readAllBytes(cachedJar.toPath()), StandardCharsets.UTF_8));
+        Assert.assertTrue(RuntimeCache.isIntact(extracted, new File(temp.getRoot(), "cache/abc.index")));
+        Assert.assertEquals(2, new File(temp.getRoot(), "cache").list().length);
+    }
+
+    @Test
+    public void testCacheWithoutIndexIsExtractedAgain() throws Exception {
+        File extracted = new File(temp.getRoot(), "cache/abc/wlp/lib");
+        Assert.assertTrue(extracted.mkdirs());
+        Files.write(new File(extracted, "ws-launch.jar").toPath(), "old".getBytes(StandardCharsets.UTF_8));
+
+        File cached = cache.getExtracted(archive, "abc", extractor, "wlp/bin/");
+        Assert.assertEquals("wlp/lib/ws-launch.jar",
+                new String(Files.readAllBytes(new File(cached, "wlp/lib/ws-launch.jar").toPath()), StandardCharsets.UTF_8));
+        Assert.assertTrue(new File(cached, "wlp/bin/server").isFile());
+    }
+
+}
@@ -0,0 +1,92 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ServerHomeIndexTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File createArchive(String name, String... entries) throws IOException {
+        File archive = new File(temp.getRoot(), name);
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        try {
+            for (String entry : entries) {
+                out.putNextEntry(new ZipEntry(entry));
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+        return archive;
+    }
+
+    private ServerHomeIndex index() {
+        return new ServerHomeIndex(new File(temp.getRoot(), "install/.server-home-index.properties"), new SystemStreamLog());
+    }
+
+    @Test
+    public void testServerHome() throws Exception {
+        File archive = createArchive("wlp.zip", "wlp/", "wlp/bin/server", "wlp/lib/ws-launch.jar");
+        Assert.assertEquals("wlp/", index().getServerHome(archive));
+        Assert.assertEquals("", index().getServerHome(createArchive("root.zip", "bin/server", "lib/ws-launch.jar")));
+        Assert.assertNull(index().getServerHome(createArchive("other.zip", "README")));
+    }
+
+    @Test
+    public void testIndexedArchiveIsNotOpened() throws Exception {
+        File archive = createArchive("wlp.zip", "wlp/lib/ws-launch.jar");
+        long lastModified = archive.lastModified();
+        Assert.assertEquals("wlp/", index().getServerHome(archive));
+
+        // an archive with the same path, size and time is found in the index without reading it
+        Files.write(archive.toPath(), new byte[(int) archive.length()]);
+        archive.setLastModified(lastModified);
+        Assert.assertEquals("wlp/", index().getServerHome(archive));
+    }
+
+    @Test
+    public void testChangedArchive() throws Exception {
+        File archive = createArchive("wlp.zip", "wlp/lib/ws-launch.jar");
+        Assert.assertEquals("wlp/", index().getServerHome(archive));
+
+        archive.delete();
+        createArchive("wlp.zip", "openliberty/wlp/lib/ws-launch.jar");
+        archive.setLastModified(archive.lastModified() + 2000);
+        Assert.assertEquals("openliberty/wlp/", index().getServerHome(archive));
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidArchive() throws Exception {
+        File archive = new File(temp.getRoot(), "invalid.zip");
+        Files.write(archive.toPath(), new byte[100]);
+        index().getServerHome(archive);
+    }
+
+}
@@ -0,0 +1,181 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class ServerStatusProbeTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File outputDirectory;
+    private File workarea;
+    private ServerStatusProbe probe;
+
+    @Before
+    public void setUp() throws IOException {
+        outputDirectory = temp.newFolder("servers");
+        workarea = new File(outputDirectory, "defaultServer/workarea");
+        probe = new ServerStatusProbe(outputDirectory, "defaultServer", new SystemStreamLog());
+    }
+
+    private void writePid(String pid) throws IOException {
+        File pidFile = new File(outputDirectory, ".pid/defaultServer.pid");
+        pidFile.getParentFile().mkdirs();
+        Files.write(pidFile.toPath(), pid.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String getCurrentPid() {
+        String name = ManagementFactory.getRuntimeMXBean().getName();
+        return name.substring(0, name.indexOf('@'));
+    }
+
+    // whether the probe can check if a process is alive, on Java 9 and later or with /proc
+    private static boolean canCheckProcesses() {
+        try {
+            Class.forName("java.lang.ProcessHandle");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return new File("/proc").isDirectory();
+        }
+    }
+
+    @Test
+    public void testNoWorkarea() {
+        Assert.assertEquals(ServerStatusProbe.Status.STOPPED, probe.getStatus());
+    }
+
+    @Test
+    public void testLock() throws Exception {
+        workarea.mkdirs();
+        File lockFile = new File(workarea, ".sLock");
+        lockFile.createNewFile();
+        Assert.assertEquals(ServerStatusProbe.Status.STOPPED, probe.getStatus());
+
+        RandomAccessFile file = new RandomAccessFile(lockFile, "rw");
+        try {
+            FileLock lock = file.getChannel().lock();
+            try {
+                Assert.assertEquals(ServerStatusProbe.Status.RUNNING, probe.getStatus());
+            } finally {
+                lock.release();
+            }
+        } finally {
+            file.close();
+        }
+        Assert.assertEquals(ServerStatusProbe.Status.STOPPED, probe.getStatus());
+    }
+
+    @Test
+    public void testProcess() throws Exception {
+        workarea.mkdirs();
+        File runningMarker = new File(workarea, ".sRunning");
+        runningMarker.createNewFile();
+
+        // without a process ID the marker does not show whether the server is running
+        Assert.assertEquals(ServerStatusProbe.Status.UNKNOWN, probe.getStatus());
+        if (!canCheckProcesses()) {
+            return;
+        }
+
+        writePid(getCurrentPid());
+        Assert.assertEquals(ServerStatusProbe.Status.RUNNING, probe.getStatus());
+
+        // the process ID may have been reused by another process
+        runningMarker.delete();
+        Assert.assertEquals(ServerStatusProbe.Status.UNKNOWN, probe.getStatus());
+
+        writePid("invalid");
+        Assert.assertEquals(ServerStatusProbe.Status.UNKNOWN, probe.getStatus());
+    }
+
+    @Test
+    public void testEndedProcess() throws Exception {
+        if (!canCheckProcesses()) {
+            return;
+        }
+        workarea.mkdirs();
+        new File(workarea, ".sRunning").createNewFile();
+        // larger than the highest process ID of the supported platforms
+        writePid("999999999");
+        Assert.assertEquals(ServerStatusProbe.Status.STOPPED, probe.getStatus());
+    }
+
+    @Test
+    public void testNoMarker() throws Exception {
+        workarea.mkdirs();
+        Assert.assertEquals(ServerStatusProbe.Status.STOPPED, probe.getStatus());
+    }
+
+    @Test
+    public void testEndpoint() throws Exception {
+        workarea.mkdirs();
+        new File(workarea, ".sRunning").createNewFile();
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+        try {
+            // any response shows that the server is running
+            URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/health");
+            Assert.assertEquals(ServerStatusProbe.Status.RUNNING, probe.getStatus(url, 5000));
+        } finally {
+            server.stop(0);
+        }
+
+        ServerSocket socket = new ServerSocket(0);
+        int port = socket.getLocalPort();
+        socket.close();
+        Assert.assertEquals(ServerStatusProbe.Status.UNKNOWN, probe.getStatus(new URL("http://localhost:" + port + "/"), 1000));
+        Assert.assertEquals(ServerStatusProbe.Status.UNKNOWN, probe.getStatus(null, 1000));
+    }
+
+    @Test
+    public void testEndpointNotUsedWhenStatusIsKnown() throws Exception {
+        ServerSocket socket = new ServerSocket(0);
+        int port = socket.getLocalPort();
+        socket.close();
+        Assert.assertEquals(ServerStatusProbe.Status.STOPPED, probe.getStatus(new URL("http://localhost:" + port + "/"), 1000));
+    }
+
+}
@@ -0,0 +1,158 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestImpactAnalyzerTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File sourceDirectory;
+    private File outputDirectory;
+    private File testOutputDirectory;
+    private TestImpactAnalyzer analyzer;
+
+    @Before
+    public void setUp() throws Exception {
+        sourceDirectory = temp.newFolder("src");
+        outputDirectory = temp.newFolder("classes");
+        testOutputDirectory = temp.newFolder("test-classes");
+        analyzer = new TestImpactAnalyzer(outputDirectory, testOutputDirectory, new SystemStreamLog());
+    }
+
+    private boolean compile() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            return false;
+        }
+        write("p.Service", "package p; public class Service { public String name() { return \"a\"; } }");
+        write("p.Limits", "package p; public class Limits { public static final int MAX = 1; }");
+        write("p.Other", "package p; public class Other { }");
+        compile(compiler, outputDirectory, "p.Service", "p.Limits", "p.Other");
+        write("p.ServiceTest", "package p; public class ServiceTest { Service service; }");
+        write("p.OtherTest", "package p; public class OtherTest { Other other; }");
+        write("p.LimitsTest", "package p; public class LimitsTest { int max() { return Limits.MAX; } }");
+        write("p.ServiceIT", "package p; public class ServiceIT { }");
+        compile(compiler, testOutputDirectory, "p.ServiceTest", "p.OtherTest", "p.LimitsTest", "p.ServiceIT");
+        return true;
+    }
+
+    private void write(String className, String content) throws Exception {
+        File source = new File(sourceDirectory, className.replace('.', '/') + ".java");
+        source.getParentFile().mkdirs();
+        Files.write(source.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void compile(JavaCompiler compiler, File directory, String... classNames) {
+        List<String> args = new ArrayList<String>(Arrays.asList("-d", directory.getPath(), "-cp", outputDirectory.getPath()));
+        for (String className : classNames) {
+            args.add(new File(sourceDirectory, className.replace('.', '/') + ".java").getPath());
+        }
+        Assert.assertEquals(0, compiler.run(null, null, null, args.toArray(new String[args.size()])));
+    }
+
+    private void touch(File directory, String className) {
+        File classFile = new File(directory, className.replace('.', '/') + ".class");
+        classFile.setLastModified(classFile.lastModified() + 10000);
+    }
+
+    private static void assertAll(TestImpactAnalyzer.TestSelection selection) {
+        Assert.assertNull(selection.getUnitTests());
+        Assert.assertNull(selection.getIntegrationTests());
+    }
+
+    @Test
+    public void testFirstRunAndUnchangedClassesRunAllTests() throws Exception {
+        if (!compile()) {
+            return;
+        }
+        assertAll(analyzer.select());
+        assertAll(analyzer.select());
+    }
+
+    @Test
+    public void testChangedMainClassSelectsReferencingTests() throws Exception {
+        if (!compile()) {
+            return;
+        }
+        analyzer.select();
+        touch(outputDirectory, "p.Service");
+        TestImpactAnalyzer.TestSelection selection = analyzer.select();
+        Assert.assertEquals(Collections.singletonList("p.ServiceTest"), selection.getUnitTests());
+        // integration tests test the deployed application
+        Assert.assertNull(selection.getIntegrationTests());
+    }
+
+    @Test
+    public void testChangedTestClassSelectsOnlyThatTest() throws Exception {
+        if (!compile()) {
+            return;
+        }
+        analyzer.select();
+        touch(testOutputDirectory, "p.OtherTest");
+        TestImpactAnalyzer.TestSelection selection = analyzer.select();
+        Assert.assertEquals(Collections.singletonList("p.OtherTest"), selection.getUnitTests());
+        Assert.assertEquals(Collections.<String>emptyList(), selection.getIntegrationTests());
+    }
+
+    @Test
+    public void testChangedConstantRunsAllTests() throws Exception {
+        if (!compile()) {
+            return;
+        }
+        analyzer.select();
+        touch(outputDirectory, "p.Limits");
+        assertAll(analyzer.select());
+    }
+
+    @Test
+    public void testSelectAllRunsAllTestsAndRecordsChanges() throws Exception {
+        if (!compile()) {
+            return;
+        }
+        analyzer.select();
+        touch(outputDirectory, "p.Service");
+        assertAll(analyzer.selectAll());
+        // the changes were recorded by the full run
+        touch(testOutputDirectory, "p.OtherTest");
+        Assert.assertEquals(Collections.singletonList("p.OtherTest"), analyzer.select().getUnitTests());
+    }
+
+    @Test
+    public void testToTestParameter() {
+        Assert.assertEquals("p/ServiceTest.java,p/q/OtherTest.java",
+                TestImpactAnalyzer.toTestParameter(Arrays.asList("p.ServiceTest", "p.q.OtherTest")));
+    }
+
+}
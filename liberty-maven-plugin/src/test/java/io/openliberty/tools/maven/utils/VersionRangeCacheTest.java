@@ -0,0 +1,107 @@
+/**
+ * (C) Copyright IBM Corporation 2020.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openliberty.tools.maven.utils;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class VersionRangeCacheTest {
+
+    private static final String KEY = VersionRangeCache.getKey("io.openliberty", "openliberty-runtime", "zip", "[20.0.0.1,)",
+            "central");
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private final Log log = new SystemStreamLog();
+
+    @Test
+    public void testGet() throws Exception {
+        VersionRangeCache cache = new VersionRangeCache();
+        Assert.assertNull(cache.get(KEY, 60000));
+        cache.put(KEY, "20.0.0.9");
+        Assert.assertEquals("20.0.0.9", cache.get(KEY, 60000));
+        Assert.assertNull(cache.get(VersionRangeCache.getKey("io.openliberty", "openliberty-runtime", "zip", "[20.0.0.1,)", "other"), 60000));
+
+        // entries older than the time to live are not returned
+        Thread.sleep(20);
+        Assert.assertNull(cache.get(KEY, 10));
+    }
+
+    @Test
+    public void testStoreAndLoad() throws Exception {
+        File file = new File(temp.getRoot(), "cache/version-ranges.properties");
+        VersionRangeCache cache = new VersionRangeCache();
+        cache.put(KEY, "20.0.0.9");
+        cache.store(file, KEY, log);
+        cache.put("other", "1.0");
+        cache.store(file, "other", log);
+        // unknown keys are not stored
+        cache.store(file, "missing", log);
+
+        VersionRangeCache loaded = new VersionRangeCache();
+        loaded.load(file, log);
+        Assert.assertEquals("20.0.0.9", loaded.get(KEY, 60000));
+        Assert.assertEquals("1.0", loaded.get("other", 60000));
+        Assert.assertNull(loaded.get("missing", 60000));
+    }
+
+    @Test
+    public void testLoadKeepsNewerEntries() throws Exception {
+        File file = new File(temp.getRoot(), "version-ranges.properties");
+        VersionRangeCache previous = new VersionRangeCache();
+        previous.put(KEY, "20.0.0.8");
+        previous.store(file, KEY, log);
+
+        Thread.sleep(5);
+        VersionRangeCache cache = new VersionRangeCache();
+        cache.put(KEY, "20.0.0.9");
+        cache.load(file, log);
+        Assert.assertEquals("20.0.0.9", cache.get(KEY, 60000));
+
+        // a file is only read once
+        cache.put(KEY, "20.0.0.10");
+        previous.put(KEY, "20.0.0.11");
+        previous.store(file, KEY, log);
+        cache.load(file, log);
+        Assert.assertEquals("20.0.0.10", cache.get(KEY, 60000));
+    }
+
+    @Test
+    public void testDamagedFile() throws Exception {
+        File file = new File(temp.getRoot(), "version-ranges.properties");
+        Files.write(file.toPath(), ("a=notatime:1.0\nb=2.0\nc=" + System.currentTimeMillis() + ":3.0\nd=\\u12\n")
+                .getBytes(StandardCharsets.ISO_8859_1));
+        VersionRangeCache cache = new VersionRangeCache();
+        cache.load(file, log);
+        Assert.assertNull(cache.get("a", 60000));
+        Assert.assertNull(cache.get("b", 60000));
+
+        Files.write(file.toPath(), ("c=" + System.currentTimeMillis() + ":3.0\n").getBytes(StandardCharsets.ISO_8859_1));
+        cache = new VersionRangeCache();
+        cache.load(file, log);
+        Assert.assertEquals("3.0", cache.get("c", 60000));
+    }
+
+}